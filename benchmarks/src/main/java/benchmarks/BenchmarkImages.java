@@ -0,0 +1,101 @@
+// BenchmarkImages.java
+// Shared JMH state for the image benchmarks: test images, kernels and pools.
+
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * JMH state classes. Each benchmark method only declares the states whose parameters affect it,
+ * so e.g. the sequential benchmarks are not repeated for every pool size. The default values are a small
+ * representative grid (the largest method, customFilterParallel, runs 3 x 2 x 3 = 18 configurations, about
+ * 12 minutes); wider sweeps are selected on the command line, e.g. -p parallelism=1,2,4,8,16,32,64.
+ */
+public final class BenchmarkImages {
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * A random TYPE_INT_ARGB image (4:3) of the given size in megapixels.
+     */
+    @State(Scope.Benchmark)
+    public static class ImageState {
+        @Param({"0.3", "12", "50"})
+        public double megapixels;
+
+        public BufferedImage image;
+        public int[] pixels;
+        public int[] output;
+        public int width;
+        public int height;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            width = (int) Math.round(Math.sqrt(megapixels * 1_000_000 * 4 / 3));
+            height = (int) Math.round(megapixels * 1_000_000 / width);
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = 0xff000000 | random.nextInt(0x1000000);
+            }
+            output = new int[pixels.length];
+        }
+    }
+
+    /**
+     * A normalized box-blur kernel of the given size.
+     */
+    @State(Scope.Benchmark)
+    public static class KernelState {
+        @Param({"3", "9"})
+        public int kernelSize;
+
+        public double[][] kernel;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            kernel = new double[kernelSize][kernelSize];
+            double weight = 1.0 / (kernelSize * kernelSize);
+            for (double[] row : kernel) {
+                java.util.Arrays.fill(row, weight);
+            }
+        }
+    }
+
+    /**
+     * A Fork/Join pool of the given parallelism (created once per trial, so pool start-up is not measured)
+     * and the threshold (rows per leaf task) passed to the tasks.
+     */
+    @State(Scope.Benchmark)
+    public static class PoolState {
+        @Param({"1", "4", "16"})
+        public int parallelism;
+
+        @Param({"100"})
+        public int threshold;
+
+        public ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// ImageProcessorBenchmark.java
+// JMH benchmarks of every ImageProcessor method, sequential and Fork/Join.
+
+package benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmarks.BenchmarkImages.ImageState;
+import benchmarks.BenchmarkImages.KernelState;
+import benchmarks.BenchmarkImages.PoolState;
+
+/**
+ * Measures the public ImageProcessor methods exactly as the app calls them (including the allocation
+ * of the result image). ImageProcessor lives in the default package, which cannot be imported from a
+ * named package (and JMH requires one), so the methods are looked up once as constant MethodHandles.
+ * The returned images are consumed by JMH's implicit blackhole.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ImageProcessorBenchmark {
+
+    private static final MethodHandle GRAYSCALE_SEQUENTIAL = find("toGrayscaleSequential",
+            MethodType.methodType(BufferedImage.class, BufferedImage.class));
+    private static final MethodHandle SEPIA_SEQUENTIAL = find("toSepiaSequential",
+            MethodType.methodType(BufferedImage.class, BufferedImage.class));
+    private static final MethodHandle FILTER_SEQUENTIAL = find("applyCustomFilterSequential",
+            MethodType.methodType(BufferedImage.class, BufferedImage.class, double[][].class));
+    private static final MethodHandle GRAYSCALE_PARALLEL = find("toGrayscaleParallel",
+            MethodType.methodType(BufferedImage.class, BufferedImage.class, int.class, ForkJoinPool.class));
+    private static final MethodHandle SEPIA_PARALLEL = find("toSepiaParallel",
+            MethodType.methodType(BufferedImage.class, BufferedImage.class, int.class, ForkJoinPool.class));
+    private static final MethodHandle FILTER_PARALLEL = find("applyCustomFilterParallel",
+            MethodType.methodType(BufferedImage.class, BufferedImage.class, double[][].class, int.class, ForkJoinPool.class));
+
+    private static MethodHandle find(String name, MethodType type) {
+        try {
+            Class<?> processor = Class.forName("ImageProcessor");
+            return MethodHandles.publicLookup().findStatic(processor, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage grayscaleSequential(ImageState image) throws Throwable {
+        return (BufferedImage) GRAYSCALE_SEQUENTIAL.invokeExact(image.image);
+    }
+
+    @Benchmark
+    public BufferedImage sepiaSequential(ImageState image) throws Throwable {
+        return (BufferedImage) SEPIA_SEQUENTIAL.invokeExact(image.image);
+    }
+
+    @Benchmark
+    public BufferedImage customFilterSequential(ImageState image, KernelState kernel) throws Throwable {
+        return (BufferedImage) FILTER_SEQUENTIAL.invokeExact(image.image, kernel.kernel);
+    }
+
+    @Benchmark
+    public BufferedImage grayscaleParallel(ImageState image, PoolState pool) throws Throwable {
+        return (BufferedImage) GRAYSCALE_PARALLEL.invokeExact(image.image, pool.threshold, pool.pool);
+    }
+
+    @Benchmark
+    public BufferedImage sepiaParallel(ImageState image, PoolState pool) throws Throwable {
+        return (BufferedImage) SEPIA_PARALLEL.invokeExact(image.image, pool.threshold, pool.pool);
+    }
+
+    @Benchmark
+    public BufferedImage customFilterParallel(ImageState image, KernelState kernel, PoolState pool) throws Throwable {
+        return (BufferedImage) FILTER_PARALLEL.invokeExact(image.image, kernel.kernel, pool.threshold, pool.pool);
+    }
+}
@@ -0,0 +1,114 @@
+// ParallelImageTasksBenchmark.java
+// JMH benchmarks of the ParallelImageTasks Fork/Join tasks and PixelKernels on raw pixel arrays.
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ParallelImageTasks.ParallelImageTasks.CompleterStats;
+import ParallelImageTasks.ParallelImageTasks.ConvolutionKernel;
+import ParallelImageTasks.ParallelImageTasks.CustomFilterCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.CustomFilterTransformTask;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleKernel;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleTransformTask;
+import ParallelImageTasks.ParallelImageTasks.RowSpliterator;
+import ParallelImageTasks.ParallelImageTasks.SepiaCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.SepiaKernel;
+import ParallelImageTasks.ParallelImageTasks.SepiaTransformTask;
+import benchmarks.BenchmarkImages.ImageState;
+import benchmarks.BenchmarkImages.KernelState;
+import benchmarks.BenchmarkImages.PoolState;
+
+/**
+ * Measures the tasks without the BufferedImage allocation and logging of ImageProcessor: the Fork/Join tasks
+ * (RecursiveAction and CountedCompleter versions) and a parallel stream over the rows on a reused output array for
+ * each pool size and threshold, and
+ * the PixelKernels over the whole image on one thread as the sequential baseline of the same arithmetic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ParallelImageTasksBenchmark {
+
+    @Benchmark
+    public void grayscaleTask(ImageState image, PoolState pool, Blackhole blackhole) {
+        pool.pool.invoke(new GrayscaleTransformTask(image.pixels, image.output, image.width, 0, image.height, pool.threshold));
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void sepiaTask(ImageState image, PoolState pool, Blackhole blackhole) {
+        pool.pool.invoke(new SepiaTransformTask(image.pixels, image.output, image.width, 0, image.height, pool.threshold));
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void customFilterTask(ImageState image, KernelState kernel, PoolState pool, Blackhole blackhole) {
+        pool.pool.invoke(new CustomFilterTransformTask(image.pixels, image.output, image.width, image.height,
+                0, image.height, kernel.kernel, pool.threshold));
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void grayscaleCompleter(ImageState image, PoolState pool, Blackhole blackhole) {
+        pool.pool.invoke(new GrayscaleCompleterTask(image.pixels, image.output, image.width, 0, image.height,
+                pool.threshold, new CompleterStats()));
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void sepiaCompleter(ImageState image, PoolState pool, Blackhole blackhole) {
+        pool.pool.invoke(new SepiaCompleterTask(image.pixels, image.output, image.width, 0, image.height,
+                pool.threshold, new CompleterStats()));
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void customFilterCompleter(ImageState image, KernelState kernel, PoolState pool, Blackhole blackhole) {
+        pool.pool.invoke(new CustomFilterCompleterTask(image.pixels, image.output, image.width, image.height,
+                0, image.height, kernel.kernel, pool.threshold, new CompleterStats()));
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void sepiaStream(ImageState image, PoolState pool, Blackhole blackhole) {
+        SepiaKernel kernel = new SepiaKernel();
+        // Started inside the pool, so the stream runs on its workers rather than on the common pool
+        pool.pool.submit(() -> StreamSupport.intStream(new RowSpliterator(0, image.height, pool.threshold), true)
+                .forEach(y -> kernel.apply(image.pixels, image.output, image.width, image.height, 0, y, image.width, y + 1)))
+                .join();
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void grayscaleKernel(ImageState image, Blackhole blackhole) {
+        new GrayscaleKernel().apply(image.pixels, image.output, image.width, image.height, 0, 0, image.width, image.height);
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void sepiaKernel(ImageState image, Blackhole blackhole) {
+        new SepiaKernel().apply(image.pixels, image.output, image.width, image.height, 0, 0, image.width, image.height);
+        blackhole.consume(image.output);
+    }
+
+    @Benchmark
+    public void convolutionKernel(ImageState image, KernelState kernel, Blackhole blackhole) {
+        new ConvolutionKernel(kernel.kernel).apply(image.pixels, image.output, image.width, image.height,
+                0, 0, image.width, image.height);
+        blackhole.consume(image.output);
+    }
+}
@@ -0,0 +1,345 @@
+// BenchmarkRunner.java
+// Repeated, warmed-up timing of one configuration with summary statistics and CSV/JSON export.
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times a configuration (e.g. "Sepia with 8 threads") several times instead of once. Each configuration is first
+ * run warmupRuns times untimed, so the JIT has compiled the hot loops and pool threads exist, and then trials times;
+ * the samples are summarized as median, p95, standard deviation and a 95% confidence interval of the mean.
+ * The warmup and trial counts can be overridden with -Dbenchmark.warmup=N and -Dbenchmark.trials=N.
+ */
+public class BenchmarkRunner {
+
+    // Two-sided 95% Student t quantiles for 1..30 degrees of freedom; 1.96 beyond that
+    private static final double[] T_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private final int warmupRuns;
+    private final int trials;
+
+    /**
+     * @param warmupRuns Default number of untimed runs before the trials of each configuration.
+     * @param trials Default number of timed runs per configuration (at least 1).
+     */
+    public BenchmarkRunner(int warmupRuns, int trials) {
+        this.warmupRuns = Integer.getInteger("benchmark.warmup", warmupRuns);
+        this.trials = Math.max(1, Integer.getInteger("benchmark.trials", trials));
+    }
+
+    public int getWarmupRuns() {
+        return warmupRuns;
+    }
+
+    public int getTrials() {
+        return trials;
+    }
+
+    /**
+     * Runs the warmup runs and the trials of one configuration on the calling thread.
+     *
+     * @param label Name of the configuration, e.g. "Sequential" or "Parallel".
+     * @param threads Number of threads the configuration uses (1 for sequential code).
+     * @param run The work to time; runs warmupRuns + trials times.
+     * @return The timing samples and their statistics.
+     */
+    public Stats measure(String label, int threads, Runnable run) {
+        for (int i = 0; i < warmupRuns; i++) {
+            run.run();
+        }
+        // Start every configuration with a clean heap so garbage from the previous one is not collected here
+        System.gc();
+        double[] samples = new double[trials];
+        for (int i = 0; i < trials; i++) {
+            long start = System.nanoTime();
+            run.run();
+            samples[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+        Stats stats = new Stats(label, threads, samples);
+        System.out.println(stats);
+        return stats;
+    }
+
+    /**
+     * Timing samples (ms) of one configuration.
+     */
+    public static class Stats {
+        public final String label;
+        public final int threads;
+        private final double[] samples; // In measurement order
+        private final double[] sorted;
+
+        public Stats(String label, int threads, double[] samples) {
+            this.label = label;
+            this.threads = threads;
+            this.samples = samples.clone();
+            this.sorted = samples.clone();
+            Arrays.sort(sorted);
+        }
+
+        /**
+         * Wraps a single measurement, e.g. from code that does not run trials.
+         */
+        public static Stats single(String label, int threads, double ms) {
+            return new Stats(label, threads, new double[] {ms});
+        }
+
+        public int count() {
+            return samples.length;
+        }
+
+        public double[] samples() {
+            return samples.clone();
+        }
+
+        public double min() {
+            return sorted[0];
+        }
+
+        public double max() {
+            return sorted[sorted.length - 1];
+        }
+
+        public double median() {
+            return percentile(50);
+        }
+
+        public double p95() {
+            return percentile(95);
+        }
+
+        /**
+         * @param p Percentile in [0, 100], linearly interpolated between samples.
+         */
+        public double percentile(double p) {
+            double position = p / 100.0 * (sorted.length - 1);
+            int lower = (int) Math.floor(position);
+            int upper = Math.min(sorted.length - 1, lower + 1);
+            return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+        }
+
+        public double mean() {
+            double sum = 0;
+            for (double sample : samples) sum += sample;
+            return sum / samples.length;
+        }
+
+        /**
+         * @return Sample standard deviation, 0 for a single sample.
+         */
+        public double stddev() {
+            if (samples.length < 2) return 0.0;
+            double mean = mean();
+            double sum = 0;
+            for (double sample : samples) sum += (sample - mean) * (sample - mean);
+            return Math.sqrt(sum / (samples.length - 1));
+        }
+
+        /**
+         * @return Half width of the 95% confidence interval of the mean (Student t), 0 for a single sample.
+         */
+        public double ci95() {
+            int df = samples.length - 1;
+            if (df < 1) return 0.0;
+            double t = df <= T_95.length ? T_95[df - 1] : 1.96;
+            return t * stddev() / Math.sqrt(samples.length);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%s (%d threads): median %.1f ms, p95 %.1f ms, sd %.1f ms, 95%% CI %.1f +/- %.1f ms (n=%d)",
+                    label, threads, median(), p95(), stddev(), mean(), ci95(), count());
+        }
+    }
+
+    /**
+     * The results of one benchmark run: a sequential baseline and one entry per parallel configuration,
+     * plus enough context (machine, JVM, trial counts) to compare exports from different machines.
+     * In a weak-scaling run the configuration with p threads processed p times the sequential work.
+     */
+    public static class Report {
+        private static final String CSV_HEADER = "benchmark,scaling,configuration,threads,trials,median_ms,mean_ms,p95_ms,"
+                + "stddev_ms,ci95_low_ms,ci95_high_ms,min_ms,max_ms,speedup,efficiency,samples_ms";
+
+        public final String title;
+        public final ScalingAnalysis.Mode mode;
+        public final Stats sequential;
+        public final List<Stats> parallel;
+        public final int warmupRuns;
+        public final int trials;
+        private final long timestamp = System.currentTimeMillis();
+
+        public Report(String title, ScalingAnalysis.Mode mode, Stats sequential, List<Stats> parallel, BenchmarkRunner runner) {
+            this.title = title;
+            this.mode = mode;
+            this.sequential = sequential;
+            this.parallel = new ArrayList<>(parallel);
+            this.warmupRuns = runner.warmupRuns;
+            this.trials = runner.trials;
+        }
+
+        /**
+         * @return Speedup of a parallel configuration over the sequential baseline, based on medians
+         *         (the scaled speedup in a weak-scaling run).
+         */
+        public double speedup(Stats stats) {
+            double speedup = sequential.median() / stats.median();
+            return mode == ScalingAnalysis.Mode.WEAK ? speedup * stats.threads : speedup;
+        }
+
+        /**
+         * @return Speedup per core used, 1.0 for perfect scaling. Threads beyond the available processors
+         *         share cores, so an oversubscribed configuration is divided by the core count.
+         */
+        public double efficiency(Stats stats) {
+            return speedup(stats) / ScalingAnalysis.effectiveThreads(stats.threads);
+        }
+
+        public int[] threadCounts() {
+            return parallel.stream().mapToInt(stats -> stats.threads).toArray();
+        }
+
+        public double[] speedups() {
+            return parallel.stream().mapToDouble(this::speedup).toArray();
+        }
+
+        /**
+         * Writes the report as CSV (file name ending in .csv) or JSON (anything else).
+         */
+        public void export(File file) throws IOException {
+            if (file.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                writeCsv(file);
+            } else {
+                writeJson(file);
+            }
+        }
+
+        public void writeCsv(File file) throws IOException {
+            try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                out.println(CSV_HEADER);
+                writeCsvRows(out);
+            }
+        }
+
+        public void writeJson(File file) throws IOException {
+            try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                writeJsonObject(out, "");
+                out.println();
+            }
+        }
+
+        /**
+         * Writes several reports (e.g. one per execution backend) into one file: CSV rows under a single header
+         * (file name ending in .csv), or a JSON object whose "reports" array holds one report object each.
+         */
+        public static void exportAll(List<Report> reports, File file) throws IOException {
+            try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                if (file.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    out.println(CSV_HEADER);
+                    for (Report report : reports) {
+                        report.writeCsvRows(out);
+                    }
+                } else {
+                    out.println("{");
+                    out.println("  \"reports\": [");
+                    for (int i = 0; i < reports.size(); i++) {
+                        reports.get(i).writeJsonObject(out, "    ");
+                        out.println(i < reports.size() - 1 ? "," : "");
+                    }
+                    out.println("  ]");
+                    out.println("}");
+                }
+            }
+        }
+
+        private void writeCsvRows(PrintWriter out) {
+            List<Stats> rows = new ArrayList<>();
+            rows.add(sequential);
+            rows.addAll(parallel);
+            for (Stats stats : rows) {
+                StringBuilder samples = new StringBuilder();
+                for (double sample : stats.samples) {
+                    if (samples.length() > 0) samples.append(' ');
+                    samples.append(format(sample));
+                }
+                out.println(String.join(",", csv(title), mode.getDisplayName(), csv(stats.label),
+                        Integer.toString(stats.threads), Integer.toString(stats.count()), format(stats.median()),
+                        format(stats.mean()), format(stats.p95()), format(stats.stddev()),
+                        format(stats.mean() - stats.ci95()), format(stats.mean() + stats.ci95()),
+                        format(stats.min()), format(stats.max()), format(speedup(stats)), format(efficiency(stats)),
+                        samples.toString()));
+            }
+        }
+
+        // Writes the report as a JSON object with every line prefixed by indent, without a newline after the closing brace
+        private void writeJsonObject(PrintWriter out, String indent) {
+            out.println(indent + "{");
+            out.println(indent + "  \"benchmark\": " + json(title) + ",");
+            out.println(indent + "  \"scaling\": " + json(mode.getDisplayName()) + ",");
+            out.println(indent + "  \"timestamp\": " + timestamp + ",");
+            out.println(indent + "  \"machine\": {\"availableProcessors\": " + Runtime.getRuntime().availableProcessors()
+                    + ", \"maxHeapBytes\": " + Runtime.getRuntime().maxMemory()
+                    + ", \"os\": " + json(System.getProperty("os.name") + " " + System.getProperty("os.arch"))
+                    + ", \"java\": " + json(System.getProperty("java.vm.name") + " " + System.getProperty("java.version")) + "},");
+            out.println(indent + "  \"warmupRuns\": " + warmupRuns + ",");
+            out.println(indent + "  \"trials\": " + trials + ",");
+            out.println(indent + "  \"sequential\": " + json(sequential) + ",");
+            out.println(indent + "  \"parallel\": [");
+            for (int i = 0; i < parallel.size(); i++) {
+                Stats stats = parallel.get(i);
+                String row = json(stats);
+                row = row.substring(0, row.length() - 1) + ", \"speedup\": " + json(speedup(stats))
+                        + ", \"efficiency\": " + json(efficiency(stats)) + "}";
+                out.println(indent + "    " + row + (i < parallel.size() - 1 ? "," : ""));
+            }
+            out.println(indent + "  ],");
+            double serialFraction = mode == ScalingAnalysis.Mode.STRONG
+                    ? ScalingAnalysis.fitAmdahl(threadCounts(), speedups())
+                    : ScalingAnalysis.fitGustafson(threadCounts(), speedups());
+            out.println(indent + "  \"fit\": {\"model\": " + json(mode == ScalingAnalysis.Mode.STRONG ? "Amdahl" : "Gustafson")
+                    + ", \"serialFraction\": " + json(serialFraction) + "}");
+            out.print(indent + "}");
+        }
+
+        private static String json(Stats stats) {
+            StringBuilder samples = new StringBuilder();
+            for (double sample : stats.samples) {
+                if (samples.length() > 0) samples.append(", ");
+                samples.append(json(sample));
+            }
+            return "{\"configuration\": " + json(stats.label) + ", \"threads\": " + stats.threads
+                    + ", \"medianMs\": " + json(stats.median()) + ", \"meanMs\": " + json(stats.mean())
+                    + ", \"p95Ms\": " + json(stats.p95()) + ", \"stddevMs\": " + json(stats.stddev())
+                    + ", \"ci95Ms\": " + json(stats.ci95()) + ", \"minMs\": " + json(stats.min())
+                    + ", \"maxMs\": " + json(stats.max()) + ", \"samplesMs\": [" + samples + "]}";
+        }
+
+        private static String json(String value) {
+            return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        }
+
+        // JSON has no NaN or Infinity (e.g. the fit without a parallel run, a speedup over a zero median)
+        private static String json(double value) {
+            return Double.isFinite(value) ? format(value) : "null";
+        }
+
+        private static String csv(String value) {
+            return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+        }
+
+        private static String format(double ms) {
+            return String.format(Locale.ROOT, "%.3f", ms);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+// ExecutionBackend.java
+// Schedulers that run the same PixelKernel over the rows of an image, for comparing their overhead.
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.StreamSupport;
+
+import ParallelImageTasks.ParallelImageTasks.CompleterStats;
+import ParallelImageTasks.ParallelImageTasks.KernelRowTask;
+import ParallelImageTasks.ParallelImageTasks.PixelKernel;
+import ParallelImageTasks.ParallelImageTasks.RowCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.RowSpliterator;
+
+/**
+ * The ways the application can schedule a PixelKernel over the rows of an image. Every backend applies the same
+ * kernel to disjoint row ranges, so all of them produce identical pixels and only the scheduling overhead differs:
+ * <ul>
+ * <li>Fork/Join: recursive halving with invokeAll (KernelRowTask) on the cpu-N pool.</li>
+ * <li>CountedCompleter: left-spine forking without joins (RowCompleterTask) on the cpu-N pool.</li>
+ * <li>Parallel Streams: a parallel IntStream over a RowSpliterator, run inside the cpu-N pool so the stream uses
+ *     N workers instead of the common pool.</li>
+ * <li>Executor Stripes: one contiguous stripe of rows per thread on the fixed-N thread pool (static partitioning,
+ *     no work stealing).</li>
+ * <li>Virtual Threads: one contiguous stripe per virtual thread, created per call. Virtual threads exist from JDK 21
+ *     on and are looked up by reflection, so the backend is unavailable on older JVMs.</li>
+ * </ul>
+ */
+public enum ExecutionBackend {
+    FORK_JOIN("Fork/Join"),
+    COUNTED_COMPLETER("CountedCompleter"),
+    PARALLEL_STREAMS("Parallel Streams"),
+    EXECUTOR_STRIPES("Executor Stripes"),
+    VIRTUAL_THREADS("Virtual Threads");
+
+    private final String displayName;
+
+    ExecutionBackend(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return false if the running JVM cannot provide this backend (virtual threads before JDK 21, or on JDK 19/20
+     *         without --enable-preview).
+     */
+    public boolean isAvailable() {
+        return this != VIRTUAL_THREADS || VirtualThreads.NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Applies the kernel to all rows of the image.
+     *
+     * @param name Task name for the JFR leaf events, e.g. "Sepia".
+     * @param kernel The per-pixel operation.
+     * @param src Source ARGB pixels (width * height).
+     * @param dst Destination ARGB pixels (width * height).
+     * @param threads Parallelism: pool size, or number of stripes for the striped backends.
+     * @param threshold Rows per leaf task or stream band (ignored by the striped backends).
+     * @param stats Receives task and steal counts from the CountedCompleter backend; may be null.
+     * @throws UnsupportedOperationException If the backend is not available on this JVM.
+     */
+    public void run(String name, PixelKernel kernel, int[] src, int[] dst, int width, int height,
+                    int threads, int threshold, CompleterStats stats) {
+        ExecutionService service = ExecutionService.shared();
+        switch (this) {
+            case FORK_JOIN:
+                service.cpuPool(threads).invoke(new KernelRowTask(name, kernel, src, dst, width, height, 0, height, threshold));
+                break;
+            case COUNTED_COMPLETER:
+                service.cpuPool(threads).invoke(new RowCompleterTask(name, kernel, src, dst, width, height, 0, height,
+                        threshold, stats != null ? stats : new CompleterStats()));
+                break;
+            case PARALLEL_STREAMS:
+                // A parallel stream started from inside a Fork/Join pool runs on that pool's workers
+                service.cpuPool(threads).submit(() -> StreamSupport.intStream(new RowSpliterator(0, height, threshold), true)
+                        .forEach(y -> kernel.apply(src, dst, width, height, 0, y, width, y + 1))).join();
+                break;
+            case EXECUTOR_STRIPES:
+                runStripes(service.fixedPool(threads), kernel, src, dst, width, height, threads);
+                break;
+            default:
+                if (!isAvailable()) {
+                    throw new UnsupportedOperationException(displayName + " need JDK 21 or later, or --enable-preview on JDK 19/20 (running "
+                            + System.getProperty("java.version") + ")");
+                }
+                ExecutorService executor = VirtualThreads.newExecutor();
+                try {
+                    runStripes(executor, kernel, src, dst, width, height, threads);
+                } finally {
+                    executor.shutdown();
+                }
+                break;
+        }
+    }
+
+    // Splits the rows into equal contiguous stripes, one task each, and waits for all of them
+    private static void runStripes(ExecutorService executor, PixelKernel kernel, int[] src, int[] dst,
+                                   int width, int height, int stripes) {
+        stripes = Math.max(1, Math.min(stripes, height));
+        List<Future<?>> futures = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int startY = (int) ((long) height * i / stripes);
+            int endY = (int) ((long) height * (i + 1) / stripes);
+            futures.add(executor.submit(() -> kernel.apply(src, dst, width, height, 0, startY, width, endY)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Stripe failed: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for stripes", e);
+        }
+    }
+
+    /**
+     * Looks up a backend by the name shown in the backend combo box.
+     */
+    public static ExecutionBackend fromDisplayName(String displayName) {
+        for (ExecutionBackend backend : values()) {
+            if (backend.displayName.equals(displayName)) {
+                return backend;
+            }
+        }
+        throw new IllegalArgumentException("Unknown execution backend selected: " + displayName);
+    }
+
+    /**
+     * @return The display names of all backends, in declaration order.
+     */
+    public static String[] displayNames() {
+        ExecutionBackend[] backends = values();
+        String[] names = new String[backends.length];
+        for (int i = 0; i < backends.length; i++) {
+            names[i] = backends[i].displayName;
+        }
+        return names;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor(), resolved at run time so the code compiles and runs on JDK 17.
+    // The method is called once to check that it works: on JDK 19/20 it exists but fails unless --enable-preview is set.
+    private static final class VirtualThreads {
+        static final Method NEW_EXECUTOR = find();
+
+        private static Method find() {
+            try {
+                Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                ((ExecutorService) method.invoke(null)).shutdown();
+                return method;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        static ExecutorService newExecutor() {
+            try {
+                return (ExecutorService) NEW_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // On JDK 19/20 the method exists but fails unless --enable-preview is set
+                throw new UnsupportedOperationException("Virtual threads are not enabled: " + e.getCause(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,448 @@
+// ExecutionPlanner.java
+// Chooses sequential, vectorized, Fork/Join or tiled execution per request from a per-machine cost model.
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import ParallelImageTasks.ParallelImageTasks.ConvolutionKernel;
+import ParallelImageTasks.ParallelImageTasks.DirtyBlockTask;
+import ParallelImageTasks.ParallelImageTasks.KernelRowTask;
+import ParallelImageTasks.ParallelImageTasks.PixelKernel;
+import ParallelImageTasks.ParallelImageTasks.TaskProgress;
+
+/**
+ * Picks the cheapest way to run an effect on an image of a given size. Parallel execution pays a fixed price for
+ * handing the work to the pool and forking the tasks, which a 100x100 avatar never earns back but a 50 MP photo
+ * does, so no single path is right for a mixed workload. Every strategy is estimated as
+ * <pre>
+ *     time = overhead + pixels * cost per pixel / speedup
+ * </pre>
+ * where the cost per pixel depends on the effect (for convolutions a base cost plus a cost per kernel tap, so it
+ * grows with the kernel size) and the strategy, and overhead and speedup apply to the parallel strategies only.
+ * The coefficients form a {@link CalibrationProfile}, measured once per machine and saved to
+ * ~/.imageprocessing/planner.properties (or -Dplanner.profile=path). The profile is measured again when the core
+ * count, CPU parallelism, architecture or Java version no longer match, or with -Dplanner.recalibrate=true.
+ */
+public class ExecutionPlanner {
+
+    /**
+     * The execution strategies the planner chooses from.
+     */
+    public enum Strategy {
+        /** The scalar kernel over the whole image on the calling thread. */
+        SEQUENTIAL("Sequential"),
+        /**
+         * The SIMD-friendly integer kernel (see ImageEffect.vectorKernel), on the calling thread or in row bands on the
+         * CPU pool. Its output can differ from the scalar kernel's by one level, so it is only planned on request.
+         */
+        VECTORIZED("Vectorized"),
+        /** The scalar kernel in row bands on the CPU pool (KernelRowTask). */
+        FORK_JOIN("Fork/Join"),
+        /** The scalar kernel in square tiles on the CPU pool, which keeps a convolution's input rows in cache on wide images. */
+        TILED("Tiled");
+
+        private final String displayName;
+
+        Strategy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * The chosen strategy with its parameters and the estimates of all strategies that were considered.
+     */
+    public static final class Plan {
+        public final Strategy strategy;
+        public final int threads;
+        /** Rows per leaf task (Fork/Join and parallel Vectorized) or tiles per leaf task (Tiled). */
+        public final int threshold;
+        public final int tileSize;
+        public final double estimatedMs;
+        private final Map<Strategy, Double> estimates;
+
+        Plan(Strategy strategy, int threads, int threshold, int tileSize, Map<Strategy, Double> estimates) {
+            this.strategy = strategy;
+            this.threads = threads;
+            this.threshold = threshold;
+            this.tileSize = tileSize;
+            this.estimatedMs = estimates.get(strategy);
+            this.estimates = estimates;
+        }
+
+        /**
+         * @return The estimated time of every strategy that applies to the effect, in ms.
+         */
+        public Map<Strategy, Double> getEstimates() {
+            return estimates;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%s on %d thread%s, estimated %.2f ms (",
+                    strategy.getDisplayName(), threads, threads == 1 ? "" : "s", estimatedMs));
+            String separator = "";
+            for (Map.Entry<Strategy, Double> estimate : estimates.entrySet()) {
+                text.append(separator).append(String.format(Locale.ROOT, "%s %.2f ms",
+                        estimate.getKey().getDisplayName(), estimate.getValue()));
+                separator = ", ";
+            }
+            return text.append(")").toString();
+        }
+    }
+
+    /**
+     * The measured coefficients of the cost model. All costs are in nanoseconds.
+     */
+    public static final class CalibrationProfile {
+        private static final int IMAGE_SIZE = 512;
+        // Enough untimed runs for the JIT to have compiled the kernel loops with C2 before they are timed
+        private static final int WARMUP_RUNS = 10;
+        private static final long WARMUP_NANOS = 200_000_000L;
+        private static final int RUNS = 7;
+
+        private final Properties values;
+
+        private CalibrationProfile(Properties values) {
+            this.values = values;
+        }
+
+        private double get(String key) {
+            return Double.parseDouble(values.getProperty(key));
+        }
+
+        /**
+         * @return The parallelism the parallel coefficients were measured with.
+         */
+        public int getThreads() {
+            return (int) get("parallel.threads");
+        }
+
+        /**
+         * Times the kernels on synthetic images on this machine (a few seconds).
+         *
+         * @param threads The parallelism of the CPU pool the plans will run on.
+         */
+        public static CalibrationProfile measure(int threads) {
+            Random random = new Random(42);
+            int[] src = new int[IMAGE_SIZE * IMAGE_SIZE];
+            for (int i = 0; i < src.length; i++) {
+                src[i] = random.nextInt();
+            }
+            int[] dst = new int[src.length];
+            double pixels = src.length;
+            Properties values = identity(threads);
+
+            for (ImageEffect effect : new ImageEffect[] {ImageEffect.GRAYSCALE, ImageEffect.SEPIA}) {
+                String key = effect.name().toLowerCase(Locale.ROOT);
+                values.setProperty(key + ".ns", format(time(() -> runSequential(effect.pixelKernel(), src, dst, IMAGE_SIZE, IMAGE_SIZE)) / pixels));
+                PixelKernel vectorKernel = effect.vectorKernel();
+                if (vectorKernel != null) {
+                    values.setProperty(key + ".vector.ns", format(time(() -> runSequential(vectorKernel, src, dst, IMAGE_SIZE, IMAGE_SIZE)) / pixels));
+                }
+            }
+
+            // Convolutions at two kernel sizes give the cost per tap and the per-pixel cost independent of the size;
+            // they are an order of magnitude slower, so a quarter of the image is enough
+            int size = IMAGE_SIZE / 2;
+            double taps3 = time(() -> runSequential(new ConvolutionKernel(boxKernel(3)), src, dst, size, size)) / (size * size);
+            double taps5 = time(() -> runSequential(new ConvolutionKernel(boxKernel(5)), src, dst, size, size)) / (size * size);
+            double perTap = Math.max(0, (taps5 - taps3) / (25 - 9));
+            values.setProperty("convolution.tap.ns", format(perTap));
+            values.setProperty("convolution.base.ns", format(Math.max(0, taps3 - 9 * perTap)));
+
+            // Fork/Join overhead: a job of one-pixel rows split into as many leaves as a real plan creates
+            java.util.concurrent.ForkJoinPool pool = ExecutionService.shared().cpuPool(threads);
+            int leaves = threads * LEAVES_PER_THREAD;
+            PixelKernel sepia = ImageEffect.SEPIA.pixelKernel();
+            double overhead = time(() -> pool.invoke(new KernelRowTask("Calibration", sepia, src, dst, 1, leaves, 0, leaves, 1)));
+            values.setProperty("forkjoin.overhead.ns", format(overhead));
+
+            // Speedup of the pool on a larger image, without the fixed overhead
+            int height = IMAGE_SIZE * 4;
+            int[] largeSrc = new int[IMAGE_SIZE * height];
+            for (int i = 0; i < largeSrc.length; i++) {
+                largeSrc[i] = random.nextInt();
+            }
+            int[] largeDst = new int[largeSrc.length];
+            double sequential = time(() -> runSequential(sepia, largeSrc, largeDst, IMAGE_SIZE, height));
+            double parallel = time(() -> pool.invoke(new KernelRowTask("Calibration", sepia, largeSrc, largeDst, IMAGE_SIZE, height,
+                    0, height, rowsPerLeaf(height, threads))));
+            double speedup = sequential / Math.max(1, parallel - overhead);
+            values.setProperty("parallel.speedup", format(Math.max(0.25, Math.min(threads, speedup))));
+
+            // Tiles against rows for a convolution on a wide image, both on the calling thread
+            int wideWidth = IMAGE_SIZE * 8;
+            int wideHeight = TILE_SIZE / 2;
+            PixelKernel blur = new ConvolutionKernel(boxKernel(3));
+            double rows = time(() -> runSequential(blur, largeSrc, largeDst, wideWidth, wideHeight));
+            double tiles = time(() -> runTiles(blur, largeSrc, largeDst, wideWidth, wideHeight, TILE_SIZE));
+            values.setProperty("tiled.ratio", format(tiles / rows));
+
+            values.setProperty("measuredAt", Long.toString(System.currentTimeMillis()));
+            return new CalibrationProfile(values);
+        }
+
+        /**
+         * Reads a saved profile.
+         *
+         * @return The profile, or null if the file does not exist or was measured on a different machine or JVM.
+         */
+        public static CalibrationProfile load(Path file, int threads) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            Properties values = new Properties();
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                values.load(in);
+            }
+            Properties expected = identity(threads);
+            for (String key : expected.stringPropertyNames()) {
+                if (!expected.getProperty(key).equals(values.getProperty(key))) {
+                    return null;
+                }
+            }
+            for (String key : new String[] {"grayscale.ns", "sepia.ns", "convolution.tap.ns", "convolution.base.ns",
+                    "forkjoin.overhead.ns", "parallel.speedup", "tiled.ratio"}) {
+                if (values.getProperty(key) == null) {
+                    return null;
+                }
+                Double.parseDouble(values.getProperty(key)); // a damaged value throws here rather than when planning
+            }
+            return new CalibrationProfile(values);
+        }
+
+        public void save(Path file) throws IOException {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                values.store(out, "ExecutionPlanner calibration (costs in ns)");
+            }
+        }
+
+        // The values a profile must match to be valid on this machine
+        private static Properties identity(int threads) {
+            Properties values = new Properties();
+            values.setProperty("machine.cores", Integer.toString(Runtime.getRuntime().availableProcessors()));
+            values.setProperty("machine.arch", System.getProperty("os.arch"));
+            values.setProperty("java.version", System.getProperty("java.version"));
+            values.setProperty("parallel.threads", Integer.toString(threads));
+            return values;
+        }
+
+        // Median time of RUNS runs after at least WARMUP_RUNS untimed ones and WARMUP_NANOS of untimed running, in ns
+        private static double time(Runnable run) {
+            long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+            for (int i = 0; i < WARMUP_RUNS || System.nanoTime() < warmupEnd; i++) {
+                run.run();
+            }
+            long[] samples = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                run.run();
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            return samples[RUNS / 2];
+        }
+
+        private static double[][] boxKernel(int size) {
+            double[][] kernel = new double[size][size];
+            for (double[] row : kernel) {
+                Arrays.fill(row, 1.0 / (size * size));
+            }
+            return kernel;
+        }
+
+        private static String format(double value) {
+            return String.format(Locale.ROOT, "%.4f", value);
+        }
+    }
+
+    // Leaves per thread of the parallel plans, so that uneven leaves can be balanced by stealing
+    private static final int LEAVES_PER_THREAD = 8;
+    private static final int TILE_SIZE = 64;
+
+    private static ExecutionPlanner shared;
+
+    private final CalibrationProfile profile;
+
+    public ExecutionPlanner(CalibrationProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Returns the planner of this machine, loading the saved calibration profile or measuring and saving a new one
+     * on first use. Measuring takes a few seconds, so the application calls this once in the background at startup.
+     */
+    public static synchronized ExecutionPlanner shared() {
+        if (shared == null) {
+            int threads = ExecutionService.shared().getCpuParallelism();
+            Path file = Paths.get(System.getProperty("planner.profile",
+                    Paths.get(System.getProperty("user.home"), ".imageprocessing", "planner.properties").toString()));
+            CalibrationProfile profile = null;
+            if (!Boolean.getBoolean("planner.recalibrate")) {
+                try {
+                    profile = CalibrationProfile.load(file, threads);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Error: Could not read planner calibration " + file + ": " + e.getMessage());
+                }
+            }
+            if (profile == null) {
+                System.out.println("Calibrating execution planner for " + threads + " threads...");
+                profile = CalibrationProfile.measure(threads);
+                try {
+                    profile.save(file);
+                    System.out.println("Planner calibration saved to " + file);
+                } catch (IOException e) {
+                    System.err.println("Error: Could not save planner calibration " + file + ": " + e.getMessage());
+                }
+            }
+            shared = new ExecutionPlanner(profile);
+        }
+        return shared;
+    }
+
+    public CalibrationProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Estimates every strategy that gives exactly the scalar kernel's output and returns the cheapest.
+     *
+     * @param effect The effect to run; its kernel size enters the cost of convolutions.
+     * @param width Image width.
+     * @param height Image height.
+     * @return The plan to pass to ImageProcessor.applyEffect.
+     */
+    public Plan plan(ImageEffect effect, int width, int height) {
+        return plan(effect, width, height, false);
+    }
+
+    /**
+     * Estimates every strategy that applies to the effect and returns the cheapest.
+     *
+     * @param effect The effect to run; its kernel size enters the cost of convolutions.
+     * @param width Image width.
+     * @param height Image height.
+     * @param approximate Whether the Vectorized strategy may be chosen, whose output can be one level off the
+     *                    scalar kernel's for some pixels.
+     * @return The plan to pass to ImageProcessor.applyEffect.
+     */
+    public Plan plan(ImageEffect effect, int width, int height, boolean approximate) {
+        double pixels = (double) width * height;
+        int threads = profile.getThreads();
+        double overhead = profile.get("forkjoin.overhead.ns");
+        double speedup = profile.get("parallel.speedup");
+        double perPixel = scalarCost(effect);
+
+        Map<Strategy, Double> estimates = new EnumMap<>(Strategy.class);
+        estimates.put(Strategy.SEQUENTIAL, pixels * perPixel);
+        if (approximate && effect.vectorKernel() != null) {
+            double vectorPixel = profile.get(effect.name().toLowerCase(Locale.ROOT) + ".vector.ns");
+            estimates.put(Strategy.VECTORIZED, Math.min(pixels * vectorPixel, overhead + pixels * vectorPixel / speedup));
+        }
+        if (threads > 1) {
+            estimates.put(Strategy.FORK_JOIN, overhead + pixels * perPixel / speedup);
+            if (effect.isConvolution()) {
+                estimates.put(Strategy.TILED, overhead + pixels * perPixel * profile.get("tiled.ratio") / speedup);
+            }
+        }
+        estimates.replaceAll((strategy, ns) -> ns / 1_000_000.0);
+
+        Strategy best = Strategy.SEQUENTIAL;
+        for (Map.Entry<Strategy, Double> estimate : estimates.entrySet()) {
+            if (estimate.getValue() < estimates.get(best)) {
+                best = estimate.getKey();
+            }
+        }
+        switch (best) {
+            case SEQUENTIAL:
+                return new Plan(best, 1, height, 0, estimates);
+            case VECTORIZED:
+                // Parallel only if the pool's overhead pays off for the vectorized kernel too
+                double vectorPixel = profile.get(effect.name().toLowerCase(Locale.ROOT) + ".vector.ns");
+                boolean parallel = threads > 1 && overhead + pixels * vectorPixel / speedup < pixels * vectorPixel;
+                return new Plan(best, parallel ? threads : 1, parallel ? rowsPerLeaf(height, threads) : height, 0, estimates);
+            case TILED:
+                int tiles = ((width + TILE_SIZE - 1) / TILE_SIZE) * ((height + TILE_SIZE - 1) / TILE_SIZE);
+                return new Plan(best, threads, Math.max(1, tiles / (threads * LEAVES_PER_THREAD)), TILE_SIZE, estimates);
+            default:
+                return new Plan(best, threads, rowsPerLeaf(height, threads), 0, estimates);
+        }
+    }
+
+    /**
+     * Runs a plan: writes the effect of src into dst (both width * height ARGB pixels).
+     *
+     * @param progress Makes the run cancellable and receives its finished bands; may be null.
+     */
+    public static void execute(Plan plan, ImageEffect effect, int[] src, int[] dst, int width, int height, TaskProgress progress) {
+        String name = effect.getDisplayName();
+        PixelKernel kernel = plan.strategy == Strategy.VECTORIZED ? effect.vectorKernel() : effect.pixelKernel();
+        if (progress != null) {
+            kernel = progress.track(kernel);
+        }
+        switch (plan.strategy) {
+            case SEQUENTIAL:
+                runSequential(kernel, src, dst, width, height);
+                break;
+            case VECTORIZED:
+            case FORK_JOIN:
+                if (plan.threads == 1) {
+                    runSequential(kernel, src, dst, width, height);
+                } else {
+                    ExecutionService.shared().cpuPool(plan.threads).invoke(new KernelRowTask(name, kernel,
+                            src, dst, width, height, 0, height, plan.threshold));
+                }
+                break;
+            default:
+                int tiles = ((width + plan.tileSize - 1) / plan.tileSize) * ((height + plan.tileSize - 1) / plan.tileSize);
+                int[] blocks = new int[tiles];
+                Arrays.setAll(blocks, i -> i);
+                ExecutionService.shared().cpuPool(plan.threads).invoke(new DirtyBlockTask("Tiles", kernel,
+                        src, dst, width, height, plan.tileSize, blocks, 0, tiles, plan.threshold));
+                break;
+        }
+    }
+
+    // Cost per pixel of the scalar kernel of an effect, in ns
+    private double scalarCost(ImageEffect effect) {
+        if (!effect.isConvolution()) {
+            return profile.get(effect.name().toLowerCase(Locale.ROOT) + ".ns");
+        }
+        double[][] kernel = effect.getKernel();
+        return profile.get("convolution.base.ns") + profile.get("convolution.tap.ns") * kernel.length * kernel[0].length;
+    }
+
+    private static int rowsPerLeaf(int height, int threads) {
+        return Math.max(1, height / (threads * LEAVES_PER_THREAD));
+    }
+
+    private static void runSequential(PixelKernel kernel, int[] src, int[] dst, int width, int height) {
+        kernel.apply(src, dst, width, height, 0, 0, width, height);
+    }
+
+    private static void runTiles(PixelKernel kernel, int[] src, int[] dst, int width, int height, int tileSize) {
+        for (int y = 0; y < height; y += tileSize) {
+            for (int x = 0; x < width; x += tileSize) {
+                kernel.apply(src, dst, width, height, x, y, Math.min(width, x + tileSize), Math.min(height, y + tileSize));
+            }
+        }
+    }
+}
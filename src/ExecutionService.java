@@ -0,0 +1,207 @@
+// ExecutionService.java
+// Long-lived, named thread pools for CPU-bound and I/O-bound work, shared by all processing entry points.
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Owns the thread pools of the application, so requests reuse warm threads instead of creating a pool per call.
+ * CPU-bound work (effects, frame conversion) runs on Fork/Join pools named "cpu-N" after their parallelism:
+ * {@link #cpuPool()} is the default pool and {@link #cpuPool(int)} the pool of a given parallelism, e.g. for a
+ * thread-count sweep. Each pool is created once and kept; idle workers exit after {@value #KEEP_ALIVE_SECONDS}
+ * seconds, so an unused pool costs no threads. Blocking work (decoding, encoding, indexing) runs on the "io" pool.
+ * {@link #fixedPool(int)} provides plain fixed-size thread pools ("fixed-N") for code that partitions work statically.
+ * The default sizes can be set with -Dexecution.cpuThreads=N and -Dexecution.ioThreads=N and changed at run time
+ * with {@link #resizeCpu(int)} and {@link #resizeIo(int)}. All pools are registered with ProcessingMetrics.
+ */
+public class ExecutionService {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    // Extra workers a Fork/Join pool may create to compensate for blocked joins (the ForkJoinPool default)
+    private static final int MAX_SPARE_THREADS = 256;
+
+    private static final ExecutionService SHARED = new ExecutionService(
+            Integer.getInteger("execution.cpuThreads", Runtime.getRuntime().availableProcessors()),
+            Integer.getInteger("execution.ioThreads", Math.max(4, Runtime.getRuntime().availableProcessors())));
+
+    private final Map<Integer, ForkJoinPool> cpuPools = new ConcurrentHashMap<>();
+    private final Map<Integer, ThreadPoolExecutor> fixedPools = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor ioPool;
+    private volatile int cpuParallelism;
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param cpuThreads Parallelism of the default CPU pool.
+     * @param ioThreads Threads of the I/O pool.
+     */
+    public ExecutionService(int cpuThreads, int ioThreads) {
+        this.cpuParallelism = Math.max(1, cpuThreads);
+        AtomicInteger ioThreadNumber = new AtomicInteger();
+        int io = Math.max(1, ioThreads);
+        ioPool = new ThreadPoolExecutor(io, io, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "io-worker-" + ioThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ioPool.allowCoreThreadTimeOut(true);
+        ProcessingMetrics.shared().watchExecutor("io", ioPool);
+    }
+
+    /**
+     * Returns the pools used by the application.
+     */
+    public static ExecutionService shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return The default pool for CPU-bound work.
+     */
+    public ForkJoinPool cpuPool() {
+        return cpuPool(cpuParallelism);
+    }
+
+    /**
+     * Returns the CPU pool with the given parallelism, creating it on first use.
+     *
+     * @throws IllegalStateException If the service has been shut down.
+     */
+    public ForkJoinPool cpuPool(int parallelism) {
+        if (shutdown) {
+            throw new IllegalStateException("Execution service has been shut down");
+        }
+        return cpuPools.computeIfAbsent(Math.max(1, parallelism), this::createCpuPool);
+    }
+
+    /**
+     * Returns the fixed-size thread pool with the given number of threads, creating it on first use.
+     *
+     * @throws IllegalStateException If the service has been shut down.
+     */
+    public ExecutorService fixedPool(int threads) {
+        if (shutdown) {
+            throw new IllegalStateException("Execution service has been shut down");
+        }
+        return fixedPools.computeIfAbsent(Math.max(1, threads), this::createFixedPool);
+    }
+
+    /**
+     * @return The pool for blocking I/O work.
+     */
+    public ExecutorService ioPool() {
+        if (shutdown) {
+            throw new IllegalStateException("Execution service has been shut down");
+        }
+        return ioPool;
+    }
+
+    /**
+     * Returns the I/O pool after growing it to at least the given number of threads, for callers that need that
+     * many blocking tasks to run at the same time.
+     */
+    public ExecutorService ioPool(int minThreads) {
+        if (ioPool.getMaximumPoolSize() < minThreads) {
+            resizeIo(minThreads);
+        }
+        return ioPool();
+    }
+
+    public int getCpuParallelism() {
+        return cpuParallelism;
+    }
+
+    public int getIoThreads() {
+        return ioPool.getMaximumPoolSize();
+    }
+
+    /**
+     * Changes the parallelism of the default CPU pool. The parallelism of a ForkJoinPool is fixed, so later calls
+     * of {@link #cpuPool()} return the pool of the new size; tasks already running on the previous pool finish
+     * there, and its workers exit once it is idle.
+     */
+    public void resizeCpu(int parallelism) {
+        cpuParallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Changes the number of I/O threads. Queued tasks are kept; surplus threads exit when they become idle.
+     */
+    public synchronized void resizeIo(int threads) {
+        threads = Math.max(1, threads);
+        // The core size must never exceed the maximum size, so the order depends on the direction
+        if (threads > ioPool.getMaximumPoolSize()) {
+            ioPool.setMaximumPoolSize(threads);
+            ioPool.setCorePoolSize(threads);
+        } else {
+            ioPool.setCorePoolSize(threads);
+            ioPool.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * Shuts all pools down: no new tasks are accepted, running and queued tasks may finish within the timeout,
+     * after which the remaining ones are interrupted.
+     *
+     * @return true if all pools terminated within the timeout.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        shutdown = true;
+        List<ExecutorService> pools = new ArrayList<>(cpuPools.values());
+        pools.addAll(fixedPools.values());
+        pools.add(ioPool);
+        for (ExecutorService pool : pools) {
+            pool.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        for (ExecutorService pool : pools) {
+            try {
+                if (!pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    pool.shutdownNow();
+                    terminated = false;
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+                terminated = false;
+            }
+        }
+        return terminated;
+    }
+
+    private ThreadPoolExecutor createFixedPool(int threads) {
+        String name = "fixed-" + threads;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        ProcessingMetrics.shared().watchExecutor(name, pool);
+        return pool;
+    }
+
+    private ForkJoinPool createCpuPool(int parallelism) {
+        String name = "cpu-" + parallelism;
+        ForkJoinPool pool = new ForkJoinPool(parallelism,
+                p -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    thread.setName(name + "-worker-" + thread.getPoolIndex());
+                    return thread;
+                },
+                null, false, 0, parallelism + MAX_SPARE_THREADS, 1, null, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        ProcessingMetrics.shared().watchPool(name, pool);
+        return pool;
+    }
+}
@@ -0,0 +1,359 @@
+// FrameCache.java
+// Disk-backed, memory-mapped store of decoded video frames, so repeated runs on the same video skip decoding.
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Cache of decoded frames on disk. The first run on a video decodes it as usual and writes every frame
+ * (packed BGR) to an entry file; later runs read the frames back through a MappedFileInput instead of decoding.
+ * An entry records the size and modification time of its source and is ignored and replaced once the video
+ * changes. Entries are evicted least recently used first (by the entry file's modification time, which is
+ * refreshed on every hit) when the store grows beyond its size limit.
+ */
+public class FrameCache {
+
+    private static final int MAGIC = 0x46524D43; // "FRMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final String SUFFIX = ".frames";
+
+    private static final FrameCache SHARED = new FrameCache(
+            new File(System.getProperty("java.io.tmpdir"), "parallel-image-frame-cache"),
+            Long.getLong("frameCache.maxBytes", 4L * 1024 * 1024 * 1024));
+
+    private final File directory;
+    private final long maxBytes;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * @param directory Where the entry files are kept (created if necessary).
+     * @param maxBytes Total size of all entries above which the least recently used ones are deleted.
+     */
+    public FrameCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the store used by the video processor. The size limit can be set with -DframeCache.maxBytes.
+     */
+    public static FrameCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Opens the frames of a video: from the store if it holds a valid entry, otherwise by decoding
+     * the video with VideoIO while writing the frames to a new entry. The entry is only kept if the
+     * video is read to the end and fits into the store.
+     *
+     * @return A reader, or null (after printing the reason) if the video cannot be opened.
+     */
+    public FrameReader openReader(File source) {
+        File entry = entryFile(source);
+        if (entry.isFile()) {
+            try {
+                FrameReader cached = new EntryReader(entry, source);
+                synchronized (this) {
+                    hits++;
+                }
+                // Mark as recently used for LRU eviction
+                entry.setLastModified(System.currentTimeMillis());
+                System.out.println("Frame cache hit for " + source.getName());
+                return cached;
+            } catch (IOException e) {
+                System.out.println("Frame cache entry for " + source.getName() + " not usable: " + e.getMessage());
+            }
+        }
+        synchronized (this) {
+            misses++;
+        }
+
+        FrameReader reader = VideoIO.openReader(source);
+        if (reader == null) return null;
+        long frameBytes = (long) reader.getWidth() * reader.getHeight() * 3;
+        if (frameBytes > maxBytes || !directory.isDirectory() && !directory.mkdirs()) {
+            return reader;
+        }
+        try {
+            return new CachingReader(reader, source, entry);
+        } catch (IOException e) {
+            System.err.println("Frame cache disabled for " + source.getName() + ": " + e.getMessage());
+            return reader;
+        }
+    }
+
+    /**
+     * Makes sure the store holds the frames of a video, decoding it once if necessary, so that
+     * the runs timed afterwards all read from the store.
+     *
+     * @return false if the video could not be read.
+     */
+    public boolean ensureCached(File source) {
+        FrameReader reader = openReader(source);
+        if (reader == null) return false;
+        try {
+            if (!(reader instanceof EntryReader)) {
+                byte[] bgr = new byte[reader.getWidth() * reader.getHeight() * 3];
+                while (reader.read(bgr)) {
+                    // Decoding writes the frames to the store
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error decoding " + source.getName() + ": " + e.getMessage());
+            return false;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Deletes least recently used entries until the store is within its size limit.
+     */
+    public synchronized void evict() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (entries == null) return;
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < entries.length && total > maxBytes; i++) {
+            long size = entries[i].length();
+            if (entries[i].delete()) {
+                total -= size;
+                evictions++;
+                System.out.println("Frame cache evicted " + entries[i].getName());
+            }
+        }
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public synchronized void clear() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (entries == null) return;
+        for (File entry : entries) {
+            entry.delete();
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return Total size of the entry files currently in the store.
+     */
+    public long getSizeBytes() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        long total = 0;
+        if (entries != null) {
+            for (File entry : entries) {
+                total += entry.length();
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Frame cache %s: %d hits, %d misses, %d evictions, limit %d MB",
+                directory.getAbsolutePath(), hits, misses, evictions, maxBytes / (1024 * 1024));
+    }
+
+    // Entry file of a source: hash of its absolute path, so different files with the same name do not collide
+    private File entryFile(File source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(source.getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 10; i++) {
+                sb.append(String.format("%02x", hash[i]));
+            }
+            return new File(directory, sb + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Reads the frames of a complete entry through a memory-mapped window
+    private static final class EntryReader implements FrameReader {
+        private final MappedFileInput input;
+        private final int width;
+        private final int height;
+        private final double fps;
+        private final int frameCount;
+        private int framesRead = 0;
+
+        EntryReader(File entry, File source) throws IOException {
+            input = new MappedFileInput(entry);
+            try {
+                byte[] header = new byte[HEADER_BYTES];
+                if (!input.read(header, 0, HEADER_BYTES)) {
+                    throw new IOException("truncated header");
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(header);
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                    throw new IOException("unknown format");
+                }
+                if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified()) {
+                    throw new IOException("source video changed");
+                }
+                width = buffer.getInt();
+                height = buffer.getInt();
+                fps = buffer.getDouble();
+                frameCount = buffer.getInt();
+                if (input.remaining() != (long) frameCount * width * height * 3) {
+                    throw new IOException("size does not match " + frameCount + " frames");
+                }
+            } catch (IOException e) {
+                input.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public double getFps() {
+            return fps;
+        }
+
+        @Override
+        public boolean read(byte[] bgr) throws IOException {
+            if (framesRead == frameCount) return false;
+            framesRead++;
+            return input.read(bgr, 0, width * height * 3);
+        }
+
+        @Override
+        public void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                System.err.println("Error closing frame cache entry: " + e.getMessage());
+            }
+        }
+    }
+
+    // Decodes the source and appends every frame to a temporary file that becomes the entry once complete
+    private final class CachingReader implements FrameReader {
+        private final FrameReader source;
+        private final File sourceFile;
+        private final File entry;
+        private final File temp;
+        private final FileChannel channel;
+        private final long sourceSize;
+        private final long sourceModified;
+        private int frameCount = 0;
+        private boolean complete = false;
+        private boolean failed = false;
+
+        CachingReader(FrameReader source, File sourceFile, File entry) throws IOException {
+            this.source = source;
+            this.sourceFile = sourceFile;
+            this.entry = entry;
+            this.sourceSize = sourceFile.length();
+            this.sourceModified = sourceFile.lastModified();
+            temp = File.createTempFile("entry", ".tmp", directory);
+            channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+        }
+
+        @Override
+        public int getWidth() {
+            return source.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return source.getHeight();
+        }
+
+        @Override
+        public double getFps() {
+            return source.getFps();
+        }
+
+        @Override
+        public boolean read(byte[] bgr) throws IOException {
+            if (!source.read(bgr)) {
+                complete = true;
+                return false;
+            }
+            if (!failed) {
+                // Give up on caching (but keep decoding) if the video is larger than the whole store
+                int frameBytes = getWidth() * getHeight() * 3;
+                if (channel.position() + frameBytes > maxBytes) {
+                    failed = true;
+                } else {
+                    ByteBuffer buffer = ByteBuffer.wrap(bgr, 0, frameBytes);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    frameCount++;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            source.close();
+            try {
+                if (complete && !failed) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                    header.putInt(MAGIC).putInt(VERSION).putLong(sourceSize).putLong(sourceModified)
+                            .putInt(getWidth()).putInt(getHeight()).putDouble(getFps()).putInt(frameCount);
+                    header.clear();
+                    while (header.hasRemaining()) {
+                        channel.write(header, header.position());
+                    }
+                    channel.close();
+                    Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    System.out.println("Frame cache stored " + frameCount + " frames of " + sourceFile.getName());
+                    evict();
+                } else {
+                    // Not read to the end (error or early stop) or too large: the partial entry is useless
+                    channel.close();
+                    Files.deleteIfExists(temp.toPath());
+                }
+            } catch (IOException e) {
+                System.err.println("Error storing frames of " + sourceFile.getName() + " in the frame cache: " + e.getMessage());
+                temp.delete();
+            }
+        }
+    }
+}
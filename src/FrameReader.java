@@ -0,0 +1,29 @@
+// FrameReader.java
+// Source of decoded video frames as packed BGR bytes, independent of the container and codec.
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sequential reader of video frames. Implementations: OpenCvFrameReader (any format OpenCV can decode),
+ * Y4mFrameReader and RawFrameReader (pure Java, no native library). Use VideoIO.openReader to pick one by file name.
+ */
+public interface FrameReader extends Closeable {
+
+    int getWidth();
+
+    int getHeight();
+
+    double getFps();
+
+    /**
+     * Reads the next frame.
+     *
+     * @param bgr Receives the frame as packed 8-bit BGR (width * height * 3 bytes).
+     * @return false at the end of the video.
+     */
+    boolean read(byte[] bgr) throws IOException;
+
+    @Override
+    void close();
+}
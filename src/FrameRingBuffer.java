@@ -0,0 +1,63 @@
+// FrameRingBuffer.java
+// Fixed-capacity ring of recycled frame buffers for operators that look at neighbouring frames.
+
+/**
+ * Ring buffer of decoded frames. Frame k is stored in slot k % capacity, so each frame is decoded once
+ * into a recycled byte[] and stays readable by every sliding window that needs it until frame
+ * k + capacity is decoded into the same slot.
+ */
+public class FrameRingBuffer {
+
+    private final byte[][] slots;
+    private final long[] frameInSlot; // Frame index held by each slot, -1 if empty
+    private long framesAdded = 0;
+
+    /**
+     * @param capacity Number of frames kept at the same time.
+     * @param frameBytes Size of one frame in bytes (e.g. width * height * 3 for BGR).
+     */
+    public FrameRingBuffer(int capacity, int frameBytes) {
+        slots = new byte[capacity][frameBytes];
+        frameInSlot = new long[capacity];
+        java.util.Arrays.fill(frameInSlot, -1);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return Number of frames added so far; the next frame gets this index.
+     */
+    public long framesAdded() {
+        return framesAdded;
+    }
+
+    /**
+     * Returns the buffer the next frame should be decoded into. This recycles the slot of the frame
+     * added capacity frames ago, which must no longer be in use. Call {@link #commit()} once the frame is filled.
+     */
+    public byte[] nextWriteBuffer() {
+        return slots[(int) (framesAdded % slots.length)];
+    }
+
+    /**
+     * Marks the buffer returned by {@link #nextWriteBuffer()} as holding frame {@link #framesAdded()}.
+     */
+    public void commit() {
+        frameInSlot[(int) (framesAdded % slots.length)] = framesAdded;
+        framesAdded++;
+    }
+
+    /**
+     * @param frameIndex Index of a frame that is still held by the ring.
+     * @return The frame's buffer (shared, must not be modified).
+     */
+    public byte[] get(long frameIndex) {
+        int slot = (int) (frameIndex % slots.length);
+        if (frameIndex < 0 || frameInSlot[slot] != frameIndex) {
+            throw new IllegalStateException("Frame " + frameIndex + " is not in the ring buffer (holds " + frameInSlot[slot] + ")");
+        }
+        return slots[slot];
+    }
+}
@@ -0,0 +1,140 @@
+// FrameSkipper.java
+// Detects duplicate and near-static video frames with a cheap block fingerprint and keeps skip statistics.
+
+/**
+ * Decides whether a decoded frame can reuse the output of the last processed frame.
+ * Each frame is reduced to a GRID x GRID fingerprint of block sums (B + G + R over all pixels of the block).
+ * A frame counts as a duplicate when every block's mean differs from the reference frame's by at most
+ * the tolerance (in 0-255 levels). The reference is the last frame that was actually processed,
+ * so slow drift over many frames still triggers reprocessing.
+ */
+public class FrameSkipper {
+
+    public static final int GRID = 32; // Fingerprint resolution (blocks per row and per column)
+
+    private final double tolerance;
+
+    private int[] reference = new int[GRID * GRID];
+    private int[] current = new int[GRID * GRID];
+    private int[] blockPixels = new int[GRID * GRID];
+    private int[] columnBlock = new int[0]; // Block column of each pixel column
+    private int geometryWidth = -1;
+    private int geometryHeight = -1;
+    private boolean hasReference = false;
+
+    private long framesSeen = 0;
+    private long framesSkipped = 0;
+    private long currentRun = 0;
+    private long longestRun = 0;
+
+    /**
+     * @param tolerance Largest per-block mean difference (0-255) still treated as "unchanged".
+     *                  0 only skips frames whose block sums are identical.
+     */
+    public FrameSkipper(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Forgets the reference frame and clears the statistics; call before each video.
+     */
+    public void reset() {
+        hasReference = false;
+        framesSeen = 0;
+        framesSkipped = 0;
+        currentRun = 0;
+        longestRun = 0;
+    }
+
+    /**
+     * Fingerprints the frame and compares it with the reference. If the frame is not a duplicate
+     * it becomes the new reference, i.e. the caller must process it.
+     *
+     * @param bgr The frame as packed 8-bit BGR bytes.
+     * @param width Frame width.
+     * @param height Frame height.
+     * @return true if the previous output can be reused for this frame.
+     */
+    public boolean isDuplicate(byte[] bgr, int width, int height) {
+        if (width != geometryWidth || height != geometryHeight) {
+            prepareGeometry(width, height);
+        }
+        fingerprint(bgr, width, height, current);
+        framesSeen++;
+
+        if (hasReference && matchesReference()) {
+            framesSkipped++;
+            currentRun++;
+            longestRun = Math.max(longestRun, currentRun);
+            return true;
+        }
+        int[] swap = reference;
+        reference = current;
+        current = swap;
+        hasReference = true;
+        currentRun = 0;
+        return false;
+    }
+
+    public long getFramesSeen() {
+        return framesSeen;
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    public long getLongestStaticRun() {
+        return longestRun;
+    }
+
+    public double getSkipRatio() {
+        return framesSeen == 0 ? 0.0 : (double) framesSkipped / framesSeen;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Skipped %d of %d frames (%.1f%%), longest static run %d frames",
+                framesSkipped, framesSeen, getSkipRatio() * 100, longestRun);
+    }
+
+    private boolean matchesReference() {
+        for (int i = 0; i < current.length; i++) {
+            int samples = blockPixels[i] * 3;
+            if (samples == 0) continue;
+            if (Math.abs(current[i] - reference[i]) > tolerance * samples) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void fingerprint(byte[] bgr, int width, int height, int[] sums) {
+        java.util.Arrays.fill(sums, 0);
+        int index = 0;
+        for (int y = 0; y < height; y++) {
+            int rowBase = (int) ((long) y * GRID / height) * GRID;
+            for (int x = 0; x < width; x++) {
+                sums[rowBase + columnBlock[x]] += (bgr[index] & 0xff) + (bgr[index + 1] & 0xff) + (bgr[index + 2] & 0xff);
+                index += 3;
+            }
+        }
+    }
+
+    private void prepareGeometry(int width, int height) {
+        columnBlock = new int[width];
+        for (int x = 0; x < width; x++) {
+            columnBlock[x] = (int) ((long) x * GRID / width);
+        }
+        java.util.Arrays.fill(blockPixels, 0);
+        for (int y = 0; y < height; y++) {
+            int rowBase = (int) ((long) y * GRID / height) * GRID;
+            for (int x = 0; x < width; x++) {
+                blockPixels[rowBase + columnBlock[x]]++;
+            }
+        }
+        geometryWidth = width;
+        geometryHeight = height;
+        hasReference = false;
+    }
+}
@@ -0,0 +1,22 @@
+// FrameWriter.java
+// Sink for video frames given as packed BGR bytes, independent of the container and codec.
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sequential writer of video frames. Implementations: OpenCvFrameWriter (MP4V via OpenCV),
+ * Y4mFrameWriter and RawFrameWriter (pure Java, uncompressed). Use VideoIO.openWriter to pick one by file name.
+ */
+public interface FrameWriter extends Closeable {
+
+    /**
+     * Appends a frame.
+     *
+     * @param bgr The frame as packed 8-bit BGR (width * height * 3 bytes).
+     */
+    void write(byte[] bgr) throws IOException;
+
+    @Override
+    void close();
+}
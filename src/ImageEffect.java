@@ -0,0 +1,179 @@
+// ImageEffect.java
+// Enumerates the effects offered by the application and maps each one to its Fork/Join task.
+
+import java.util.concurrent.RecursiveAction;
+
+import ParallelImageTasks.ParallelImageTasks.ConvolutionKernel;
+import ParallelImageTasks.ParallelImageTasks.CustomFilterTransformTask;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleKernel;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleTransformTask;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleVectorKernel;
+import ParallelImageTasks.ParallelImageTasks.PixelKernel;
+import ParallelImageTasks.ParallelImageTasks.SepiaKernel;
+import ParallelImageTasks.ParallelImageTasks.SepiaTransformTask;
+
+/**
+ * The image effects supported by the application, together with the convolution kernels
+ * of the filter effects. Used wherever an effect has to be applied to raw ARGB pixel arrays
+ * (for example video frames) rather than to a BufferedImage.
+ */
+public enum ImageEffect {
+    GRAYSCALE("Grayscale", null),
+    SEPIA("Sepia", null),
+    BLUR("Blur", new double[][] {
+            {1.0/16, 2.0/16, 1.0/16},
+            {2.0/16, 4.0/16, 2.0/16},
+            {1.0/16, 2.0/16, 1.0/16}
+    }),
+    EDGE_DETECTION("Edge Detection", new double[][] {
+            {-1, -1, -1},
+            {-1,  8, -1},
+            {-1, -1, -1}
+    }),
+    CUSTOM_FILTER("Custom Filter", new double[][] {
+            { 0, -1,  0},
+            {-1,  5, -1},
+            { 0, -1,  0}
+    });
+
+    private final String displayName;
+    private final double[][] kernel;
+
+    ImageEffect(String displayName, double[][] kernel) {
+        this.displayName = displayName;
+        this.kernel = kernel;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return The convolution kernel, or null for point effects (Grayscale, Sepia).
+     */
+    public double[][] getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Resamples the convolution kernel for an image reduced by the given scale, e.g. 0.25 for a preview proxy of a
+     * quarter of the size. Every tap keeps its weight but moves to its offset times the scale, split bilinearly
+     * between the neighbouring proxy pixels, so the kernel covers the same part of the picture as at full resolution
+     * and keeps its sum (a blur stays brightness-preserving, an edge detector keeps summing to 0). A 3x3 kernel at
+     * scale 0.25 is mostly its centre tap: one proxy pixel already averages 4x4 full-resolution pixels.
+     *
+     * @param scale Proxy size divided by full size; 1 or more returns the kernel unchanged.
+     * @return The resampled kernel, or null for point effects.
+     */
+    public double[][] getKernel(double scale) {
+        if (kernel == null || scale >= 1) {
+            return kernel;
+        }
+        int halfHeight = kernel.length / 2;
+        int halfWidth = kernel[0].length / 2;
+        int scaledHalfHeight = (int) Math.ceil(halfHeight * scale);
+        int scaledHalfWidth = (int) Math.ceil(halfWidth * scale);
+        double[][] scaled = new double[2 * scaledHalfHeight + 1][2 * scaledHalfWidth + 1];
+        for (int ky = 0; ky < kernel.length; ky++) {
+            double y = (ky - halfHeight) * scale + scaledHalfHeight;
+            int y0 = (int) Math.floor(y);
+            double fy = y - y0;
+            for (int kx = 0; kx < kernel[ky].length; kx++) {
+                double x = (kx - halfWidth) * scale + scaledHalfWidth;
+                int x0 = (int) Math.floor(x);
+                double fx = x - x0;
+                double weight = kernel[ky][kx];
+                addTap(scaled, y0, x0, weight * (1 - fy) * (1 - fx));
+                addTap(scaled, y0, x0 + 1, weight * (1 - fy) * fx);
+                addTap(scaled, y0 + 1, x0, weight * fy * (1 - fx));
+                addTap(scaled, y0 + 1, x0 + 1, weight * fy * fx);
+            }
+        }
+        return scaled;
+    }
+
+    // A zero share may fall one past the edge of the kernel (a tap exactly on the outermost proxy offset)
+    private static void addTap(double[][] kernel, int y, int x, double weight) {
+        if (weight != 0) {
+            kernel[y][x] += weight;
+        }
+    }
+
+    public boolean isConvolution() {
+        return kernel != null;
+    }
+
+    /**
+     * Creates the Fork/Join task that applies this effect to rows [0, height) of an ARGB pixel array.
+     * With threshold >= height the task runs as a single leaf on the calling thread.
+     *
+     * @param src Source ARGB pixels (width * height).
+     * @param dst Destination ARGB pixels (width * height).
+     * @param width Image width.
+     * @param height Image height.
+     * @param threshold The minimum number of rows to process sequentially in a task.
+     * @return The task; run it with invoke() or submit it to a ForkJoinPool.
+     */
+    public RecursiveAction createTask(int[] src, int[] dst, int width, int height, int threshold) {
+        switch (this) {
+            case GRAYSCALE:
+                return new GrayscaleTransformTask(src, dst, width, 0, height, threshold);
+            case SEPIA:
+                return new SepiaTransformTask(src, dst, width, 0, height, threshold);
+            default:
+                return new CustomFilterTransformTask(displayName, src, dst, width, height, 0, height, kernel, threshold);
+        }
+    }
+
+    /**
+     * Creates the rectangle-based kernel for this effect, used when only parts of an image are recomputed.
+     *
+     * @return A PixelKernel producing the same pixels as {@link #createTask}.
+     */
+    public PixelKernel pixelKernel() {
+        switch (this) {
+            case GRAYSCALE:
+                return new GrayscaleKernel();
+            case SEPIA:
+                return new SepiaKernel();
+            default:
+                return new ConvolutionKernel(kernel);
+        }
+    }
+
+    /**
+     * Creates the integer-arithmetic kernel of this effect, which the JIT can compile to SIMD instructions.
+     *
+     * @return The vectorizable PixelKernel, or null if the effect has none (currently only Grayscale has one).
+     */
+    public PixelKernel vectorKernel() {
+        return this == GRAYSCALE ? new GrayscaleVectorKernel() : null;
+    }
+
+    /**
+     * Looks up an effect by the name shown in the effect combo box.
+     *
+     * @param displayName The display name, e.g. "Edge Detection".
+     * @return The matching effect.
+     */
+    public static ImageEffect fromDisplayName(String displayName) {
+        for (ImageEffect effect : values()) {
+            if (effect.displayName.equals(displayName)) {
+                return effect;
+            }
+        }
+        throw new IllegalArgumentException("Unknown image effect selected: " + displayName);
+    }
+
+    /**
+     * @return The display names of all effects, in declaration order.
+     */
+    public static String[] displayNames() {
+        ImageEffect[] effects = values();
+        String[] names = new String[effects.length];
+        for (int i = 0; i < effects.length; i++) {
+            names[i] = effects[i].displayName;
+        }
+        return names;
+    }
+}
@@ -2,11 +2,16 @@
 // Custom JPanel component for displaying processed images in the GUI.
 
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.GridLayout;
 import java.awt.Image;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import javax.swing.BorderFactory;
+import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -78,14 +83,81 @@ public class ImagePanel extends JPanel {
         } else {
             label.setIcon(null); // Clear icon if image is null
         }
-        // Update the titled border's title
+        setTitle(label, title);
+        label.repaint(); // Repaint to ensure title change is visible
+    }
+
+    // Updates the titled border's title
+    private static void setTitle(JLabel label, String title) {
         if (label.getBorder() instanceof javax.swing.border.CompoundBorder) {
             javax.swing.border.CompoundBorder compoundBorder = (javax.swing.border.CompoundBorder) label.getBorder();
             if (compoundBorder.getOutsideBorder() instanceof javax.swing.border.TitledBorder) {
                 ((javax.swing.border.TitledBorder) compoundBorder.getOutsideBorder()).setTitle(title);
             }
         }
-        label.repaint(); // Repaint to ensure title change is visible
+    }
+
+    /**
+     * Shows an input image next to a result that is still being computed. The result label draws the image's
+     * current pixels on every repaint instead of a scaled copy, so rows appear as soon as they are written; rows
+     * that are not finished yet are still transparent.
+     * @param inputImage Image shown on the left.
+     * @param liveImage Image being written, shown on the right.
+     * @param inputTitle Title for the left label.
+     * @param liveTitle Title for the right label.
+     */
+    public void setProgressImages(BufferedImage inputImage, BufferedImage liveImage, String inputTitle, String liveTitle) {
+        updateLabelImage(seqLabel, inputImage, inputTitle);
+        parLabel.setIcon(new LiveImageIcon(liveImage, parLabel.getWidth(), parLabel.getHeight()));
+        setTitle(parLabel, liveTitle);
+        parLabel.repaint();
+    }
+
+    /**
+     * Redraws the image set with {@link #setProgressImages} after more of it has been written. Can be called from
+     * any thread; Swing merges the repaints of frequent calls.
+     */
+    public void refreshProgress() {
+        parLabel.repaint();
+    }
+
+    /**
+     * Changes the title of the result label, e.g. when a result shown with {@link #setProgressImages} is finished.
+     */
+    public void setResultTitle(String title) {
+        setTitle(parLabel, title);
+        parLabel.repaint();
+    }
+
+    // Draws a BufferedImage scaled to a fixed size every time it is painted, so changes to its pixels show up
+    private static class LiveImageIcon implements Icon {
+        private final BufferedImage image;
+        private final int width;
+        private final int height;
+
+        LiveImageIcon(BufferedImage image, int width, int height) {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.drawImage(image, x, y, width, height, null);
+            g2.dispose();
+        }
+
+        @Override
+        public int getIconWidth() {
+            return width;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return height;
+        }
     }
 
     /**
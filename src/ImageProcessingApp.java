@@ -9,6 +9,7 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -18,6 +19,7 @@ import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -32,6 +34,8 @@ import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import ParallelImageTasks.ParallelImageTasks.TaskProgress;
+
 /**
  * Main class for the Image Processing Project with a Graphical User Interface (GUI).
  * This application demonstrates sequential and parallel image processing (Grayscale, Sepia, Blur, Edge Detection, Custom Filter)
@@ -53,10 +57,31 @@ public class ImageProcessingApp extends JFrame {
 
     private JTextField widthField; // Text field for desired width
     private JTextField heightField; // Text field for desired height
+    private JTextField cropXField; // Crop rectangle: left edge, top edge, width and height
+    private JTextField cropYField;
+    private JTextField cropWidthField;
+    private JTextField cropHeightField;
     private JComboBox<String> effectComboBox; // Dropdown for choosing image effect
+    private JComboBox<String> temporalComboBox; // Dropdown for choosing a temporal video operator
+    private JCheckBox livePreviewCheckBox; // Applies the selected effect while the video plays
+    private JTextField threadsField; // Thread counts of the scalability sweep, e.g. "1-8,16,32"
+    private JComboBox<String> scalingComboBox; // Strong or weak scaling (images only)
+    private JComboBox<String> backendComboBox; // Execution backend of the image sweep, or all of them for comparison
 
     private static final int IMAGE_DISPLAY_WIDTH = 300; // Fixed width for displayed images
     private static final int IMAGE_DISPLAY_HEIGHT = 200; // Fixed height for displayed images
+    private static final int PREVIEW_MAX_SIDE = Integer.getInteger("preview.maxSide", 512); // Longer side of the preview proxy
+    // Lets the planner pick the vectorized kernels, whose output can be one level off the scalar kernels'
+    private static final boolean APPROXIMATE_EFFECTS = Boolean.getBoolean("planner.approximate");
+    private static final int TEMPORAL_RADIUS = 2; // Frames on each side used by the temporal denoising operators
+    private static final double STATIC_FRAME_TOLERANCE = 1.0; // Block mean change (0-255) below which a video frame is reused
+    private static final int INCREMENTAL_BLOCK_SIZE = 32; // Block size for recomputing only the changed parts of video frames
+    private static final int IMAGE_TILE_SIZE = 64; // Tile size for recomputing only the edited parts of images
+    private static final int IMAGE_WARMUP_RUNS = 3; // Untimed runs per configuration before the image trials
+    private static final int IMAGE_TRIALS = 10; // Timed runs per configuration for images
+    private static final int VIDEO_WARMUP_RUNS = 1; // Video runs take much longer, so fewer of them
+    private static final int VIDEO_TRIALS = 3;
+    private static final String BACKEND_COMPARE_ALL = "Compare All";
 
     private boolean isVideoMode = false;
     private File currentVideoFile = null;
@@ -64,6 +89,15 @@ public class ImageProcessingApp extends JFrame {
     private SimpleVideoPlayer originalVideoPlayer;
     private SimpleVideoPlayer processedVideoPlayer;
 
+    private BenchmarkRunner.Report lastBenchmarkReport; // Results of the last Process Image / Process Video run, for export
+    private java.util.List<BenchmarkRunner.Report> lastComparisonReports = java.util.Collections.emptyList(); // One per backend after Compare All
+    private TaskProgress runningJob; // Cancels the running preview, Apply Effect or Process Image job; null when idle (EDT only)
+    private BufferedImage previewProxy; // Reduced copy of previewProxySource for effect previews (EDT only)
+    private BufferedImage previewProxySource;
+    // Full-resolution output of the last previewed effect, kept up to date through crops (EDT only)
+    private IncrementalImageProcessor effectCache;
+    private ImageEffect effectCacheEffect;
+
     /**
      * Constructor for the ImageProcessingApp GUI.
      * Sets up the main window and all its components.
@@ -82,6 +116,10 @@ public class ImageProcessingApp extends JFrame {
         isVideoMode = (choice == 1);
 
         initComponents();
+        if (!isVideoMode) {
+            // Load or measure the planner's calibration now, so Apply Effect does not wait for it
+            ExecutionService.shared().ioPool().execute(ExecutionPlanner::shared);
+        }
     }
 
     /**
@@ -118,8 +156,17 @@ public class ImageProcessingApp extends JFrame {
                         JOptionPane.WARNING_MESSAGE);
             }
         });
+        JButton applyEffectButton = new JButton("Apply Effect");
+        styleButton(applyEffectButton);
+        applyEffectButton.setToolTipText("Apply the effect once with the strategy the planner estimates to be fastest for this image size");
+        applyEffectButton.addActionListener(e -> applyPlannedEffect());
+        JButton exportButton = new JButton("Export Results");
+        styleButton(exportButton);
+        exportButton.addActionListener(e -> exportResults());
         buttonPanel.add(loadImageButton);
+        buttonPanel.add(applyEffectButton);
         buttonPanel.add(processImageButton);
+        buttonPanel.add(exportButton);
         // Only add image controls if not in video mode
         if (!isVideoMode) {
             controlPanel.add(buttonPanel);
@@ -142,17 +189,76 @@ public class ImageProcessingApp extends JFrame {
             controlPanel.add(resizePanel);
         }
 
+        // Crop / region edit panel: only the tiles along the new edges or around the edited region are recomputed
+        JPanel cropPanel = new JPanel();
+        cropPanel.setBackground(new Color(240, 240, 240));
+        cropPanel.add(new JLabel("Region At (X, Y):"));
+        cropXField = new JTextField(4);
+        cropYField = new JTextField(4);
+        cropPanel.add(cropXField);
+        cropPanel.add(cropYField);
+        cropPanel.add(new JLabel("Size (W x H):"));
+        cropWidthField = new JTextField(5);
+        cropHeightField = new JTextField(5);
+        cropPanel.add(cropWidthField);
+        cropPanel.add(new JLabel("x"));
+        cropPanel.add(cropHeightField);
+        JButton applyCropButton = new JButton("Apply Crop");
+        styleButton(applyCropButton);
+        applyCropButton.addActionListener(e -> applyImageCrop());
+        cropPanel.add(applyCropButton);
+        JButton invertRegionButton = new JButton("Invert Region");
+        styleButton(invertRegionButton);
+        invertRegionButton.addActionListener(e -> invertImageRegion());
+        cropPanel.add(invertRegionButton);
+        if (!isVideoMode) {
+            controlPanel.add(cropPanel);
+        }
+
         // Effect Selection Panel
         JPanel effectPanel = new JPanel();
         effectPanel.setBackground(new Color(240, 240, 240));
         effectPanel.add(new JLabel("Select Effect:"));
-        String[] effects = {"Grayscale", "Sepia", "Blur", "Edge Detection", "Custom Filter"};
+        String[] effects = ImageEffect.displayNames();
         effectComboBox = new JComboBox<>(effects);
         effectComboBox.setFont(new Font("Arial", Font.PLAIN, 14));
         effectPanel.add(effectComboBox);
+        if (isVideoMode) {
+            // Preview the effect on the original video in the processed player, without processing the file first
+            livePreviewCheckBox = new JCheckBox("Live Preview");
+            livePreviewCheckBox.setBackground(new Color(240, 240, 240));
+            livePreviewCheckBox.addItemListener(e -> toggleLivePreview());
+            effectPanel.add(livePreviewCheckBox);
+            effectComboBox.addActionListener(e -> updateLivePreviewEffect());
+        } else {
+            effectComboBox.addActionListener(e -> previewSelectedEffect());
+        }
+        // Effects are available for both images and videos
+        controlPanel.add(effectPanel);
+
+        // Scalability sweep: the thread counts to time and, for images, strong or weak scaling
+        JPanel sweepPanel = new JPanel();
+        sweepPanel.setBackground(new Color(240, 240, 240));
+        sweepPanel.add(new JLabel("Threads:"));
+        threadsField = new JTextField(System.getProperty("benchmark.threads",
+                ScalingAnalysis.formatThreadCounts(ScalingAnalysis.defaultThreadCounts())), 20);
+        threadsField.setToolTipText("Thread counts to time, e.g. 1,2,4,8 or 1-12 or 1-8,16,32,64 ("
+                + Runtime.getRuntime().availableProcessors() + " cores available)");
+        sweepPanel.add(threadsField);
         if (!isVideoMode) {
-            controlPanel.add(effectPanel);
+            sweepPanel.add(new JLabel("Scaling:"));
+            scalingComboBox = new JComboBox<>(new String[] {
+                    ScalingAnalysis.Mode.STRONG.getDisplayName(), ScalingAnalysis.Mode.WEAK.getDisplayName()});
+            scalingComboBox.setToolTipText("Strong: same image for every thread count. Weak: p threads process p copies of the image.");
+            sweepPanel.add(scalingComboBox);
+            sweepPanel.add(new JLabel("Backend:"));
+            backendComboBox = new JComboBox<>(ExecutionBackend.displayNames());
+            backendComboBox.addItem(BACKEND_COMPARE_ALL);
+            backendComboBox.setToolTipText("How the rows are scheduled: Fork/Join tasks, CountedCompleter tasks, a parallel stream, "
+                    + "static stripes on a thread pool or virtual threads (Java 21+). Compare All times every available backend.");
+            sweepPanel.add(backendComboBox);
         }
+        controlPanel.add(sweepPanel);
 
         // Add video controls if in video mode
         if (isVideoMode) {
@@ -163,8 +269,36 @@ public class ImageProcessingApp extends JFrame {
 
             JButton processVideoButton = new JButton("Process Video");
             styleButton(processVideoButton);
-            processVideoButton.addActionListener(e -> processVideoGrayscale());
+            processVideoButton.addActionListener(e -> processVideo());
             controlPanel.add(processVideoButton);
+
+            JButton sideBySideButton = new JButton("Play Side by Side");
+            styleButton(sideBySideButton);
+            sideBySideButton.addActionListener(e -> playSideBySide());
+            controlPanel.add(sideBySideButton);
+
+            JButton benchmarkButton = new JButton("Benchmark (Decode Once)");
+            styleButton(benchmarkButton);
+            benchmarkButton.addActionListener(e -> benchmarkVideo());
+            controlPanel.add(benchmarkButton);
+
+            JButton exportVideoResultsButton = new JButton("Export Results");
+            styleButton(exportVideoResultsButton);
+            exportVideoResultsButton.addActionListener(e -> exportResults());
+            controlPanel.add(exportVideoResultsButton);
+
+            // Temporal operators need neighbouring frames, so they have their own controls
+            JPanel temporalPanel = new JPanel();
+            temporalPanel.setBackground(new Color(240, 240, 240));
+            temporalPanel.add(new JLabel("Temporal Operator:"));
+            temporalComboBox = new JComboBox<>(TemporalOperator.displayNames());
+            temporalComboBox.setFont(new Font("Arial", Font.PLAIN, 14));
+            temporalPanel.add(temporalComboBox);
+            JButton temporalButton = new JButton("Apply Temporal");
+            styleButton(temporalButton);
+            temporalButton.addActionListener(e -> processVideoTemporal());
+            temporalPanel.add(temporalButton);
+            controlPanel.add(temporalPanel);
         }
         mainPanel.add(controlPanel, BorderLayout.NORTH);
 
@@ -258,6 +392,8 @@ public class ImageProcessingApp extends JFrame {
             File selectedFile = fileChooser.getSelectedFile();
             try {
                 // Read the image
+                ParallelImageTasks.ProcessingEvents.ImageLoadEvent loadEvent = new ParallelImageTasks.ProcessingEvents.ImageLoadEvent();
+                loadEvent.begin();
                 BufferedImage loadedImage = ImageIO.read(selectedFile);
                 if (loadedImage != null) {
                     // Convert to TYPE_INT_ARGB if it's not already
@@ -270,9 +406,12 @@ public class ImageProcessingApp extends JFrame {
                     Graphics2D g = originalImage.createGraphics();
                     g.drawImage(loadedImage, 0, 0, null);
                     g.dispose();
+                    loadEvent.finish(selectedFile.getAbsolutePath(), originalImage.getWidth(), originalImage.getHeight(), selectedFile.length());
 
                     currentProcessedImage = originalImage; // Initially, current processed is the original
                     updateOriginalImageDisplay(currentProcessedImage); // Display the loaded image
+                    preparePreviewProxy(currentProcessedImage);
+                    effectCache = null;
                     resultsTextArea.setText("Image loaded successfully: " + selectedFile.getName() +
                             "\nDimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight() + "\n");
                     processedImagePanel.clearImages(); // Clear previous processed images
@@ -318,6 +457,8 @@ public class ImageProcessingApp extends JFrame {
 
             currentProcessedImage = resizedImage; // Set the resized image as the current one for processing
             updateOriginalImageDisplay(currentProcessedImage);
+            preparePreviewProxy(currentProcessedImage);
+            effectCache = null;
             resultsTextArea.append(String.format("Image resized to %dx%d.\n", newWidth, newHeight));
             processedImagePanel.clearImages();
         } catch (NumberFormatException e) {
@@ -355,157 +496,224 @@ public class ImageProcessingApp extends JFrame {
             return;
         }
 
+        int[] threadCounts = readThreadCounts();
+        if (threadCounts == null) {
+            return;
+        }
+        ScalingAnalysis.Mode mode = ScalingAnalysis.Mode.fromDisplayName((String) scalingComboBox.getSelectedItem());
+        String selectedBackend = (String) backendComboBox.getSelectedItem();
+        java.util.List<ExecutionBackend> backends = new java.util.ArrayList<>();
+        java.util.List<String> unavailableBackends = new java.util.ArrayList<>();
+        if (BACKEND_COMPARE_ALL.equals(selectedBackend)) {
+            for (ExecutionBackend backend : ExecutionBackend.values()) {
+                if (backend.isAvailable()) {
+                    backends.add(backend);
+                } else {
+                    unavailableBackends.add(backend.getDisplayName());
+                }
+            }
+        } else {
+            ExecutionBackend backend = ExecutionBackend.fromDisplayName(selectedBackend);
+            if (!backend.isAvailable()) {
+                JOptionPane.showMessageDialog(this, backend.getDisplayName() + " need Java 21 or later (running Java "
+                        + System.getProperty("java.version") + ").", "Backend Not Available", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            backends.add(backend);
+        }
+
         String selectedEffect = (String) effectComboBox.getSelectedItem();
         resultsTextArea.append(String.format("\nStarting image processing: %s Effect...\n", selectedEffect));
         setButtonsEnabled(false);
 
+        ImageEffect effect = ImageEffect.fromDisplayName(selectedEffect);
+        BufferedImage image = currentProcessedImage;
+        // Show the result band by band first, then run the benchmark; changing the effect cancels both
+        TaskProgress job = new TaskProgress(0, null);
+        startJob(job);
+        BufferedImage preview = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        processedImagePanel.setProgressImages(image, preview, "Input", selectedEffect + " (in progress)");
+        BenchmarkRunner runner = new BenchmarkRunner(IMAGE_WARMUP_RUNS, IMAGE_TRIALS);
+        resultsTextArea.append(String.format("%s scaling over %s threads on %s, %d warmup runs and %d timed trials per configuration\n",
+                mode.getDisplayName(), ScalingAnalysis.formatThreadCounts(threadCounts),
+                backends.stream().map(ExecutionBackend::getDisplayName).collect(java.util.stream.Collectors.joining(", ")),
+                runner.getWarmupRuns(), runner.getTrials()));
+        if (!unavailableBackends.isEmpty()) {
+            resultsTextArea.append("Not available on Java " + System.getProperty("java.version") + ": " + unavailableBackends + "\n");
+        }
+
         new SwingWorker<Void, Void>() {
             BufferedImage sequentialResult;
             BufferedImage parallelResult;
-            long sequentialTime;
-            long parallelTime;
-            java.util.List<Long> parallelTimes = new java.util.ArrayList<>();
+            BenchmarkRunner.Stats sequentialStats;
+            java.util.Map<ExecutionBackend, java.util.List<BenchmarkRunner.Stats>> parallelStats = new java.util.LinkedHashMap<>();
+            java.util.List<Integer> skippedThreadCounts = new java.util.ArrayList<>();
+            StringBuilder taskCounts = new StringBuilder(); // CountedCompleter tasks and steals per thread count
 
             @Override
             protected Void doInBackground() throws Exception {
-                long startTime, endTime;
-
-                // Sequential processing (only once)
-                switch (selectedEffect) {
-                    case "Grayscale":
-                        startTime = System.nanoTime();
-                        sequentialResult = ImageProcessor.toGrayscaleSequential(currentProcessedImage);
-                        endTime = System.nanoTime();
-                        sequentialTime = (endTime - startTime) / 1_000_000;
-                        break;
-                    case "Sepia":
-                        startTime = System.nanoTime();
-                        sequentialResult = ImageProcessor.toSepiaSequential(currentProcessedImage);
-                        endTime = System.nanoTime();
-                        sequentialTime = (endTime - startTime) / 1_000_000;
-                        break;
-                    case "Blur":
-                        double[][] blurKernel = {
-                                {1.0/16, 2.0/16, 1.0/16},
-                                {2.0/16, 4.0/16, 2.0/16},
-                                {1.0/16, 2.0/16, 1.0/16}
-                        };
-                        startTime = System.nanoTime();
-                        sequentialResult = ImageProcessor.applyCustomFilterSequential(currentProcessedImage, blurKernel);
-                        endTime = System.nanoTime();
-                        sequentialTime = (endTime - startTime) / 1_000_000;
-                        break;
-                    case "Edge Detection":
-                        double[][] edgeKernel = {
-                                {-1, -1, -1},
-                                {-1,  8, -1},
-                                {-1, -1, -1}
-                        };
-                        startTime = System.nanoTime();
-                        sequentialResult = ImageProcessor.applyCustomFilterSequential(currentProcessedImage, edgeKernel);
-                        endTime = System.nanoTime();
-                        sequentialTime = (endTime - startTime) / 1_000_000;
-                        break;
-                    case "Custom Filter":
-                        double[][] customKernel = {
-                                { 0, -1,  0},
-                                {-1,  5, -1},
-                                { 0, -1,  0}
-                        };
-                        startTime = System.nanoTime();
-                        sequentialResult = ImageProcessor.applyCustomFilterSequential(currentProcessedImage, customKernel);
-                        endTime = System.nanoTime();
-                        sequentialTime = (endTime - startTime) / 1_000_000;
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Unknown image effect selected: " + selectedEffect);
-                }
+                ExecutionPlanner.Plan plan = ExecutionPlanner.shared().plan(effect, image.getWidth(), image.getHeight(),
+                        APPROXIMATE_EFFECTS);
+                ImageProcessor.applyEffect(image, effect, plan, preview, job.child((long) image.getWidth() * image.getHeight(),
+                        (x0, y0, x1, y1) -> processedImagePanel.refreshProgress()));
+                SwingUtilities.invokeLater(() -> processedImagePanel.setResultTitle(selectedEffect + " (timing...)"));
+
+                // Sequential processing
+                sequentialStats = runner.measure("Sequential", 1,
+                        () -> sequentialResult = applyImageEffect(effect, image, null, 1, null, job));
 
-                // Parallel processing: 1 to 12 threads
-                for (int threads = 1; threads <= 12; threads++) {
-                    java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
-                    long pStart = System.nanoTime();
-                    switch (selectedEffect) {
-                        case "Grayscale":
-                            parallelResult = ImageProcessor.toGrayscaleParallel(currentProcessedImage, THRESHOLD, pool);
-                            break;
-                        case "Sepia":
-                            parallelResult = ImageProcessor.toSepiaParallel(currentProcessedImage, THRESHOLD, pool);
-                            break;
-                        case "Blur":
-                            double[][] blurKernel = {
-                                    {1.0/16, 2.0/16, 1.0/16},
-                                    {2.0/16, 4.0/16, 2.0/16},
-                                    {1.0/16, 2.0/16, 1.0/16}
-                            };
-                            parallelResult = ImageProcessor.applyCustomFilterParallel(currentProcessedImage, blurKernel, THRESHOLD, pool);
-                            break;
-                        case "Edge Detection":
-                            double[][] edgeKernel = {
-                                    {-1, -1, -1},
-                                    {-1,  8, -1},
-                                    {-1, -1, -1}
-                            };
-                            parallelResult = ImageProcessor.applyCustomFilterParallel(currentProcessedImage, edgeKernel, THRESHOLD, pool);
-                            break;
-                        case "Custom Filter":
-                            double[][] customKernel = {
-                                    { 0, -1,  0},
-                                    {-1,  5, -1},
-                                    { 0, -1,  0}
-                            };
-                            parallelResult = ImageProcessor.applyCustomFilterParallel(currentProcessedImage, customKernel, THRESHOLD, pool);
-                            break;
+                // Parallel processing with every thread count of the sweep, on every selected backend
+                for (int threads : threadCounts) {
+                    BufferedImage input = image;
+                    if (mode == ScalingAnalysis.Mode.WEAK) {
+                        // Weak scaling: p threads process p copies of the image, stacked vertically
+                        input = stackCopies(image, threads);
+                        if (input == null) {
+                            skippedThreadCounts.add(threads);
+                            continue;
+                        }
                     }
-                    long pEnd = System.nanoTime();
-                    parallelTimes.add((pEnd - pStart) / 1_000_000L); // ms
-                    pool.shutdown();
+                    BufferedImage timedInput = input;
+                    for (ExecutionBackend backend : backends) {
+                        ParallelImageTasks.ParallelImageTasks.CompleterStats completerStats =
+                                backend == ExecutionBackend.COUNTED_COMPLETER ? new ParallelImageTasks.ParallelImageTasks.CompleterStats() : null;
+                        parallelStats.computeIfAbsent(backend, b -> new java.util.ArrayList<>()).add(runner.measure(
+                                backend.getDisplayName(), threads,
+                                () -> parallelResult = applyImageEffect(effect, timedInput, backend, threads, completerStats, job)));
+                        if (completerStats != null) {
+                            double runs = runner.getWarmupRuns() + runner.getTrials();
+                            taskCounts.append(String.format("  %d threads: %.0f tasks, %.1f stolen per run\n",
+                                    threads, completerStats.getTasks() / runs, completerStats.getSteals() / runs));
+                        }
+                    }
+                }
+                if (parallelStats.isEmpty()) {
+                    throw new IllegalStateException("None of the scaled images fits into the heap");
+                }
+                if (mode == ScalingAnalysis.Mode.WEAK) {
+                    // Show the result at the original size, not the stacked copies
+                    parallelResult = applyImageEffect(effect, image, backends.get(0),
+                            ExecutionService.shared().getCpuParallelism(), null, job);
                 }
                 return null;
             }
 
             @Override
             protected void done() {
+                boolean current = finishJob(job);
                 try {
+                    get();
                     processedImagePanel.setImages(
                             sequentialResult, parallelResult,
                             selectedEffect + " Sequential", selectedEffect + " Parallel");
 
-                    StringBuilder results = new StringBuilder();
-                    results.append(String.format("--- %s Results ---\n", selectedEffect));
-                    results.append("Sequential Time: ").append(sequentialTime).append(" ms\n");
-                    
-                    // Calculate speedup for 12-thread parallel processing
-                    long parallel12ThreadTime = parallelTimes.get(11); // 12 threads (index 11)
-                    double speedup = (double) sequentialTime / parallel12ThreadTime;
-                    
-                    results.append("Parallel Time (12 threads): ").append(parallel12ThreadTime).append(" ms\n");
-                    results.append("Speedup (12 threads): ").append(String.format("%.2f", speedup)).append("x\n");
-                    results.append("Efficiency: ").append(String.format("%.2f", speedup / 12.0 * 100)).append("%\n\n");
-                    
-                    // Show all parallel times
-                    for (int i = 0; i < parallelTimes.size(); i++) {
-                        results.append("Parallel Time (" + (i+1) + " threads): ").append(parallelTimes.get(i)).append(" ms");
-                        if (i == 11) { // Highlight 12-thread result
-                            results.append(" ← Best Performance");
-                        }
-                        results.append("\n");
+                    // One report per backend; the one with the best speedup is shown in detail and in the graph
+                    java.util.List<BenchmarkRunner.Report> reports = new java.util.ArrayList<>();
+                    for (java.util.Map.Entry<ExecutionBackend, java.util.List<BenchmarkRunner.Stats>> entry : parallelStats.entrySet()) {
+                        reports.add(new BenchmarkRunner.Report(selectedEffect + " image "
+                                + image.getWidth() + "x" + image.getHeight()
+                                + " (" + entry.getKey().getDisplayName() + ")",
+                                mode, sequentialStats, entry.getValue(), runner));
+                    }
+                    lastBenchmarkReport = reports.get(0);
+                    for (BenchmarkRunner.Report report : reports) {
+                        if (bestSpeedup(report) > bestSpeedup(lastBenchmarkReport)) lastBenchmarkReport = report;
+                    }
+                    lastComparisonReports = reports.size() > 1 ? reports : java.util.Collections.emptyList();
+                    String backendName = lastBenchmarkReport.parallel.get(0).label;
+
+                    if (!skippedThreadCounts.isEmpty()) {
+                        resultsTextArea.append("Skipped (scaled image does not fit into the heap): " + skippedThreadCounts + " threads\n");
+                    }
+                    if (reports.size() > 1) {
+                        resultsTextArea.append(formatBackendComparison(reports));
+                    }
+                    resultsTextArea.append(formatBenchmarkResults(selectedEffect + " Results, " + backendName, lastBenchmarkReport));
+                    if (taskCounts.length() > 0) {
+                        resultsTextArea.append("CountedCompleter tasks and steals:\n" + taskCounts);
                     }
-                    resultsTextArea.append(results.toString());
 
                     // Show timing graph
-                    JFrame graphFrame = new JFrame("Parallel Execution Time vs Threads");
+                    JFrame graphFrame = new JFrame("Parallel Execution Time vs Threads (" + backendName + ")");
                     graphFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
                     graphFrame.setSize(600, 400);
-                    graphFrame.add(new TimingGraphPanel(parallelTimes, sequentialTime));
+                    graphFrame.add(new TimingGraphPanel(lastBenchmarkReport));
                     graphFrame.setLocationRelativeTo(ImageProcessingApp.this);
                     graphFrame.setVisible(true);
 
                 } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(ImageProcessingApp.this,
-                            "Error during image processing: " + ex.getMessage(),
-                            "Processing Error", JOptionPane.ERROR_MESSAGE);
-                    ex.printStackTrace();
+                    if (isCancellation(ex)) {
+                        if (current) {
+                            processedImagePanel.setResultTitle(selectedEffect + " (cancelled)");
+                        }
+                        resultsTextArea.append(selectedEffect + " cancelled\n");
+                    } else {
+                        JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                                "Error during image processing: " + ex.getMessage(),
+                                "Processing Error", JOptionPane.ERROR_MESSAGE);
+                        ex.printStackTrace();
+                    }
+                } finally {
+                    setButtonsEnabled(true);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Applies the selected effect once with the strategy the ExecutionPlanner chooses for the image size
+     * (sequential, vectorized, Fork/Join or tiled) and shows the result next to its input.
+     */
+    private void applyPlannedEffect() {
+        if (currentProcessedImage == null) {
+            JOptionPane.showMessageDialog(this, "No image to process. Load or resize an image first.", "No Image", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        ImageEffect effect = ImageEffect.fromDisplayName((String) effectComboBox.getSelectedItem());
+        BufferedImage input = currentProcessedImage;
+        setButtonsEnabled(false);
+
+        // The result is shown while it is written, band by band
+        BufferedImage result = new BufferedImage(input.getWidth(), input.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        TaskProgress job = new TaskProgress((long) input.getWidth() * input.getHeight(),
+                (x0, y0, x1, y1) -> processedImagePanel.refreshProgress());
+        startJob(job);
+        processedImagePanel.setProgressImages(input, result, "Input", effect.getDisplayName() + " (in progress)");
+
+        new SwingWorker<BufferedImage, Void>() {
+            ExecutionPlanner.Plan plan;
+            double elapsedMs;
+
+            @Override
+            protected BufferedImage doInBackground() {
+                plan = ExecutionPlanner.shared().plan(effect, input.getWidth(), input.getHeight(), APPROXIMATE_EFFECTS);
+                long start = System.nanoTime();
+                ImageProcessor.applyEffect(input, effect, plan, result, job);
+                elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+                return result;
+            }
+
+            @Override
+            protected void done() {
+                boolean current = finishJob(job);
+                try {
+                    get();
+                    processedImagePanel.setResultTitle(effect.getDisplayName() + " (" + plan.strategy.getDisplayName() + ")");
+                    resultsTextArea.append(String.format("\n%s on %dx%d: %s\nMeasured %.2f ms\n", effect.getDisplayName(),
+                            input.getWidth(), input.getHeight(), plan, elapsedMs));
+                } catch (Exception ex) {
+                    if (isCancellation(ex)) {
+                        if (current) {
+                            processedImagePanel.setResultTitle(effect.getDisplayName() + " (cancelled)");
+                        }
+                        resultsTextArea.append(String.format("%s cancelled after %.0f%% of the image\n",
+                                effect.getDisplayName(), job.getFraction() * 100));
+                    } else {
+                        JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                                "Error during image processing: " + ex.getMessage(),
+                                "Processing Error", JOptionPane.ERROR_MESSAGE);
+                        ex.printStackTrace();
+                    }
                 } finally {
                     setButtonsEnabled(true);
                 }
@@ -513,6 +721,433 @@ public class ImageProcessingApp extends JFrame {
         }.execute();
     }
 
+    /**
+     * Crops the current image to the rectangle in the crop fields and shows the selected effect on the result.
+     * The full-resolution output of the effect is cropped along with the image, so only the tiles along the new
+     * edges, where the kernel now reaches different pixels, are recomputed.
+     */
+    private void applyImageCrop() {
+        Rectangle region = readRegionFields();
+        if (region == null) {
+            return;
+        }
+        int x = region.x;
+        int y = region.y;
+        int cropWidth = region.width;
+        int cropHeight = region.height;
+
+        // A run still writing the cache has to stop before the cache can be cropped
+        if (runningJob != null) {
+            runningJob.cancel();
+        }
+        BufferedImage croppedImage = new BufferedImage(cropWidth, cropHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = croppedImage.createGraphics();
+        g.drawImage(currentProcessedImage.getSubimage(x, y, cropWidth, cropHeight), 0, 0, null);
+        g.dispose();
+        if (effectCache != null) {
+            effectCache.crop(x, y, cropWidth, cropHeight);
+        }
+
+        currentProcessedImage = croppedImage;
+        updateOriginalImageDisplay(currentProcessedImage);
+        preparePreviewProxy(currentProcessedImage);
+        resultsTextArea.append(String.format("Image cropped to %dx%d at %d,%d.\n", cropWidth, cropHeight, x, y));
+        previewSelectedEffect();
+    }
+
+    /**
+     * Inverts the colors of the rectangle in the region fields and shows the selected effect on the result. The
+     * edit is reported to the effect cache, so only the tiles the rectangle and the kernel's reach around it touch
+     * are recomputed.
+     */
+    private void invertImageRegion() {
+        Rectangle region = readRegionFields();
+        if (region == null) {
+            return;
+        }
+
+        // A run still writing the cache has to finish before the edit is recorded
+        if (runningJob != null) {
+            runningJob.cancel();
+        }
+        // Edit a copy: a benchmark may still be reading the current image
+        int width = currentProcessedImage.getWidth();
+        BufferedImage editedImage = new BufferedImage(width, currentProcessedImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = editedImage.createGraphics();
+        g.drawImage(currentProcessedImage, 0, 0, null);
+        g.dispose();
+        int[] pixels = ((java.awt.image.DataBufferInt) editedImage.getRaster().getDataBuffer()).getData();
+        for (int row = region.y; row < region.y + region.height; row++) {
+            for (int index = row * width + region.x, end = index + region.width; index < end; index++) {
+                pixels[index] ^= 0x00ffffff; // Keep alpha
+            }
+        }
+        if (effectCache != null) {
+            effectCache.markDirty(region.x, region.y, region.x + region.width, region.y + region.height);
+        }
+
+        currentProcessedImage = editedImage;
+        updateOriginalImageDisplay(currentProcessedImage);
+        preparePreviewProxy(currentProcessedImage);
+        resultsTextArea.append(String.format("Region %dx%d at %d,%d inverted.\n", region.width, region.height, region.x, region.y));
+        previewSelectedEffect();
+    }
+
+    /**
+     * @return The rectangle in the region fields, or null (after telling the user) if there is no image or the
+     *         fields do not describe a rectangle within it.
+     */
+    private Rectangle readRegionFields() {
+        if (currentProcessedImage == null) {
+            JOptionPane.showMessageDialog(this, "Please load an image first!", "No Image", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+
+        int x, y, regionWidth, regionHeight;
+        try {
+            x = Integer.parseInt(cropXField.getText().trim());
+            y = Integer.parseInt(cropYField.getText().trim());
+            regionWidth = Integer.parseInt(cropWidthField.getText().trim());
+            regionHeight = Integer.parseInt(cropHeightField.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Please enter valid integer values for X, Y, Width and Height.", "Invalid Input", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+        if (x < 0 || y < 0 || regionWidth <= 0 || regionHeight <= 0
+                || x + regionWidth > currentProcessedImage.getWidth() || y + regionHeight > currentProcessedImage.getHeight()) {
+            JOptionPane.showMessageDialog(this, String.format("The rectangle must lie within the %dx%d image.",
+                    currentProcessedImage.getWidth(), currentProcessedImage.getHeight()), "Invalid Region", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+        return new Rectangle(x, y, regionWidth, regionHeight);
+    }
+
+    /**
+     * Shows the selected effect at once on a reduced proxy of the image, then computes the full-resolution result
+     * in the background and swaps it in when it is ready. The proxy (at most PREVIEW_MAX_SIDE pixels on its longer
+     * side) is created once per image, so a preview costs one pass over a few hundred thousand pixels. The
+     * full-resolution output is cached in an IncrementalImageProcessor: showing the same effect again after a crop
+     * or region edit recomputes only the tiles the change affected. Selecting another effect cancels the full-resolution run of this one.
+     */
+    private void previewSelectedEffect() {
+        cancelRunningJob();
+        if (currentProcessedImage == null) {
+            return;
+        }
+        ImageEffect effect = ImageEffect.fromDisplayName((String) effectComboBox.getSelectedItem());
+        BufferedImage input = currentProcessedImage;
+        int factor = ImageProcessor.proxyFactor(input.getWidth(), input.getHeight(), PREVIEW_MAX_SIDE);
+        BufferedImage cachedProxy = previewProxySource == input ? previewProxy : null;
+        TaskProgress job = startJob(new TaskProgress((long) input.getWidth() * input.getHeight(), null));
+        if (effectCache == null || effectCacheEffect != effect) {
+            effectCache = new IncrementalImageProcessor(java.util.Collections.singletonList(effect.pixelKernel()), IMAGE_TILE_SIZE);
+            effectCacheEffect = effect;
+        }
+        IncrementalImageProcessor cache = effectCache;
+
+        new SwingWorker<BufferedImage, BufferedImage>() {
+            BufferedImage proxy = cachedProxy;
+            int tilesRecomputed;
+            double previewMs;
+            double fullMs;
+
+            @Override
+            protected BufferedImage doInBackground() {
+                long start = System.nanoTime();
+                if (proxy == null) {
+                    proxy = ImageProcessor.createProxy(input, factor);
+                }
+                publish(ImageProcessor.applyEffectToProxy(proxy, effect, factor));
+                previewMs = (System.nanoTime() - start) / 1_000_000.0;
+
+                start = System.nanoTime();
+                int width = input.getWidth();
+                int height = input.getHeight();
+                BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+                synchronized (cache) {
+                    int[] output = cache.process(((java.awt.image.DataBufferInt) input.getRaster().getDataBuffer()).getData(),
+                            width, height, ExecutionService.shared().cpuPool(), job);
+                    System.arraycopy(output, 0, ((java.awt.image.DataBufferInt) result.getRaster().getDataBuffer()).getData(),
+                            0, output.length);
+                    tilesRecomputed = cache.getLastTilesRecomputed();
+                }
+                fullMs = (System.nanoTime() - start) / 1_000_000.0;
+                // Reduce it here rather than on the event thread, which would otherwise scale the full image
+                return ImageProcessor.createProxy(result, factor);
+            }
+
+            @Override
+            protected void process(java.util.List<BufferedImage> previews) {
+                if (input == currentProcessedImage) {
+                    previewProxySource = input;
+                    previewProxy = proxy;
+                }
+                if (runningJob == job && input == currentProcessedImage) {
+                    processedImagePanel.setImages(proxy, previews.get(previews.size() - 1), "Input",
+                            effect.getDisplayName() + " (preview)");
+                }
+            }
+
+            @Override
+            protected void done() {
+                boolean current = finishJob(job);
+                try {
+                    BufferedImage result = get();
+                    if (current && input == currentProcessedImage) {
+                        processedImagePanel.setImages(proxy, result, "Input", effect.getDisplayName());
+                    }
+                    int tiles = ((input.getWidth() + IMAGE_TILE_SIZE - 1) / IMAGE_TILE_SIZE)
+                            * ((input.getHeight() + IMAGE_TILE_SIZE - 1) / IMAGE_TILE_SIZE);
+                    resultsTextArea.append(String.format("%s: preview %dx%d in %.1f ms, full resolution %dx%d in %.1f ms (%d of %d tiles)\n",
+                            effect.getDisplayName(), proxy.getWidth(), proxy.getHeight(), previewMs,
+                            input.getWidth(), input.getHeight(), fullMs, tilesRecomputed, tiles));
+                } catch (Exception ex) {
+                    if (!isCancellation(ex)) {
+                        JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                                "Error during image processing: " + ex.getMessage(),
+                                "Processing Error", JOptionPane.ERROR_MESSAGE);
+                        ex.printStackTrace();
+                    }
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Creates the preview proxy of a newly loaded or resized image in the background, so that the first effect
+     * selection does not have to wait for the pass over the full image.
+     */
+    private void preparePreviewProxy(BufferedImage image) {
+        previewProxy = null;
+        previewProxySource = null;
+        int factor = ImageProcessor.proxyFactor(image.getWidth(), image.getHeight(), PREVIEW_MAX_SIDE);
+        ExecutionService.shared().cpuPool().execute(() -> {
+            BufferedImage proxy = ImageProcessor.createProxy(image, factor);
+            SwingUtilities.invokeLater(() -> {
+                if (image == currentProcessedImage) {
+                    previewProxySource = image;
+                    previewProxy = proxy;
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancels the running job when another effect is selected: its result is no longer wanted, so its tasks stop
+     * at their next band instead of keeping all cores busy.
+     */
+    private void cancelRunningJob() {
+        if (runningJob != null && !runningJob.isCancelled()) {
+            runningJob.cancel();
+            resultsTextArea.append("Effect changed, cancelling the running job...\n");
+        }
+    }
+
+    // Makes job the running job; a job still running is superseded and cancelled
+    private TaskProgress startJob(TaskProgress job) {
+        if (runningJob != null) {
+            runningJob.cancel();
+        }
+        runningJob = job;
+        return job;
+    }
+
+    // Returns false if the job was superseded by a newer one, whose display must not be overwritten
+    private boolean finishJob(TaskProgress job) {
+        if (runningJob != job) {
+            return false;
+        }
+        runningJob = null;
+        return true;
+    }
+
+    private static boolean isCancellation(Exception ex) {
+        return ex instanceof java.util.concurrent.CancellationException
+                || ex.getCause() instanceof java.util.concurrent.CancellationException;
+    }
+
+    /**
+     * Applies an effect's PixelKernel to a BufferedImage for a timed run. The sequential and parallel versions run
+     * the same plain kernel, so the speedups compare scheduling only.
+     * @param backend The backend of the parallel version, or null for the sequential version.
+     * @param threads The parallelism of the backend.
+     * @param completerStats Receives the task and steal counts of the CountedCompleter backend, or null.
+     * @param job Cancels the sweep; checked before and after every run.
+     * @throws java.util.concurrent.CancellationException If the job has been cancelled.
+     */
+    private static BufferedImage applyImageEffect(ImageEffect effect, BufferedImage image, ExecutionBackend backend, int threads,
+                                                  ParallelImageTasks.ParallelImageTasks.CompleterStats completerStats,
+                                                  TaskProgress job) {
+        job.throwIfCancelled();
+        BufferedImage result = backend != null
+                ? ImageProcessor.applyKernel(image, effect.getDisplayName(), effect.pixelKernel(), backend, threads,
+                        THRESHOLD, completerStats)
+                : ImageProcessor.applyKernelSequential(image, effect.getDisplayName(), effect.pixelKernel());
+        job.throwIfCancelled();
+        return result;
+    }
+
+    private static double bestSpeedup(BenchmarkRunner.Report report) {
+        double best = 0;
+        for (BenchmarkRunner.Stats stats : report.parallel) {
+            best = Math.max(best, report.speedup(stats));
+        }
+        return best;
+    }
+
+    /**
+     * Formats the median times of several backends side by side, one row per thread count, marking the fastest
+     * backend of every row, followed by the backend and thread count with the best speedup overall.
+     */
+    private static String formatBackendComparison(java.util.List<BenchmarkRunner.Report> reports) {
+        StringBuilder table = new StringBuilder("--- Backend Comparison (median ms, * = fastest) ---\n");
+        table.append(String.format("%-8s", "Threads"));
+        java.util.SortedSet<Integer> threadCounts = new java.util.TreeSet<>();
+        for (BenchmarkRunner.Report report : reports) {
+            table.append(String.format(" %17s ", report.parallel.get(0).label));
+            for (int threads : report.threadCounts()) {
+                threadCounts.add(threads);
+            }
+        }
+        table.append("\n");
+
+        for (int threads : threadCounts) {
+            BenchmarkRunner.Stats[] row = new BenchmarkRunner.Stats[reports.size()];
+            BenchmarkRunner.Stats fastest = null;
+            for (int i = 0; i < row.length; i++) {
+                for (BenchmarkRunner.Stats stats : reports.get(i).parallel) {
+                    if (stats.threads == threads) row[i] = stats;
+                }
+                if (row[i] != null && (fastest == null || row[i].median() < fastest.median())) fastest = row[i];
+            }
+            table.append(String.format("%-8d", threads));
+            for (BenchmarkRunner.Stats stats : row) {
+                table.append(stats == null ? String.format(" %17s ", "-")
+                        : String.format(" %17.2f%s", stats.median(), stats == fastest ? "*" : " "));
+            }
+            table.append("\n");
+        }
+
+        BenchmarkRunner.Report bestReport = reports.get(0);
+        BenchmarkRunner.Stats best = bestReport.parallel.get(0);
+        for (BenchmarkRunner.Report report : reports) {
+            for (BenchmarkRunner.Stats stats : report.parallel) {
+                if (report.speedup(stats) > bestReport.speedup(best)) {
+                    bestReport = report;
+                    best = stats;
+                }
+            }
+        }
+        table.append(String.format("Best: %s with %d threads, %.2f ms median, %sspeedup %.2fx\n\n", best.label, best.threads,
+                best.median(), bestReport.mode == ScalingAnalysis.Mode.WEAK ? "scaled " : "", bestReport.speedup(best)));
+        return table.toString();
+    }
+
+    /**
+     * Formats a benchmark report for the results area: the statistics, speedup, efficiency per core and
+     * Karp-Flatt serial fraction of every thread count (all based on median times) and the fitted scaling model.
+     */
+    private static String formatBenchmarkResults(String heading, BenchmarkRunner.Report report) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        StringBuilder results = new StringBuilder();
+        results.append(String.format("--- %s (%s scaling, %d cores) ---\n", heading, report.mode.getDisplayName(), cores));
+        results.append(report.sequential).append("\n");
+
+        BenchmarkRunner.Stats best = report.parallel.get(0);
+        for (BenchmarkRunner.Stats stats : report.parallel) {
+            if (report.speedup(stats) > report.speedup(best)) best = stats;
+        }
+        results.append(String.format("Best %sspeedup: %.2fx with %d threads\n\n",
+                report.mode == ScalingAnalysis.Mode.WEAK ? "scaled " : "", report.speedup(best), best.threads));
+
+        for (BenchmarkRunner.Stats stats : report.parallel) {
+            results.append(stats);
+            results.append(String.format(", speedup %.2fx, efficiency %.0f%% per core",
+                    report.speedup(stats), report.efficiency(stats) * 100));
+            if (report.mode == ScalingAnalysis.Mode.STRONG && stats.threads > 1) {
+                results.append(String.format(", Karp-Flatt %.3f", ScalingAnalysis.karpFlatt(report.speedup(stats), stats.threads)));
+            }
+            if (stats.threads > cores) {
+                results.append(" (oversubscribed)");
+            }
+            if (stats == best) {
+                results.append(" ← Best Performance");
+            }
+            results.append("\n");
+        }
+        results.append(ScalingAnalysis.describeFit(report));
+        results.append("Use Export Results to save all samples as CSV or JSON.\n");
+        return results.toString();
+    }
+
+    /**
+     * Reads the thread counts of the sweep from the Threads field.
+     * @return The thread counts, or null (after telling the user) if the field cannot be parsed.
+     */
+    private int[] readThreadCounts() {
+        try {
+            return ScalingAnalysis.parseThreadCounts(threadsField.getText());
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage() + "\nExample: 1,2,4,8 or 1-12 or 1-8,16,32,64",
+                    "Invalid Thread Counts", JOptionPane.WARNING_MESSAGE);
+            return null;
+        }
+    }
+
+    /**
+     * Builds the input of a weak-scaling run: the given number of copies of the image stacked vertically.
+     * @return The stacked image, or null if it (and the buffers the effect needs for it) would not fit into the heap.
+     */
+    private static BufferedImage stackCopies(BufferedImage image, int copies) {
+        long pixels = (long) image.getWidth() * image.getHeight() * copies;
+        // Source image, its pixel array, the destination array and the result image: 4 ints per pixel
+        if ((long) image.getHeight() * copies > Integer.MAX_VALUE / image.getWidth()
+                || pixels * 16 > Runtime.getRuntime().maxMemory() / 2) {
+            return null;
+        }
+        BufferedImage stacked = new BufferedImage(image.getWidth(), image.getHeight() * copies, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = stacked.createGraphics();
+        for (int i = 0; i < copies; i++) {
+            g.drawImage(image, 0, i * image.getHeight(), null);
+        }
+        g.dispose();
+        return stacked;
+    }
+
+    /**
+     * Saves the statistics and raw samples of the last image or video benchmark as CSV or JSON
+     * (after Compare All, the reports of all backends in one file).
+     */
+    private void exportResults() {
+        if (lastBenchmarkReport == null) {
+            JOptionPane.showMessageDialog(this, "Run a benchmark (Process Image or Process Video) first.", "No Results", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Benchmark Results");
+        fileChooser.setAcceptAllFileFilterUsed(false); // The selected filter decides the format of a name without extension
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("CSV (*.csv)", "csv"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("JSON (*.json)", "json"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().contains(".")) {
+            String extension = ((FileNameExtensionFilter) fileChooser.getFileFilter()).getExtensions()[0];
+            file = new File(file.getParentFile(), file.getName() + "." + extension);
+        }
+        try {
+            if (lastComparisonReports.isEmpty()) {
+                lastBenchmarkReport.export(file);
+            } else {
+                BenchmarkRunner.Report.exportAll(lastComparisonReports, file);
+            }
+            resultsTextArea.append("Results exported to " + file.getAbsolutePath() + "\n");
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Error exporting results: " + ex.getMessage(), "Export Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void showFirstVideoFrame(File videoFile) {
         try {
             // Load the video into the original video player
@@ -526,7 +1161,7 @@ public class ImageProcessingApp extends JFrame {
 
     private void uploadVideo() {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Video Files", "mp4", "avi", "mov", "mkv"));
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Video Files", "mp4", "avi", "mov", "mkv", "y4m"));
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
             currentVideoFile = fileChooser.getSelectedFile();
@@ -535,47 +1170,132 @@ public class ImageProcessingApp extends JFrame {
         }
     }
 
+    /**
+     * Plays the original and processed videos from the start on one shared clock, so both show
+     * the frame with the same timestamp at the same time at the source frame rate.
+     */
+    private void playSideBySide() {
+        if (originalVideoPlayer == null || processedVideoPlayer == null) return;
+        PlaybackClock sharedClock = new PlaybackClock();
+        originalVideoPlayer.playWithClock(sharedClock);
+        processedVideoPlayer.playWithClock(sharedClock);
+        sharedClock.start(0);
+    }
+
+    private void toggleLivePreview() {
+        if (processedVideoPlayer == null) return;
+        if (!livePreviewCheckBox.isSelected()) {
+            processedVideoPlayer.setLiveEffect(null, null);
+            return;
+        }
+        if (currentVideoFile == null) {
+            JOptionPane.showMessageDialog(this, "Please upload a video first!", "No Video", JOptionPane.WARNING_MESSAGE);
+            livePreviewCheckBox.setSelected(false);
+            return;
+        }
+        // The processed player plays the original video and applies the effect to each frame as it is shown
+        loadVideoInPlayer(currentVideoFile, processedVideoPlayer);
+        updateLivePreviewEffect();
+        resultsTextArea.append("Live preview: play the processed video; the effect can be changed while it plays.\n");
+    }
+
+    private void updateLivePreviewEffect() {
+        if (livePreviewCheckBox == null || !livePreviewCheckBox.isSelected()) return;
+        ImageEffect effect = ImageEffect.fromDisplayName((String) effectComboBox.getSelectedItem());
+        processedVideoPlayer.setLiveEffect(effect, ExecutionService.shared().cpuPool());
+    }
+
     private void loadVideoInPlayer(File videoFile, SimpleVideoPlayer player) {
         if (player != null) {
             player.loadVideo(videoFile);
         }
     }
 
-    private void processVideoGrayscale() {
+    private void processVideo() {
         if (currentVideoFile == null) {
             JOptionPane.showMessageDialog(this, "Please upload a video first!", "No Video", JOptionPane.WARNING_MESSAGE);
             return;
         }
         
+        int[] threadCounts = readThreadCounts();
+        if (threadCounts == null) {
+            return;
+        }
+        ImageEffect effect = ImageEffect.fromDisplayName((String) effectComboBox.getSelectedItem());
+        String prefix = effect.name().toLowerCase();
+        
+        BenchmarkRunner runner = new BenchmarkRunner(VIDEO_WARMUP_RUNS, VIDEO_TRIALS);
+        resultsTextArea.append(String.format("\nProcessing video over %s threads: %d warmup runs and %d timed trials per configuration...\n",
+                ScalingAnalysis.formatThreadCounts(threadCounts), runner.getWarmupRuns(), runner.getTrials()));
+        
         // Disable buttons during processing
         setButtonsEnabled(false);
         
         new SwingWorker<Void, Void>() {
-            private long seqTime;
-            private java.util.List<Long> parTimes;
+            private BenchmarkRunner.Stats seqStats;
+            private java.util.List<BenchmarkRunner.Stats> parStats;
+            private long segTime;
+            private int segments;
+            private FrameSkipper skipper;
+            private long incTime = -1;
+            private long cacheTime = -1;
             private File processedVideoFile;
             
             @Override
             protected Void doInBackground() throws Exception {
+                if (effect != ImageEffect.GRAYSCALE) {
+                    // Decode once into the frame cache (or find it there), so every timed run below reads cached frames
+                    long cacheStart = System.nanoTime();
+                    FrameCache.shared().ensureCached(currentVideoFile);
+                    cacheTime = (System.nanoTime() - cacheStart) / 1_000_000;
+                }
+                
                 // Sequential processing
-                File outSeq = new File(currentVideoFile.getParent(), "grayscale_seq.mp4");
-                long start = System.nanoTime();
-                VideoProcessor.processVideoGrayscaleSequential(currentVideoFile, outSeq);
-                long end = System.nanoTime();
-                seqTime = (end - start) / 1_000_000;
+                File outSeq = new File(currentVideoFile.getParent(), prefix + "_seq.mp4");
+                if (effect == ImageEffect.GRAYSCALE) {
+                    seqStats = runner.measure("Sequential", 1,
+                            () -> VideoProcessor.processVideoGrayscaleSequential(currentVideoFile, outSeq));
+                } else {
+                    // Unchanged frames (static scenes, screen recordings) reuse the previous output
+                    skipper = new FrameSkipper(STATIC_FRAME_TOLERANCE);
+                    seqStats = runner.measure("Sequential", 1,
+                            () -> VideoProcessor.processVideoEffect(currentVideoFile, outSeq, effect, null, skipper));
+                }
                 
-                // Parallel 1-12 threads
-                File outParBase = new File(currentVideoFile.getParent(), "grayscale_par.mp4");
-                parTimes = VideoProcessor.timeParallelGrayscale(currentVideoFile, outParBase);
+                // Parallel with every thread count of the sweep
+                File outParBase = new File(currentVideoFile.getParent(), prefix + "_par.mp4");
+                if (effect == ImageEffect.GRAYSCALE) {
+                    parStats = VideoProcessor.timeParallelGrayscale(currentVideoFile, outParBase, threadCounts, runner);
+                    
+                    // Segment-parallel: decode and encode are split across one capture/writer pair per segment.
+                    // Joining the segments needs ffmpeg; without it the video is processed as one segment
+                    segments = VideoProcessor.canJoinSegments() ? Runtime.getRuntime().availableProcessors() : 1;
+                    File outSeg = new File(currentVideoFile.getParent(), prefix + "_seg.mp4");
+                    long segStart = System.nanoTime();
+                    VideoProcessor.processVideoGrayscaleSegmented(currentVideoFile, outSeg, segments);
+                    segTime = (System.nanoTime() - segStart) / 1_000_000;
+                } else {
+                    // Hybrid intra-frame / inter-frame Fork/Join scheduling
+                    parStats = VideoProcessor.timeParallelEffect(currentVideoFile, outParBase, effect, skipper, threadCounts, runner);
+                    
+                    // Block-level incremental: only blocks that changed since the previous frame are recomputed
+                    File outInc = new File(currentVideoFile.getParent(), prefix + "_inc.mp4");
+                    long incStart = System.nanoTime();
+                    VideoProcessor.processVideoEffectIncremental(currentVideoFile, outInc, effect,
+                            ExecutionService.shared().cpuPool(), INCREMENTAL_BLOCK_SIZE);
+                    incTime = (System.nanoTime() - incStart) / 1_000_000;
+                }
                 
-                // The last file is the 12-thread processed video
-                processedVideoFile = new File(currentVideoFile.getParent(), "grayscale_par_12.mp4");
+                // The last file is the video processed with the largest thread count
+                processedVideoFile = new File(currentVideoFile.getParent(),
+                        prefix + "_par_" + threadCounts[threadCounts.length - 1] + ".mp4");
                 return null;
             }
             
             @Override
             protected void done() {
                 try {
+                    get();
                     // Check if processed video file exists
                     if (!processedVideoFile.exists()) {
                         JOptionPane.showMessageDialog(ImageProcessingApp.this,
@@ -584,27 +1304,43 @@ public class ImageProcessingApp extends JFrame {
                         return;
                     }
                     
-                    // Load videos into players
+                    // Load videos into players; the processed player now shows the processed file
+                    livePreviewCheckBox.setSelected(false);
                     loadVideoInPlayer(currentVideoFile, originalVideoPlayer);
                     loadVideoInPlayer(processedVideoFile, processedVideoPlayer);
                     
                     // Show results
+                    lastComparisonReports = java.util.Collections.emptyList();
+                    lastBenchmarkReport = new BenchmarkRunner.Report(effect.getDisplayName() + " video " + currentVideoFile.getName(),
+                            ScalingAnalysis.Mode.STRONG, seqStats, parStats, runner);
                     StringBuilder sb = new StringBuilder();
-                    sb.append("Video processing completed!\n");
+                    sb.append(effect.getDisplayName()).append(" video processing completed!\n");
                     sb.append("Processed video saved as: ").append(processedVideoFile.getName()).append("\n");
-                    sb.append("Sequential Time: ").append(seqTime).append(" ms\n");
-                    sb.append("Parallel Time (12 threads): ").append(parTimes.get(11)).append(" ms\n");
-                    sb.append("Speedup: ").append(String.format("%.2f", (double)seqTime / parTimes.get(11))).append("x\n\n");
-                    for (int i = 0; i < parTimes.size(); i++) {
-                        sb.append("Parallel Time (" + (i+1) + " threads): ").append(parTimes.get(i)).append(" ms\n");
+                    if (cacheTime >= 0) {
+                        sb.append("Frame cache preparation: ").append(cacheTime).append(" ms (not included in the times below)\n");
+                    }
+                    if (skipper != null) {
+                        sb.append("Static frames: ").append(skipper).append("\n");
                     }
+                    if (incTime >= 0) {
+                        sb.append("Incremental (changed blocks) Time (single run): ").append(incTime).append(" ms\n");
+                    }
+                    if (segments > 0) {
+                        if (!VideoProcessor.canJoinSegments()) {
+                            sb.append("Segment-Parallel: ffmpeg not found on the PATH, so the video ran as one segment "
+                                    + "(no segment speedup)\n");
+                        }
+                        sb.append("Segment-Parallel Time (" + segments + " segments, single run): ").append(segTime).append(" ms\n");
+                        sb.append("Segment-Parallel Speedup: ").append(String.format("%.2f", seqStats.median() / segTime)).append("x\n");
+                    }
+                    sb.append(formatBenchmarkResults(effect.getDisplayName() + " Video Results", lastBenchmarkReport));
                     resultsTextArea.append(sb.toString());
                     
                     // Show timing graph
                     JFrame graphFrame = new JFrame("Parallel Execution Time vs Threads (Video)");
                     graphFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
                     graphFrame.setSize(600, 400);
-                    graphFrame.add(new TimingGraphPanel(parTimes, seqTime));
+                    graphFrame.add(new TimingGraphPanel(lastBenchmarkReport));
                     graphFrame.setLocationRelativeTo(ImageProcessingApp.this);
                     graphFrame.setVisible(true);
                     
@@ -625,6 +1361,112 @@ public class ImageProcessingApp extends JFrame {
         }.execute();
     }
 
+    /**
+     * Times the processing stage alone on frames decoded once, for every thread count of the sweep, with decode and encode
+     * reported as separate stages.
+     */
+    private void benchmarkVideo() {
+        if (currentVideoFile == null) {
+            JOptionPane.showMessageDialog(this, "Please upload a video first!", "No Video", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        int[] threadCounts = readThreadCounts();
+        if (threadCounts == null) {
+            return;
+        }
+        ImageEffect effect = ImageEffect.fromDisplayName((String) effectComboBox.getSelectedItem());
+        File outputFile = new File(currentVideoFile.getParent(), effect.name().toLowerCase() + "_bench.mp4");
+        setButtonsEnabled(false);
+        
+        new SwingWorker<VideoBenchmark.Result, Void>() {
+            @Override
+            protected VideoBenchmark.Result doInBackground() throws Exception {
+                return VideoBenchmark.run(currentVideoFile, outputFile, effect, threadCounts);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    VideoBenchmark.Result result = get();
+                    if (result == null) {
+                        JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                                "Error: Could not benchmark " + currentVideoFile.getName(),
+                                "Benchmark Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    resultsTextArea.append(result.toString() + "\n");
+                    
+                    // Processing stage only, relative to the sequential processing stage
+                    JFrame graphFrame = new JFrame("Processing Stage Time vs Threads (Decode Once)");
+                    graphFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+                    graphFrame.setSize(600, 400);
+                    graphFrame.add(new TimingGraphPanel(result.threadCounts, result.processMs, result.sequentialMs));
+                    graphFrame.setLocationRelativeTo(ImageProcessingApp.this);
+                    graphFrame.setVisible(true);
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                            "Error during benchmark: " + ex.getMessage(),
+                            "Benchmark Error", JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                } finally {
+                    setButtonsEnabled(true);
+                }
+            }
+        }.execute();
+    }
+
+    private void processVideoTemporal() {
+        if (currentVideoFile == null) {
+            JOptionPane.showMessageDialog(this, "Please upload a video first!", "No Video", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        TemporalOperator operator = TemporalOperator.fromDisplayName((String) temporalComboBox.getSelectedItem());
+        File outputFile = new File(currentVideoFile.getParent(), operator.name().toLowerCase() + "_temporal.mp4");
+        setButtonsEnabled(false);
+        
+        new SwingWorker<Void, Void>() {
+            private long time;
+            private int frames;
+            private int threads;
+            
+            @Override
+            protected Void doInBackground() throws Exception {
+                java.util.concurrent.ForkJoinPool pool = ExecutionService.shared().cpuPool();
+                threads = pool.getParallelism();
+                long start = System.nanoTime();
+                frames = VideoProcessor.processVideoTemporal(currentVideoFile, outputFile, operator, TEMPORAL_RADIUS, pool);
+                time = (System.nanoTime() - start) / 1_000_000;
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                    if (frames < 0 || !outputFile.exists()) {
+                        JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                                "Error: Temporal processing failed for " + currentVideoFile.getName(),
+                                "Processing Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    livePreviewCheckBox.setSelected(false);
+                    loadVideoInPlayer(outputFile, processedVideoPlayer);
+                    resultsTextArea.append(String.format("%s: %d frames in %d ms with %d threads (%.1f fps)%n",
+                            operator.getDisplayName(), frames, time, threads, frames * 1000.0 / Math.max(1, time)));
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(ImageProcessingApp.this,
+                            "Error during temporal processing: " + ex.getMessage(),
+                            "Processing Error", JOptionPane.ERROR_MESSAGE);
+                    ex.printStackTrace();
+                } finally {
+                    setButtonsEnabled(true);
+                }
+            }
+        }.execute();
+    }
+
     /**
      * Enables or disables the Load and Process buttons, and other controls.
      * @param enabled True to enable, false to disable.
@@ -644,23 +1486,36 @@ public class ImageProcessingApp extends JFrame {
                 comp.setEnabled(enabled); // For direct components, if any
             }
         }
-        // Special case for JComboBox as it has internal components
-        effectComboBox.setEnabled(enabled);
+        // Special case for JComboBox as it has internal components; in image mode it stays enabled while a job
+        // runs, so selecting another effect can cancel it
+        effectComboBox.setEnabled(enabled || !isVideoMode);
     }
 
-    // Enhanced timing graph panel with speedup information
+    // Timing graph panel with error bars and speedup information
     class TimingGraphPanel extends JPanel {
-        private java.util.List<Long> times;
-        private long sequentialTime; // For speedup calculation
+        private java.util.List<BenchmarkRunner.Stats> times;
+        private BenchmarkRunner.Stats sequential; // For speedup calculation, may be null
+        private ScalingAnalysis.Mode mode = ScalingAnalysis.Mode.STRONG;
+        private double[] modelTimes; // Times predicted by the fitted scaling model, may be null
         
         public TimingGraphPanel(java.util.List<Long> times) { 
-            this.times = times; 
-            this.sequentialTime = 0; // Will be set separately
+            this(java.util.stream.IntStream.rangeClosed(1, times.size()).toArray(), times, 0);
         }
         
-        public TimingGraphPanel(java.util.List<Long> times, long sequentialTime) { 
-            this.times = times; 
-            this.sequentialTime = sequentialTime;
+        // Single measurements per thread count, drawn without error bars
+        public TimingGraphPanel(int[] threadCounts, java.util.List<Long> times, long sequentialTime) { 
+            this.times = new java.util.ArrayList<>();
+            for (int i = 0; i < times.size(); i++) {
+                this.times.add(BenchmarkRunner.Stats.single("Parallel", threadCounts[i], times.get(i)));
+            }
+            this.sequential = sequentialTime > 0 ? BenchmarkRunner.Stats.single("Sequential", 1, sequentialTime) : null;
+        }
+        
+        public TimingGraphPanel(BenchmarkRunner.Report report) {
+            this.times = report.parallel;
+            this.sequential = report.sequential;
+            this.mode = report.mode;
+            this.modelTimes = ScalingAnalysis.fittedTimes(report);
         }
         
         @Override
@@ -680,50 +1535,95 @@ public class ImageProcessingApp extends JFrame {
             g2d.drawString("Threads", x0 + w/2, y0 + 30);
             g2d.drawString("Time (ms)", 5, y0 - h/2);
             
-            // Find max time
-            long max = 1;
-            for (Long t : times) if (t > max) max = t;
+            // Find max time, including the top of the error bars
+            double max = 1;
+            for (BenchmarkRunner.Stats t : times) max = Math.max(max, Math.max(t.p95(), t.mean() + t.ci95()));
+            if (sequential != null) max = Math.max(max, sequential.mean() + sequential.ci95());
+            if (modelTimes != null) for (double t : modelTimes) max = Math.max(max, t);
             
-            // Draw sequential time line if available
-            if (sequentialTime > 0) {
+            // Draw sequential median with its confidence band if available
+            if (sequential != null) {
+                int seqY = y0 - (int)(h * sequential.median() / max);
+                if (sequential.ci95() > 0) {
+                    int bandTop = y0 - (int)(h * (sequential.mean() + sequential.ci95()) / max);
+                    int bandBottom = y0 - (int)(h * (sequential.mean() - sequential.ci95()) / max);
+                    g2d.setColor(new Color(255, 0, 0, 40));
+                    g2d.fillRect(x0, bandTop, w, Math.max(1, bandBottom - bandTop));
+                }
                 g2d.setColor(Color.RED);
-                int seqY = y0 - (int)((h) * sequentialTime / (double)max);
                 g2d.drawLine(x0, seqY, x0 + w, seqY);
-                g2d.drawString("Sequential: " + sequentialTime + " ms", x0 + w + 5, seqY + 5);
+                g2d.drawString((mode == ScalingAnalysis.Mode.WEAK ? "Sequential (1x): " : "Sequential: ")
+                        + Math.round(sequential.median()) + " ms", x0 + w + 5, seqY + 5);
             }
             
-            // Draw parallel times
-            g2d.setColor(Color.BLUE);
+            // Draw the fitted Amdahl / Gustafson model as a dashed line
+            if (modelTimes != null && times.size() > 1) {
+                java.awt.Stroke stroke = g2d.getStroke();
+                g2d.setStroke(new java.awt.BasicStroke(1.5f, java.awt.BasicStroke.CAP_BUTT, java.awt.BasicStroke.JOIN_ROUND,
+                        1f, new float[] {6f, 4f}, 0f));
+                g2d.setColor(Color.ORANGE.darker());
+                for (int i = 1; i < modelTimes.length; i++) {
+                    g2d.drawLine(x0 + w * (i - 1) / (times.size() - 1), y0 - (int)(h * modelTimes[i - 1] / max),
+                            x0 + w * i / (times.size() - 1), y0 - (int)(h * modelTimes[i] / max));
+                }
+                g2d.setStroke(stroke);
+                g2d.drawString(mode == ScalingAnalysis.Mode.STRONG ? "Amdahl fit" : "Gustafson fit", x0 + w + 5, y0 - (int)(h * modelTimes[modelTimes.length - 1] / max));
+            }
+            
+            // Draw parallel times: mean with 95% CI error bars, p95 as a gray tick, labelled with the median
             int prevX = -1, prevY = -1;
             for (int i = 0; i < times.size(); i++) {
-                int x = x0 + (int)((w) * i / (times.size() - 1));
-                int y = y0 - (int)((h) * times.get(i) / (double)max);
+                BenchmarkRunner.Stats t = times.get(i);
+                int x = x0 + (times.size() > 1 ? (int)((w) * i / (times.size() - 1)) : w / 2);
+                int y = y0 - (int)(h * t.mean() / max);
+                
+                if (t.count() > 1) {
+                    int p95Y = y0 - (int)(h * t.p95() / max);
+                    g2d.setColor(Color.GRAY);
+                    g2d.drawLine(x - 4, p95Y, x + 4, p95Y);
+                    
+                    int top = y0 - (int)(h * (t.mean() + t.ci95()) / max);
+                    int bottom = y0 - (int)(h * (t.mean() - t.ci95()) / max);
+                    g2d.setColor(Color.BLUE);
+                    g2d.drawLine(x, top, x, bottom);
+                    g2d.drawLine(x - 3, top, x + 3, top);
+                    g2d.drawLine(x - 3, bottom, x + 3, bottom);
+                }
                 
-                // Highlight 12-thread result
-                if (i == 11) {
+                // Highlight the largest thread count
+                if (i == times.size() - 1) {
                     g2d.setColor(Color.GREEN);
                     g2d.fillOval(x-5, y-5, 10, 10);
                     g2d.setColor(Color.BLUE);
                 } else {
+                    g2d.setColor(Color.BLUE);
                     g2d.fillOval(x-3, y-3, 6, 6);
                 }
                 
-                g2d.drawString("" + (i+1), x-5, y0 + 15);
-                g2d.drawString(times.get(i) + " ms", x-10, y - 10);
+                g2d.drawString("" + t.threads, x-5, y0 + 15);
+                g2d.drawString(Math.round(t.median()) + " ms", x-10, y - 10);
                 
                 if (prevX != -1) g2d.drawLine(prevX, prevY, x, y);
                 prevX = x; prevY = y;
             }
             
+            g2d.setColor(Color.DARK_GRAY);
+            if (!times.isEmpty() && times.get(0).count() > 1) {
+                g2d.drawString("Points: mean, bars: 95% CI, gray ticks: p95, labels: median (n=" + times.get(0).count() + ")",
+                        x0, getHeight() - 10);
+            }
+            
             // Draw speedup information if sequential time is available
-            if (sequentialTime > 0 && times.size() > 11) {
-                long parallel12ThreadTime = times.get(11);
-                double speedup = (double) sequentialTime / parallel12ThreadTime;
-                double efficiency = speedup / 12.0 * 100;
+            if (sequential != null && !times.isEmpty()) {
+                BenchmarkRunner.Stats largest = times.get(times.size() - 1);
+                double speedup = sequential.median() / largest.median();
+                if (mode == ScalingAnalysis.Mode.WEAK) speedup *= largest.threads;
+                int cores = Math.min(largest.threads, Runtime.getRuntime().availableProcessors());
+                double efficiency = speedup / cores * 100;
                 
-                g2d.setColor(Color.DARK_GRAY);
-                g2d.drawString("Speedup (12 threads): " + String.format("%.2f", speedup) + "x", 10, 20);
-                g2d.drawString("Efficiency: " + String.format("%.1f", efficiency) + "%", 10, 35);
+                g2d.drawString((mode == ScalingAnalysis.Mode.WEAK ? "Scaled speedup (" : "Speedup (") + largest.threads + " threads): "
+                        + String.format("%.2f", speedup) + "x", 10, 20);
+                g2d.drawString("Efficiency: " + String.format("%.1f", efficiency) + "% per core", 10, 35);
             }
         }
     }
@@ -733,6 +1633,8 @@ public class ImageProcessingApp extends JFrame {
      * Creates and displays the GUI on the Event Dispatch Thread (EDT).
      */
     public static void main(String[] args) {
+        // Live metrics over JMX and on http://localhost:9404/metrics (-Dmetrics.port, negative to disable)
+        ProcessingMetrics.shared().start();
         ImageProcessingApp app = new ImageProcessingApp();
         
         // Add window listener to release video players when closing
@@ -745,6 +1647,11 @@ public class ImageProcessingApp extends JFrame {
                 if (app.processedVideoPlayer != null) {
                     app.processedVideoPlayer.release();
                 }
+                // Let running work finish briefly, then stop the shared pools
+                ExecutionService.shared().shutdown(2, java.util.concurrent.TimeUnit.SECONDS);
+                // Free the native memory still held by idle pooled Mats
+                MatPool.shared().clear();
+                ProcessingMetrics.shared().stopHttpServer();
             }
         });
         
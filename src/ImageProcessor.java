@@ -11,11 +11,21 @@ import javax.imageio.ImageIO;
 import ParallelImageTasks.ParallelImageTasks.GrayscaleTransformTask;
 import ParallelImageTasks.ParallelImageTasks.SepiaTransformTask;
 import ParallelImageTasks.ParallelImageTasks.CustomFilterTransformTask;
+import ParallelImageTasks.ParallelImageTasks.CompleterStats;
+import ParallelImageTasks.ParallelImageTasks.ConvolutionKernel;
+import ParallelImageTasks.ParallelImageTasks.CustomFilterCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.GrayscaleCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.PixelKernel;
+import ParallelImageTasks.ParallelImageTasks.RowCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.SepiaCompleterTask;
+import ParallelImageTasks.ParallelImageTasks.TaskProgress;
+import ParallelImageTasks.ProcessingEvents.EffectEvent;
 
 /**
  * Utility class for performing various image processing operations,
  * both sequentially and in parallel using Fork/Join.
  * Now uses direct pixel manipulation for improved performance.
+ * Each call records an EffectEvent (JFR) spanning the whole effect and its latency in ProcessingMetrics.
  */
 public class ImageProcessor {
 
@@ -31,9 +41,9 @@ public class ImageProcessor {
      * @return A new BufferedImage representing the grayscale version of the input.
      */
     public static BufferedImage toGrayscaleSequential(BufferedImage originalImage) {
-        System.out.println("Starting sequential grayscale conversion...");
-        System.out.println("Original image type: " + originalImage.getType());
-        System.out.println("Original image dimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight());
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
         
         // Create a new image with the same dimensions and TYPE_INT_ARGB
         BufferedImage grayImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
@@ -44,8 +54,6 @@ public class ImageProcessor {
         int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
         int[] grayPixels = ((DataBufferInt) grayImage.getRaster().getDataBuffer()).getData();
 
-        System.out.println("Processing " + (width * height) + " pixels...");
-
         for (int i = 0; i < width * height; i++) {
             int pixel = originalPixels[i];
             int alpha = (pixel >> 24) & 0xff;
@@ -58,7 +66,8 @@ public class ImageProcessor {
             grayPixels[i] = (alpha << 24) | (avg << 16) | (avg << 8) | avg;
         }
 
-        System.out.println("Sequential grayscale conversion completed.");
+        event.finish("Grayscale", false, width, height, 1, 0, 0);
+        ProcessingMetrics.shared().recordEffect("Grayscale", "sequential", (long) width * height, System.nanoTime() - start);
         return grayImage;
     }
 
@@ -69,6 +78,9 @@ public class ImageProcessor {
      * @return A new BufferedImage representing the sepia-toned version of the input.
      */
     public static BufferedImage toSepiaSequential(BufferedImage originalImage) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
         BufferedImage sepiaImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
         int width = originalImage.getWidth();
         int height = originalImage.getHeight();
@@ -93,6 +105,8 @@ public class ImageProcessor {
 
             sepiaPixels[i] = (alpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
         }
+        event.finish("Sepia", false, width, height, 1, 0, 0);
+        ProcessingMetrics.shared().recordEffect("Sepia", "sequential", (long) width * height, System.nanoTime() - start);
         return sepiaImage;
     }
 
@@ -104,6 +118,21 @@ public class ImageProcessor {
      * @return A new BufferedImage with the filter applied.
      */
     public static BufferedImage applyCustomFilterSequential(BufferedImage originalImage, double[][] kernel) {
+        return applyCustomFilterSequential(originalImage, kernel, "Convolution");
+    }
+
+    /**
+     * Applies a custom convolution filter to an image sequentially, reporting it under the given effect name.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param kernel The convolution kernel (matrix) to apply.
+     * @param effect Effect name for the events and metrics, e.g. the display name of the filter.
+     * @return A new BufferedImage with the filter applied.
+     */
+    public static BufferedImage applyCustomFilterSequential(BufferedImage originalImage, double[][] kernel, String effect) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
         BufferedImage filteredImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
         int width = originalImage.getWidth();
         int height = originalImage.getHeight();
@@ -147,6 +176,8 @@ public class ImageProcessor {
                 filteredPixels[y * width + x] = (alpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
             }
         }
+        event.finish(effect, false, width, height, 1, 0, 0);
+        ProcessingMetrics.shared().recordEffect(effect, "sequential", (long) width * height, System.nanoTime() - start);
         return filteredImage;
     }
 
@@ -163,23 +194,22 @@ public class ImageProcessor {
      * @return A new BufferedImage representing the grayscale version.
      */
     public static BufferedImage toGrayscaleParallel(BufferedImage originalImage, int threshold, ForkJoinPool pool) {
-        System.out.println("Starting parallel grayscale conversion...");
-        System.out.println("Original image type: " + originalImage.getType());
-        System.out.println("Original image dimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight());
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
         
         BufferedImage grayImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
         int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
         int[] grayPixels = ((DataBufferInt) grayImage.getRaster().getDataBuffer()).getData();
 
-        System.out.println("Processing " + (originalImage.getWidth() * originalImage.getHeight()) + " pixels in parallel...");
-
-        System.out.println("Number of threads in ForkJoinPool: " + pool.getParallelism());
-        System.out.println("Number of processors available: " + Runtime.getRuntime().availableProcessors());
-
         GrayscaleTransformTask task = new GrayscaleTransformTask(originalPixels, grayPixels, originalImage.getWidth(), 0, originalImage.getHeight(), threshold);
+        long steals = pool.getStealCount();
         pool.invoke(task);
 
-        System.out.println("Parallel grayscale conversion completed.");
+        event.finish("Grayscale", true, originalImage.getWidth(), originalImage.getHeight(),
+                pool.getParallelism(), threshold, pool.getStealCount() - steals);
+        ProcessingMetrics.shared().recordEffect("Grayscale", "parallel", (long) originalImage.getWidth() * originalImage.getHeight(),
+                System.nanoTime() - start);
         return grayImage;
     }
 
@@ -192,23 +222,22 @@ public class ImageProcessor {
      * @return A new BufferedImage representing the sepia-toned version.
      */
     public static BufferedImage toSepiaParallel(BufferedImage originalImage, int threshold, ForkJoinPool pool) {
-        System.out.println("Starting parallel sepia conversion...");
-        System.out.println("Original image type: " + originalImage.getType());
-        System.out.println("Original image dimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight());
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
         
         BufferedImage sepiaImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
         int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
         int[] sepiaPixels = ((DataBufferInt) sepiaImage.getRaster().getDataBuffer()).getData();
 
-        System.out.println("Processing " + (originalImage.getWidth() * originalImage.getHeight()) + " pixels in parallel...");
-
-        System.out.println("Number of threads in ForkJoinPool: " + pool.getParallelism());
-        System.out.println("Number of processors available: " + Runtime.getRuntime().availableProcessors());
-
         SepiaTransformTask task = new SepiaTransformTask(originalPixels, sepiaPixels, originalImage.getWidth(), 0, originalImage.getHeight(), threshold);
+        long steals = pool.getStealCount();
         pool.invoke(task);
 
-        System.out.println("Parallel sepia conversion completed.");
+        event.finish("Sepia", true, originalImage.getWidth(), originalImage.getHeight(),
+                pool.getParallelism(), threshold, pool.getStealCount() - steals);
+        ProcessingMetrics.shared().recordEffect("Sepia", "parallel", (long) originalImage.getWidth() * originalImage.getHeight(),
+                System.nanoTime() - start);
         return sepiaImage;
     }
 
@@ -222,24 +251,341 @@ public class ImageProcessor {
      * @return A new BufferedImage with the filter applied.
      */
     public static BufferedImage applyCustomFilterParallel(BufferedImage originalImage, double[][] kernel, int threshold, ForkJoinPool pool) {
-        System.out.println("Starting parallel custom filter application...");
-        System.out.println("Original image type: " + originalImage.getType());
-        System.out.println("Original image dimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight());
+        return applyCustomFilterParallel(originalImage, kernel, threshold, pool, "Convolution");
+    }
+
+    /**
+     * Applies a custom convolution filter with the Fork/Join framework, reporting it under the given effect name.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param kernel The convolution kernel (matrix) to apply.
+     * @param threshold The minimum number of rows to process sequentially in a task.
+     * @param effect Effect name for the events and metrics, e.g. the display name of the filter.
+     * @return A new BufferedImage with the filter applied.
+     */
+    public static BufferedImage applyCustomFilterParallel(BufferedImage originalImage, double[][] kernel, int threshold,
+                                                          ForkJoinPool pool, String effect) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
         
         BufferedImage filteredImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
         int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
         int[] filteredPixels = ((DataBufferInt) filteredImage.getRaster().getDataBuffer()).getData();
 
-        System.out.println("Processing " + (originalImage.getWidth() * originalImage.getHeight()) + " pixels in parallel...");
+        CustomFilterTransformTask task = new CustomFilterTransformTask(effect, originalPixels, filteredPixels, originalImage.getWidth(), originalImage.getHeight(), 0, originalImage.getHeight(), kernel, threshold);
+        long steals = pool.getStealCount();
+        pool.invoke(task);
+
+        event.finish(effect, true, originalImage.getWidth(), originalImage.getHeight(),
+                pool.getParallelism(), threshold, pool.getStealCount() - steals);
+        ProcessingMetrics.shared().recordEffect(effect, "parallel", (long) originalImage.getWidth() * originalImage.getHeight(),
+                System.nanoTime() - start);
+        return filteredImage;
+    }
+
+    /**
+     * Converts an image to grayscale with the CountedCompleter version of the Fork/Join task.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param threshold The maximum number of rows a leaf task processes.
+     * @param stats Receives the task and steal counts, or null.
+     * @return A new BufferedImage representing the grayscale version.
+     */
+    public static BufferedImage toGrayscaleCompleter(BufferedImage originalImage, int threshold, ForkJoinPool pool, CompleterStats stats) {
+        return runCompleter("Grayscale", originalImage, threshold, pool,
+                (src, dst) -> new GrayscaleCompleterTask(src, dst, originalImage.getWidth(), 0, originalImage.getHeight(),
+                        threshold, stats != null ? stats : new CompleterStats()));
+    }
+
+    /**
+     * Converts an image to sepia tone with the CountedCompleter version of the Fork/Join task.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param threshold The maximum number of rows a leaf task processes.
+     * @param stats Receives the task and steal counts, or null.
+     * @return A new BufferedImage representing the sepia-toned version.
+     */
+    public static BufferedImage toSepiaCompleter(BufferedImage originalImage, int threshold, ForkJoinPool pool, CompleterStats stats) {
+        return runCompleter("Sepia", originalImage, threshold, pool,
+                (src, dst) -> new SepiaCompleterTask(src, dst, originalImage.getWidth(), 0, originalImage.getHeight(),
+                        threshold, stats != null ? stats : new CompleterStats()));
+    }
+
+    /**
+     * Applies a custom convolution filter with the CountedCompleter version of the Fork/Join task.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param kernel The convolution kernel (matrix) to apply.
+     * @param threshold The maximum number of rows a leaf task processes.
+     * @param stats Receives the task and steal counts, or null.
+     * @return A new BufferedImage with the filter applied.
+     */
+    public static BufferedImage applyCustomFilterCompleter(BufferedImage originalImage, double[][] kernel, int threshold,
+                                                           ForkJoinPool pool, CompleterStats stats) {
+        return applyCustomFilterCompleter(originalImage, kernel, threshold, pool, stats, "Convolution");
+    }
+
+    /**
+     * Applies a custom convolution filter with the CountedCompleter task, reporting it under the given effect name.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param kernel The convolution kernel (matrix) to apply.
+     * @param threshold The maximum number of rows a leaf task processes.
+     * @param stats Receives the task and steal counts, or null.
+     * @param effect Effect name for the events and metrics, e.g. the display name of the filter.
+     * @return A new BufferedImage with the filter applied.
+     */
+    public static BufferedImage applyCustomFilterCompleter(BufferedImage originalImage, double[][] kernel, int threshold,
+                                                           ForkJoinPool pool, CompleterStats stats, String effect) {
+        return runCompleter(effect, originalImage, threshold, pool,
+                (src, dst) -> new CustomFilterCompleterTask(effect, src, dst, originalImage.getWidth(), originalImage.getHeight(),
+                        0, originalImage.getHeight(), kernel, threshold, stats != null ? stats : new CompleterStats()));
+    }
 
-        System.out.println("Number of threads in ForkJoinPool: " + pool.getParallelism());
-        System.out.println("Number of processors available: " + Runtime.getRuntime().availableProcessors());
+    // Runs a CountedCompleter task from src to a new ARGB image of the same size on the pool
+    private static BufferedImage runCompleter(String effect, BufferedImage originalImage, int threshold, ForkJoinPool pool,
+                                              java.util.function.BiFunction<int[], int[], RowCompleterTask> taskFactory) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
+        int[] resultPixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
 
-        CustomFilterTransformTask task = new CustomFilterTransformTask(originalPixels, filteredPixels, originalImage.getWidth(), originalImage.getHeight(), 0, originalImage.getHeight(), kernel, threshold);
+        RowCompleterTask task = taskFactory.apply(originalPixels, resultPixels);
+        long steals = pool.getStealCount();
         pool.invoke(task);
 
-        System.out.println("Parallel custom filter application completed.");
-        return filteredImage;
+        event.finish(effect, true, width, height, pool.getParallelism(), threshold, pool.getStealCount() - steals);
+        ProcessingMetrics.shared().recordEffect(effect, "completer", (long) width * height, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Applies a PixelKernel to the whole image on the calling thread: the sequential baseline of applyKernel, with
+     * the same kernel code.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param effect Effect name for the JFR event and the metrics, e.g. "Sepia".
+     * @param kernel The per-pixel operation.
+     * @return A new BufferedImage with the kernel applied.
+     */
+    public static BufferedImage applyKernelSequential(BufferedImage originalImage, String effect, PixelKernel kernel) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
+        int[] resultPixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+
+        kernel.apply(originalPixels, resultPixels, width, height, 0, 0, width, height);
+
+        event.finish(effect, false, width, height, 1, 0, 0);
+        ProcessingMetrics.shared().recordEffect(effect, "sequential", (long) width * height, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Applies a PixelKernel to an image on the given execution backend. Every backend produces the same pixels;
+     * they differ only in how the rows are scheduled.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param effect Effect name for the JFR event and the metrics, e.g. "Sepia".
+     * @param kernel The per-pixel operation.
+     * @param backend How the rows are scheduled.
+     * @param threads The parallelism of the backend.
+     * @param threshold The maximum number of rows a leaf task or stream band processes.
+     * @param stats Receives the task and steal counts of the CountedCompleter backend, or null.
+     * @return A new BufferedImage with the kernel applied.
+     */
+    public static BufferedImage applyKernel(BufferedImage originalImage, String effect, PixelKernel kernel,
+                                            ExecutionBackend backend, int threads, int threshold, CompleterStats stats) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
+        int[] resultPixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+
+        // Only the Fork/Join based backends steal; the thread pool and virtual thread backends report 0 and
+        // leave the shared pool alone
+        boolean forkJoin = backend == ExecutionBackend.FORK_JOIN || backend == ExecutionBackend.COUNTED_COMPLETER
+                || backend == ExecutionBackend.PARALLEL_STREAMS;
+        ForkJoinPool pool = forkJoin ? ExecutionService.shared().cpuPool(threads) : null;
+        long steals = pool != null ? pool.getStealCount() : 0;
+        backend.run(effect, kernel, originalPixels, resultPixels, width, height, threads, threshold, stats);
+
+        event.finish(effect, true, width, height, threads, threshold, pool != null ? pool.getStealCount() - steals : 0);
+        ProcessingMetrics.shared().recordEffect(effect, backend.name().toLowerCase(java.util.Locale.ROOT),
+                (long) width * height, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Applies an effect the way the ExecutionPlanner estimates to be fastest for this image size on this machine:
+     * sequentially, vectorized, with Fork/Join row bands or in tiles.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param effect The effect to apply.
+     * @return A new BufferedImage with the effect applied.
+     */
+    public static BufferedImage applyEffect(BufferedImage originalImage, ImageEffect effect) {
+        return applyEffect(originalImage, effect,
+                ExecutionPlanner.shared().plan(effect, originalImage.getWidth(), originalImage.getHeight()));
+    }
+
+    /**
+     * Applies an effect with the given plan of the ExecutionPlanner.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param effect The effect to apply.
+     * @param plan The strategy, threads and task sizes to use.
+     * @return A new BufferedImage with the effect applied.
+     */
+    public static BufferedImage applyEffect(BufferedImage originalImage, ImageEffect effect, ExecutionPlanner.Plan plan) {
+        BufferedImage result = new BufferedImage(originalImage.getWidth(), originalImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        return applyEffect(originalImage, effect, plan, result, null);
+    }
+
+    /**
+     * Applies an effect with the given plan into an existing image, which can be displayed while it is written.
+     *
+     * @param originalImage The input BufferedImage.
+     * @param effect The effect to apply.
+     * @param plan The strategy, threads and task sizes to use.
+     * @param result A TYPE_INT_ARGB image of the same size that receives the result.
+     * @param progress Makes the run cancellable and receives the finished bands; may be null.
+     * @return result.
+     * @throws java.util.concurrent.CancellationException If progress was cancelled; result is incomplete then.
+     */
+    public static BufferedImage applyEffect(BufferedImage originalImage, ImageEffect effect, ExecutionPlanner.Plan plan,
+                                            BufferedImage result, TaskProgress progress) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
+        int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
+        int[] resultPixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+
+        ExecutionPlanner.execute(plan, effect, originalPixels, resultPixels, width, height, progress);
+        if (progress != null) {
+            progress.throwIfCancelled();
+        }
+
+        event.finish(effect.getDisplayName(), plan.threads > 1, width, height, plan.threads, plan.threshold, 0);
+        ProcessingMetrics.shared().recordEffect(effect.getDisplayName(), plan.strategy.name().toLowerCase(java.util.Locale.ROOT),
+                (long) width * height, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Returns the factor by which an image has to be reduced so that its longer side fits into maxSide.
+     *
+     * @return 1 if the image already fits.
+     */
+    public static int proxyFactor(int width, int height, int maxSide) {
+        int longerSide = Math.max(width, height);
+        return Math.max(1, (longerSide + maxSide - 1) / maxSide);
+    }
+
+    /**
+     * Creates a reduced copy of an image for previews. Every factor x factor block of pixels is averaged into one
+     * proxy pixel (a box filter), so fine detail is blended instead of aliased as with sampling; the blocks at the
+     * right and bottom edge may be smaller.
+     *
+     * @param originalImage The input BufferedImage (TYPE_INT_ARGB).
+     * @param factor The reduction factor, e.g. from {@link #proxyFactor}.
+     * @return A new TYPE_INT_ARGB image of ceil(width / factor) x ceil(height / factor) pixels, or the input itself
+     *         if factor is 1 or less.
+     */
+    public static BufferedImage createProxy(BufferedImage originalImage, int factor) {
+        if (factor <= 1) {
+            return originalImage;
+        }
+        int width = originalImage.getWidth();
+        int height = originalImage.getHeight();
+        int proxyWidth = (width + factor - 1) / factor;
+        int proxyHeight = (height + factor - 1) / factor;
+        BufferedImage proxy = new BufferedImage(proxyWidth, proxyHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] originalPixels = ((DataBufferInt) originalImage.getRaster().getDataBuffer()).getData();
+        int[] proxyPixels = ((DataBufferInt) proxy.getRaster().getDataBuffer()).getData();
+
+        // Channel sums of one row of blocks; at most 255 * factor^2 each, so ints suffice for any sensible factor
+        int[] alphaSums = new int[proxyWidth];
+        int[] redSums = new int[proxyWidth];
+        int[] greenSums = new int[proxyWidth];
+        int[] blueSums = new int[proxyWidth];
+        for (int py = 0; py < proxyHeight; py++) {
+            java.util.Arrays.fill(alphaSums, 0);
+            java.util.Arrays.fill(redSums, 0);
+            java.util.Arrays.fill(greenSums, 0);
+            java.util.Arrays.fill(blueSums, 0);
+            int y0 = py * factor;
+            int y1 = Math.min(height, y0 + factor);
+            for (int y = y0; y < y1; y++) {
+                int offset = y * width;
+                for (int px = 0; px < proxyWidth; px++) {
+                    int x1 = Math.min(width, (px + 1) * factor);
+                    int alpha = 0, red = 0, green = 0, blue = 0;
+                    for (int x = px * factor; x < x1; x++) {
+                        int pixel = originalPixels[offset + x];
+                        alpha += pixel >>> 24;
+                        red += (pixel >> 16) & 0xff;
+                        green += (pixel >> 8) & 0xff;
+                        blue += pixel & 0xff;
+                    }
+                    alphaSums[px] += alpha;
+                    redSums[px] += red;
+                    greenSums[px] += green;
+                    blueSums[px] += blue;
+                }
+            }
+            for (int px = 0; px < proxyWidth; px++) {
+                int count = (y1 - y0) * (Math.min(width, (px + 1) * factor) - px * factor);
+                proxyPixels[py * proxyWidth + px] = (alphaSums[px] / count << 24) | (redSums[px] / count << 16)
+                        | (greenSums[px] / count << 8) | blueSums[px] / count;
+            }
+        }
+        return proxy;
+    }
+
+    /**
+     * Applies an effect to a proxy from {@link #createProxy}, as a quick preview of the full-resolution result.
+     * Convolution kernels are resampled to the proxy's pixel spacing ({@link ImageEffect#getKernel(double)}), so a
+     * blur or edge filter affects the same part of the picture as it will at full resolution instead of a factor
+     * times more. Runs sequentially on the calling thread: a proxy is small enough that tasks would only add overhead.
+     *
+     * @param proxy The reduced image.
+     * @param effect The effect to apply.
+     * @param factor The factor by which the proxy was reduced.
+     * @return A new BufferedImage of the proxy's size with the effect applied.
+     */
+    public static BufferedImage applyEffectToProxy(BufferedImage proxy, ImageEffect effect, int factor) {
+        EffectEvent event = new EffectEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int width = proxy.getWidth();
+        int height = proxy.getHeight();
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] proxyPixels = ((DataBufferInt) proxy.getRaster().getDataBuffer()).getData();
+        int[] resultPixels = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+
+        PixelKernel kernel = effect.isConvolution()
+                ? new ConvolutionKernel(effect.getKernel(1.0 / factor)) : effect.pixelKernel();
+        kernel.apply(proxyPixels, resultPixels, width, height, 0, 0, width, height);
+
+        event.finish(effect.getDisplayName(), false, width, height, 1, height, 0);
+        ProcessingMetrics.shared().recordEffect(effect.getDisplayName(), "preview", (long) width * height,
+                System.nanoTime() - start);
+        return result;
     }
 
     private BufferedImage loadDefaultImage() {
@@ -0,0 +1,184 @@
+// IncrementalFrameProcessor.java
+// Re-runs an effect only on the blocks of a video frame that changed since the previous frame.
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import ParallelImageTasks.ParallelImageTasks.DirtyBlockTask;
+import ParallelImageTasks.ParallelImageTasks.PixelKernel;
+
+/**
+ * Applies a PixelKernel to a sequence of frames incrementally. Each frame is split into square blocks and
+ * the bounding box of the changed source pixels of every block is found with a row-wise comparison against the
+ * previous frame. An output block is dirty if a changed box, grown by the kernel's halo (a changed input pixel
+ * affects outputs up to radius() pixels away), overlaps it. Only the dirty blocks are recomputed, in parallel;
+ * all other blocks keep the output of the previous frame.
+ */
+public class IncrementalFrameProcessor {
+
+    private final PixelKernel kernel;
+    private final int blockSize;
+
+    private int width = -1;
+    private int height = -1;
+    private int[] previousSource; // Source pixels of the previous frame
+    private int[] output; // Output of the previous frame, updated in place
+    private int[] changedBox; // Per block: bounding box (x0, y0, x1, y1) of the changed source pixels, x0 = -1 if unchanged
+    private int[] dirtyBlocks; // Output blocks to recompute in this frame
+
+    private long framesProcessed = 0;
+    private long blocksTotal = 0;
+    private long blocksRecomputed = 0;
+
+    /**
+     * @param kernel The effect to apply.
+     * @param blockSize Block edge length in pixels (e.g. 32 or 64).
+     */
+    public IncrementalFrameProcessor(PixelKernel kernel, int blockSize) {
+        this.kernel = kernel;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Processes the next frame.
+     *
+     * @param src Source ARGB pixels of the frame (width * height).
+     * @param width Frame width.
+     * @param height Frame height.
+     * @param pool Pool for the dirty blocks, or null to process them on the calling thread.
+     * @return The output pixels; the array belongs to this processor and is overwritten by the next call.
+     */
+    public int[] process(int[] src, int width, int height, ForkJoinPool pool) {
+        int blocksPerRow = (width + blockSize - 1) / blockSize;
+        int blocksPerColumn = (height + blockSize - 1) / blockSize;
+        int blockCount = blocksPerRow * blocksPerColumn;
+        int dirtyCount;
+
+        if (width != this.width || height != this.height) {
+            // First frame or new geometry: everything is dirty
+            this.width = width;
+            this.height = height;
+            previousSource = src.clone();
+            output = new int[width * height];
+            changedBox = new int[blockCount * 4];
+            dirtyBlocks = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                dirtyBlocks[i] = i;
+            }
+            dirtyCount = blockCount;
+        } else {
+            markChangedBlocks(src, blocksPerRow, blocksPerColumn);
+            dirtyCount = collectDirtyBlocks(blocksPerRow, blocksPerColumn);
+        }
+
+        if (dirtyCount > 0) {
+            int parallelism = pool != null ? pool.getParallelism() : 1;
+            int threshold = Math.max(1, dirtyCount / (parallelism * 4));
+            DirtyBlockTask task = new DirtyBlockTask(kernel, src, output, width, height, blockSize,
+                    dirtyBlocks, 0, dirtyCount, threshold);
+            if (pool != null) {
+                pool.invoke(task);
+            } else {
+                task.invoke();
+            }
+        }
+
+        framesProcessed++;
+        blocksTotal += blockCount;
+        blocksRecomputed += dirtyCount;
+        return output;
+    }
+
+    /**
+     * Forgets the previous frame so the next call recomputes every block, and clears the statistics.
+     */
+    public void reset() {
+        width = -1;
+        height = -1;
+        framesProcessed = 0;
+        blocksTotal = 0;
+        blocksRecomputed = 0;
+    }
+
+    public long getFramesProcessed() {
+        return framesProcessed;
+    }
+
+    /**
+     * @return Fraction of all blocks (over all frames) that had to be recomputed.
+     */
+    public double getRecomputedRatio() {
+        return blocksTotal == 0 ? 0.0 : (double) blocksRecomputed / blocksTotal;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Recomputed %d of %d blocks (%.1f%%) over %d frames, %dx%d blocks, halo %d px",
+                blocksRecomputed, blocksTotal, getRecomputedRatio() * 100, framesProcessed,
+                blockSize, blockSize, kernel.radius());
+    }
+
+    // Finds the bounding box of the changed pixels of each block and copies those rows into previousSource
+    private void markChangedBlocks(int[] src, int blocksPerRow, int blocksPerColumn) {
+        for (int by = 0; by < blocksPerColumn; by++) {
+            int y0 = by * blockSize;
+            int y1 = Math.min(height, y0 + blockSize);
+            for (int bx = 0; bx < blocksPerRow; bx++) {
+                int x0 = bx * blockSize;
+                int x1 = Math.min(width, x0 + blockSize);
+                int minX = Integer.MAX_VALUE, minY = -1, maxX = -1, maxY = -1;
+                for (int y = y0; y < y1; y++) {
+                    int from = y * width + x0;
+                    int to = y * width + x1;
+                    int first = Arrays.mismatch(src, from, to, previousSource, from, to);
+                    if (first < 0) continue;
+                    int last = to - 1;
+                    while (src[last] == previousSource[last]) {
+                        last--;
+                    }
+                    minX = Math.min(minX, x0 + first);
+                    maxX = Math.max(maxX, last - y * width);
+                    if (minY < 0) minY = y;
+                    maxY = y;
+                    System.arraycopy(src, from + first, previousSource, from + first, last - from - first + 1);
+                }
+                int box = (by * blocksPerRow + bx) * 4;
+                changedBox[box] = minY < 0 ? -1 : minX;
+                changedBox[box + 1] = minY;
+                changedBox[box + 2] = maxX + 1;
+                changedBox[box + 3] = maxY + 1;
+            }
+        }
+    }
+
+    // An output block is dirty if the changed box of a nearby block, grown by the kernel radius, overlaps it
+    private int collectDirtyBlocks(int blocksPerRow, int blocksPerColumn) {
+        int radius = kernel.radius();
+        int halo = (radius + blockSize - 1) / blockSize;
+        int count = 0;
+        for (int by = 0; by < blocksPerColumn; by++) {
+            int y0 = by * blockSize;
+            int y1 = Math.min(height, y0 + blockSize);
+            for (int bx = 0; bx < blocksPerRow; bx++) {
+                int x0 = bx * blockSize;
+                int x1 = Math.min(width, x0 + blockSize);
+                boolean dirty = false;
+                for (int ny = Math.max(0, by - halo); ny <= Math.min(blocksPerColumn - 1, by + halo) && !dirty; ny++) {
+                    for (int nx = Math.max(0, bx - halo); nx <= Math.min(blocksPerRow - 1, bx + halo); nx++) {
+                        int box = (ny * blocksPerRow + nx) * 4;
+                        if (changedBox[box] >= 0
+                                && changedBox[box] - radius < x1 && changedBox[box + 2] + radius > x0
+                                && changedBox[box + 1] - radius < y1 && changedBox[box + 3] + radius > y0) {
+                            dirty = true;
+                            break;
+                        }
+                    }
+                }
+                if (dirty) {
+                    dirtyBlocks[count++] = by * blocksPerRow + bx;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,243 @@
+// IncrementalImageProcessor.java
+// Re-runs an effect chain only on the tiles of an image affected by edits since the previous run.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import ParallelImageTasks.ParallelImageTasks.DirtyBlockTask;
+import ParallelImageTasks.ParallelImageTasks.PixelKernel;
+import ParallelImageTasks.ParallelImageTasks.TaskProgress;
+
+/**
+ * Applies a chain of PixelKernels to an image that is edited between runs, keeping the output of every stage.
+ * Unlike IncrementalFrameProcessor, which finds the changes of a video frame by comparing it with the previous one,
+ * the editor reports them: {@link #markDirty} for pixels it changed (paint, region edits) and {@link #crop} when it
+ * cut the image down. On the next run, every stage recomputes only the tiles its dirty rectangles touch, each
+ * rectangle grown by the stage's kernel radius (its halo), and passes the grown rectangles on as the changed input
+ * of the next stage. After a crop the cached outputs are cut the same way; only the strips along the new edges,
+ * where the kernels now clamp to different pixels, are recomputed.
+ * <p>
+ * All methods are synchronized, so a run that is still being cancelled finishes before the next edit or run.
+ */
+public class IncrementalImageProcessor {
+
+    private final List<PixelKernel> stages;
+    private final int tileSize;
+
+    private int width = -1;
+    private int height = -1;
+    private int[][] outputs; // Output of every stage of the previous run, updated in place
+    private final List<int[]> dirtyRects = new ArrayList<>(); // Changed source rectangles (x0, y0, x1, y1) since then
+    // Edges removed by crops since the previous run: top, left, bottom, right
+    private final boolean[] croppedEdges = new boolean[4];
+
+    private long runs = 0;
+    private long tilesTotal = 0;
+    private long tilesRecomputed = 0;
+    private int lastTilesRecomputed = 0;
+
+    /**
+     * @param stages The kernels of the effect chain, applied in order.
+     * @param tileSize Tile edge length in pixels (e.g. 64).
+     */
+    public IncrementalImageProcessor(List<PixelKernel> stages, int tileSize) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("The effect chain needs at least one stage");
+        }
+        this.stages = new ArrayList<>(stages);
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Records that the source pixels in [x0, x1) x [y0, y1) were changed. Coordinates refer to the image as it is
+     * after all crops reported so far.
+     */
+    public synchronized void markDirty(int x0, int y0, int x1, int y1) {
+        dirtyRects.add(new int[] {x0, y0, x1, y1});
+    }
+
+    /**
+     * Records that the source image was cropped to the given rectangle, and crops the cached outputs and the
+     * pending dirty rectangles to match. The next source passed to {@link #process} must be the cropped image.
+     */
+    public synchronized void crop(int x, int y, int newWidth, int newHeight) {
+        if (outputs == null) {
+            return; // Nothing cached yet, the next run computes everything
+        }
+        if (x < 0 || y < 0 || newWidth <= 0 || newHeight <= 0 || x + newWidth > width || y + newHeight > height) {
+            throw new IllegalArgumentException("Crop rectangle " + newWidth + "x" + newHeight + " at " + x + "," + y
+                    + " is outside the " + width + "x" + height + " image");
+        }
+        for (int i = 0; i < outputs.length; i++) {
+            int[] cropped = new int[newWidth * newHeight];
+            for (int row = 0; row < newHeight; row++) {
+                System.arraycopy(outputs[i], (y + row) * width + x, cropped, row * newWidth, newWidth);
+            }
+            outputs[i] = cropped;
+        }
+        for (int[] rect : dirtyRects) {
+            rect[0] -= x;
+            rect[1] -= y;
+            rect[2] -= x;
+            rect[3] -= y;
+        }
+        croppedEdges[0] |= y > 0;
+        croppedEdges[1] |= x > 0;
+        croppedEdges[2] |= y + newHeight < height;
+        croppedEdges[3] |= x + newWidth < width;
+        width = newWidth;
+        height = newHeight;
+    }
+
+    /**
+     * Runs the chain on the source image.
+     *
+     * @param src Source ARGB pixels (width * height), with the edits reported since the previous run.
+     * @param width Image width.
+     * @param height Image height.
+     * @param pool Pool for the dirty tiles, or null to process them on the calling thread.
+     * @param progress Makes the run cancellable; may be null. A cancelled run leaves the outputs incomplete, so the
+     *                 next run recomputes everything.
+     * @return The output pixels of the last stage; the array belongs to this processor and is updated by the next call.
+     * @throws java.util.concurrent.CancellationException If progress was cancelled.
+     */
+    public synchronized int[] process(int[] src, int width, int height, ForkJoinPool pool, TaskProgress progress) {
+        if (progress != null) {
+            progress.throwIfCancelled(); // Superseded before it started, the cached outputs stay valid
+        }
+        int tilesPerRow = (width + tileSize - 1) / tileSize;
+        int tilesPerColumn = (height + tileSize - 1) / tileSize;
+        int tileCount = tilesPerRow * tilesPerColumn;
+
+        List<int[]> changed;
+        if (outputs == null || width != this.width || height != this.height) {
+            // First run or unknown geometry: everything is dirty
+            this.width = width;
+            this.height = height;
+            outputs = new int[stages.size()][width * height];
+            changed = new ArrayList<>();
+            changed.add(new int[] {0, 0, width, height});
+        } else {
+            changed = new ArrayList<>(dirtyRects);
+        }
+
+        lastTilesRecomputed = 0;
+        boolean[] dirty = new boolean[tileCount];
+        int[] dirtyTiles = new int[tileCount];
+        try {
+            int[] input = src;
+            for (int stage = 0; stage < stages.size(); stage++) {
+                PixelKernel kernel = stages.get(stage);
+                int radius = kernel.radius();
+                // Outputs up to radius pixels away from a changed input pixel change, and along a removed edge the
+                // clamped neighbours differ
+                List<int[]> grown = new ArrayList<>(changed.size() + 4);
+                for (int[] rect : changed) {
+                    addClipped(grown, rect[0] - radius, rect[1] - radius, rect[2] + radius, rect[3] + radius);
+                }
+                if (radius > 0) {
+                    if (croppedEdges[0]) addClipped(grown, 0, 0, width, radius);
+                    if (croppedEdges[1]) addClipped(grown, 0, 0, radius, height);
+                    if (croppedEdges[2]) addClipped(grown, 0, height - radius, width, height);
+                    if (croppedEdges[3]) addClipped(grown, width - radius, 0, width, height);
+                }
+
+                Arrays.fill(dirty, false);
+                int dirtyCount = 0;
+                for (int[] rect : grown) {
+                    for (int ty = rect[1] / tileSize; ty <= (rect[3] - 1) / tileSize; ty++) {
+                        for (int tx = rect[0] / tileSize; tx <= (rect[2] - 1) / tileSize; tx++) {
+                            int tile = ty * tilesPerRow + tx;
+                            if (!dirty[tile]) {
+                                dirty[tile] = true;
+                                dirtyTiles[dirtyCount++] = tile;
+                            }
+                        }
+                    }
+                }
+
+                if (dirtyCount > 0) {
+                    PixelKernel tracked = progress != null ? progress.track(kernel) : kernel;
+                    int parallelism = pool != null ? pool.getParallelism() : 1;
+                    int threshold = Math.max(1, dirtyCount / (parallelism * 4));
+                    DirtyBlockTask task = new DirtyBlockTask("Dirty Tiles", tracked, input, outputs[stage], width, height,
+                            tileSize, dirtyTiles, 0, dirtyCount, threshold);
+                    if (pool != null) {
+                        pool.invoke(task);
+                    } else {
+                        task.invoke();
+                    }
+                    if (progress != null) {
+                        progress.throwIfCancelled();
+                    }
+                }
+                tilesTotal += tileCount;
+                tilesRecomputed += dirtyCount;
+                lastTilesRecomputed += dirtyCount;
+                input = outputs[stage];
+                changed = grown;
+            }
+        } catch (RuntimeException e) {
+            outputs = null;
+            throw e;
+        } finally {
+            dirtyRects.clear();
+            Arrays.fill(croppedEdges, false);
+        }
+        runs++;
+        return outputs[stages.size() - 1];
+    }
+
+    // Adds the rectangle clipped to the image, unless nothing of it is left
+    private void addClipped(List<int[]> rects, int x0, int y0, int x1, int y1) {
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(width, x1);
+        y1 = Math.min(height, y1);
+        if (x0 < x1 && y0 < y1) {
+            rects.add(new int[] {x0, y0, x1, y1});
+        }
+    }
+
+    /**
+     * Forgets the cached outputs so the next call recomputes every tile, and clears the statistics.
+     */
+    public synchronized void reset() {
+        outputs = null;
+        dirtyRects.clear();
+        Arrays.fill(croppedEdges, false);
+        runs = 0;
+        tilesTotal = 0;
+        tilesRecomputed = 0;
+    }
+
+    public synchronized long getRuns() {
+        return runs;
+    }
+
+    /**
+     * @return Tiles recomputed by the last run, summed over the stages.
+     */
+    public synchronized int getLastTilesRecomputed() {
+        return lastTilesRecomputed;
+    }
+
+    /**
+     * @return Fraction of all tiles (over all runs and stages) that had to be recomputed.
+     */
+    public synchronized double getRecomputedRatio() {
+        return tilesTotal == 0 ? 0.0 : (double) tilesRecomputed / tilesTotal;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int halo = 0;
+        for (PixelKernel kernel : stages) {
+            halo += kernel.radius();
+        }
+        return String.format("Recomputed %d of %d tiles (%.1f%%) over %d runs, %d stages, %dx%d tiles, halo %d px",
+                tilesRecomputed, tilesTotal, getRecomputedRatio() * 100, runs, stages.size(), tileSize, tileSize, halo);
+    }
+}
@@ -0,0 +1,146 @@
+// LivePreviewProcessor.java
+// Applies an effect to video frames during playback and degrades resolution or frame rate to stay within the frame budget.
+
+import java.util.concurrent.ForkJoinPool;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+/**
+ * Processes frames for the live effect preview of SimpleVideoPlayer. The processing time per frame is tracked
+ * as a moving average and compared with the budget, i.e. the time until the next processed frame is due.
+ * When the average exceeds the budget the preview first halves the resolution (down to 1/MAX_SCALE) and then
+ * processes only every n-th frame; once it is well below the budget again the last step is undone.
+ * Frames go through an IncrementalFrameProcessor, so regions that did not change are not recomputed.
+ * Not thread-safe: one instance is used by the player's effect thread only.
+ */
+public class LivePreviewProcessor {
+
+    private static final int BLOCK_SIZE = 32;
+    private static final int MAX_SCALE = 4; // Smallest preview resolution is 1/MAX_SCALE of the source
+    private static final int MAX_FRAME_STEP = 4; // At most every MAX_FRAME_STEP-th frame is dropped to 1
+    private static final double AVERAGE_WEIGHT = 0.2; // Weight of the newest frame in the moving average
+    private static final int SETTLE_FRAMES = 10; // Frames measured after a change before the next downgrade
+    private static final int RECOVER_FRAMES = 60; // Frames well below the budget before an upgrade
+    private static final double RECOVER_FRACTION = 0.4; // "Well below": average under this fraction of the budget
+
+    private final ImageEffect effect;
+    private final ForkJoinPool pool;
+    private final IncrementalFrameProcessor processor;
+
+    private int scale = 1; // Resolution divisor
+    private int frameStep = 1; // Process every frameStep-th frame
+    private double averageMs = 0;
+    private int framesSinceChange = 0;
+    private byte[] bgr = new byte[0];
+    private int[] argb = new int[0];
+
+    /**
+     * @param effect The effect to preview.
+     * @param pool Pool the frame is processed on.
+     */
+    public LivePreviewProcessor(ImageEffect effect, ForkJoinPool pool) {
+        this.effect = effect;
+        this.pool = pool;
+        this.processor = new IncrementalFrameProcessor(effect.pixelKernel(), BLOCK_SIZE);
+    }
+
+    public ImageEffect getEffect() {
+        return effect;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return false if the frame is skipped to reduce the frame rate.
+     */
+    public boolean shouldProcess(int frameIndex) {
+        return frameIndex % frameStep == 0;
+    }
+
+    /**
+     * Applies the effect to a BGR frame.
+     *
+     * @param frame The decoded frame; processed in place at full resolution.
+     * @param scratch Receives the downscaled frame when the resolution is reduced.
+     * @param frameIntervalMs Time between two source frames.
+     * @return The Mat holding the result (frame or scratch).
+     */
+    public Mat process(Mat frame, Mat scratch, double frameIntervalMs) {
+        long start = System.nanoTime();
+
+        Mat target = frame;
+        if (scale > 1) {
+            Imgproc.resize(frame, scratch, new Size(frame.cols() / scale, frame.rows() / scale), 0, 0, Imgproc.INTER_AREA);
+            target = scratch;
+        }
+        int width = target.cols();
+        int height = target.rows();
+        if (argb.length != width * height) {
+            bgr = new byte[width * height * 3];
+            argb = new int[width * height];
+        }
+        target.get(0, 0, bgr);
+        VideoProcessor.bgrToArgb(bgr, argb);
+        int[] result = processor.process(argb, width, height, pool);
+        VideoProcessor.argbToBgr(result, bgr);
+        target.put(0, 0, bgr);
+
+        double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+        averageMs = framesSinceChange == 0 ? elapsedMs : averageMs + AVERAGE_WEIGHT * (elapsedMs - averageMs);
+        framesSinceChange++;
+        adapt(frameIntervalMs * frameStep);
+        return target;
+    }
+
+    /**
+     * @return Moving average of the processing time per frame in milliseconds.
+     */
+    public double getAverageMs() {
+        return averageMs;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public int getFrameStep() {
+        return frameStep;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(effect.getDisplayName()).append(String.format(" %.1f ms/frame", averageMs));
+        if (scale > 1) sb.append(", 1/").append(scale).append(" res");
+        if (frameStep > 1) sb.append(", 1/").append(frameStep).append(" frame rate");
+        return sb.toString();
+    }
+
+    private void adapt(double budgetMs) {
+        if (averageMs > budgetMs && framesSinceChange >= SETTLE_FRAMES) {
+            // Over budget: lower the resolution first, the frame rate only once the resolution is at its minimum
+            if (scale < MAX_SCALE) {
+                scale *= 2;
+            } else if (frameStep < MAX_FRAME_STEP) {
+                frameStep++;
+            } else {
+                return;
+            }
+            framesSinceChange = 0;
+            System.out.println("Live preview over budget (" + String.format("%.1f", budgetMs) + " ms): " + this);
+        } else if (averageMs < budgetMs * RECOVER_FRACTION && framesSinceChange >= RECOVER_FRAMES) {
+            // Comfortably within budget: undo the last downgrade
+            if (frameStep > 1) {
+                frameStep--;
+            } else if (scale > 1) {
+                scale /= 2;
+            } else {
+                return;
+            }
+            framesSinceChange = 0;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+// MappedFileInput.java
+// Sequential reads from a file through a sliding memory-mapped window.
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file front to back through a read-only MappedByteBuffer that is remapped in windows of
+ * WINDOW_BYTES, so files larger than 2 GB work and frames are copied straight out of the page cache.
+ */
+class MappedFileInput implements Closeable {
+
+    private static final long WINDOW_BYTES = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private long position = 0;
+
+    MappedFileInput(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        size = channel.size();
+    }
+
+    long size() {
+        return size;
+    }
+
+    long remaining() {
+        return size - position;
+    }
+
+    /**
+     * @return The next byte (0-255), or -1 at the end of the file.
+     */
+    int readByte() throws IOException {
+        if (position >= size) return -1;
+        ensureMapped(1);
+        int value = window.get() & 0xff;
+        position++;
+        return value;
+    }
+
+    /**
+     * Copies the next len bytes into dst.
+     *
+     * @return false (and nothing is read) if fewer than len bytes are left.
+     */
+    boolean read(byte[] dst, int offset, int len) throws IOException {
+        if (remaining() < len) return false;
+        ensureMapped(len);
+        window.get(dst, offset, len);
+        position += len;
+        return true;
+    }
+
+    // Maps a new window if [position, position + len) is not inside the current one
+    private void ensureMapped(int len) throws IOException {
+        if (window == null || position < windowStart || position + len > windowStart + window.limit()) {
+            windowStart = position;
+            long mapped = Math.min(Math.max(WINDOW_BYTES, len), size - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, mapped);
+        }
+        window.position((int) (position - windowStart));
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
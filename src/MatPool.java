@@ -0,0 +1,156 @@
+// MatPool.java
+// Size-keyed pool of reusable OpenCV Mats with explicit lease/recycle and native-memory accounting.
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.opencv.core.Mat;
+
+/**
+ * Pool of OpenCV Mats keyed by (rows, cols, type).
+ * Video code leases a Mat for each frame buffer and recycles it when the frame has been written
+ * or displayed, so native memory is reused or freed deterministically with {@link Mat#release()}
+ * instead of waiting for finalizers. The pool also keeps counters of outstanding (leased) and
+ * idle (pooled) Mats and their native bytes.
+ */
+public class MatPool {
+
+    private static final MatPool SHARED = new MatPool(32, 256L * 1024 * 1024);
+
+    private final int maxIdlePerKey; // Idle Mats kept per (rows, cols, type) key
+    private final long maxIdleBytes; // Upper bound for native bytes held by idle Mats
+
+    private final Map<Long, ArrayDeque<Mat>> idle = new HashMap<>();
+    private final Map<Mat, Long> leased = new IdentityHashMap<>(); // Leased Mat -> bytes at lease time
+
+    private long outstandingBytes = 0;
+    private long idleMats = 0;
+    private long idleBytes = 0;
+    private long allocations = 0;
+    private long reuses = 0;
+    private long nativeReleases = 0;
+
+    public MatPool(int maxIdlePerKey, long maxIdleBytes) {
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.maxIdleBytes = maxIdleBytes;
+    }
+
+    /**
+     * Returns the pool shared by the video processor and the video players.
+     */
+    public static MatPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Leases a Mat with the given geometry, reusing an idle one when available.
+     * The contents of a reused Mat are undefined.
+     *
+     * @param rows Number of rows (frame height).
+     * @param cols Number of columns (frame width).
+     * @param type OpenCV type, e.g. CvType.CV_8UC3.
+     * @return A Mat that must be handed back with {@link #recycle(Mat)}.
+     */
+    public synchronized Mat lease(int rows, int cols, int type) {
+        ArrayDeque<Mat> queue = idle.get(key(rows, cols, type));
+        Mat mat;
+        if (queue != null && !queue.isEmpty()) {
+            mat = queue.pop();
+            idleMats--;
+            idleBytes -= bytesOf(mat);
+            reuses++;
+        } else {
+            mat = new Mat(rows, cols, type);
+            allocations++;
+        }
+        long bytes = bytesOf(mat);
+        leased.put(mat, bytes);
+        outstandingBytes += bytes;
+        return mat;
+    }
+
+    /**
+     * Hands a leased Mat back to the pool. If the pool is full for its geometry, or the Mat was
+     * reallocated to an unusual size by an OpenCV call, its native memory is released right away.
+     * Passing null or a Mat that was not leased from this pool releases it without pooling.
+     *
+     * @param mat The Mat to recycle.
+     */
+    public synchronized void recycle(Mat mat) {
+        if (mat == null) return;
+        Long leasedBytes = leased.remove(mat);
+        if (leasedBytes == null) {
+            mat.release();
+            nativeReleases++;
+            return;
+        }
+        outstandingBytes -= leasedBytes;
+
+        long bytes = bytesOf(mat);
+        if (mat.empty() || bytes == 0 || idleBytes + bytes > maxIdleBytes) {
+            mat.release();
+            nativeReleases++;
+            return;
+        }
+        ArrayDeque<Mat> queue = idle.computeIfAbsent(key(mat.rows(), mat.cols(), mat.type()), k -> new ArrayDeque<>());
+        if (queue.size() >= maxIdlePerKey) {
+            mat.release();
+            nativeReleases++;
+            return;
+        }
+        queue.push(mat);
+        idleMats++;
+        idleBytes += bytes;
+    }
+
+    /**
+     * Releases the native memory of all idle Mats. Leased Mats are not affected.
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<Mat> queue : idle.values()) {
+            for (Mat mat : queue) {
+                mat.release();
+                nativeReleases++;
+            }
+        }
+        idle.clear();
+        idleMats = 0;
+        idleBytes = 0;
+    }
+
+    public synchronized long getOutstandingMats() {
+        return leased.size();
+    }
+
+    public synchronized long getOutstandingBytes() {
+        return outstandingBytes;
+    }
+
+    public synchronized long getIdleMats() {
+        return idleMats;
+    }
+
+    public synchronized long getIdleBytes() {
+        return idleBytes;
+    }
+
+    /**
+     * Returns a one-line summary of the native-memory counters.
+     */
+    public synchronized String getStats() {
+        return String.format("MatPool: outstanding=%d (%.1f MB), idle=%d (%.1f MB), allocations=%d, reuses=%d, native releases=%d",
+                leased.size(), outstandingBytes / (1024.0 * 1024.0),
+                idleMats, idleBytes / (1024.0 * 1024.0),
+                allocations, reuses, nativeReleases);
+    }
+
+    private static long bytesOf(Mat mat) {
+        return mat.total() * mat.elemSize();
+    }
+
+    // Packs the geometry into one key: 24 bits rows, 24 bits cols, 16 bits type
+    private static long key(int rows, int cols, int type) {
+        return ((long) rows << 40) | ((long) cols << 16) | (type & 0xffff);
+    }
+}
@@ -0,0 +1,71 @@
+// OpenCvFrameReader.java
+// FrameReader backed by OpenCV's VideoCapture (MP4, AVI, MOV, MKV, ...).
+
+import java.io.File;
+import java.io.IOException;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Decodes a video with OpenCV. Frames that are empty or do not have the geometry reported by the
+ * capture are skipped with a message, as the processing paths expect a fixed frame size.
+ */
+public class OpenCvFrameReader implements FrameReader {
+
+    private final VideoCapture cap;
+    private final Mat frame;
+    private final int width;
+    private final int height;
+    private final double fps;
+    private long framesRead = 0;
+
+    public OpenCvFrameReader(File file) throws IOException {
+        VideoIO.loadOpenCv();
+        cap = new VideoCapture(file.getAbsolutePath());
+        if (!cap.isOpened()) {
+            throw new IOException("Could not open input video: " + file.getAbsolutePath());
+        }
+        width = (int) cap.get(Videoio.CAP_PROP_FRAME_WIDTH);
+        height = (int) cap.get(Videoio.CAP_PROP_FRAME_HEIGHT);
+        fps = cap.get(Videoio.CAP_PROP_FPS);
+        frame = MatPool.shared().lease(height, width, CvType.CV_8UC3);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public double getFps() {
+        return fps;
+    }
+
+    @Override
+    public boolean read(byte[] bgr) {
+        while (cap.read(frame)) {
+            if (frame.empty()) continue;
+            if (frame.cols() != width || frame.rows() != height || frame.channels() != 3) {
+                System.err.println("Skipping frame " + framesRead + " with unexpected geometry " + frame);
+                continue;
+            }
+            frame.get(0, 0, bgr);
+            framesRead++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        MatPool.shared().recycle(frame);
+        cap.release();
+    }
+}
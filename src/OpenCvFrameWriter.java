@@ -0,0 +1,40 @@
+// OpenCvFrameWriter.java
+// FrameWriter backed by OpenCV's VideoWriter (MP4V).
+
+import java.io.File;
+import java.io.IOException;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.videoio.VideoWriter;
+
+/**
+ * Encodes frames with OpenCV's VideoWriter using the MP4V codec, as the processing paths always did.
+ */
+public class OpenCvFrameWriter implements FrameWriter {
+
+    private final VideoWriter writer;
+    private final Mat frame;
+
+    public OpenCvFrameWriter(File file, int width, int height, double fps) throws IOException {
+        VideoIO.loadOpenCv();
+        int fourcc = VideoWriter.fourcc('m','p','4','v');
+        writer = new VideoWriter(file.getAbsolutePath(), fourcc, fps, new Size(width, height), true);
+        if (!writer.isOpened()) {
+            throw new IOException("Could not create output video writer: " + file.getAbsolutePath());
+        }
+        frame = MatPool.shared().lease(height, width, CvType.CV_8UC3);
+    }
+
+    @Override
+    public void write(byte[] bgr) {
+        frame.put(0, 0, bgr);
+        writer.write(frame);
+    }
+
+    @Override
+    public void close() {
+        MatPool.shared().recycle(frame);
+        writer.release();
+    }
+}
@@ -1,14 +1,22 @@
 // ParallelImageTasks.java
-// Contains the RecursiveAction classes for parallel image processing using Fork/Join.
+// Contains the RecursiveAction and CountedCompleter classes for parallel image processing using Fork/Join.
 
 package ParallelImageTasks;
 
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountedCompleter;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
 import org.opencv.videoio.Videoio;
 
+import ParallelImageTasks.ProcessingEvents.TaskLeafEvent;
+
 /**
- * Utility class to hold all RecursiveAction implementations for parallel image processing.
+ * Utility class to hold all RecursiveAction and CountedCompleter implementations for parallel image processing.
  * This helps in organizing the Fork/Join specific tasks separately.
+ * Every leaf task records a TaskLeafEvent (JFR) with its rows, pixels and worker thread.
  */
 public class ParallelImageTasks {
 
@@ -23,195 +31,647 @@ public class ParallelImageTasks {
     }
 
     /**
-     * RecursiveAction for applying grayscale transformation to a segment of an image's pixel array.
+     * RecursiveAction that applies a PixelKernel to rows [startY, endY): it splits the rows in halves and runs both
+     * with invokeAll until at most threshold rows are left, then applies the kernel to them. The kernels hold the
+     * per-pixel arithmetic, so the same kernel can be scheduled by any backend with identical results.
      */
-    public static class GrayscaleTransformTask extends RecursiveAction {
-        private final int[] originalPixels;
-        private final int[] grayPixels;
+    public static class KernelRowTask extends RecursiveAction {
+        private final String name;
+        private final PixelKernel kernel;
+        private final int[] src;
+        private final int[] dst;
         private final int width;
+        private final int height;
         private final int startY;
         private final int endY;
         private final int threshold;
-        private static long totalOperations = 0; // Count operations
 
-        public GrayscaleTransformTask(int[] originalPixels, int[] grayPixels, int width, int startY, int endY, int threshold) {
-            this.originalPixels = originalPixels;
-            this.grayPixels = grayPixels;
+        /**
+         * @param name Task name for the TaskLeafEvent, e.g. "Grayscale".
+         */
+        public KernelRowTask(String name, PixelKernel kernel, int[] src, int[] dst, int width, int height,
+                             int startY, int endY, int threshold) {
+            this.name = name;
+            this.kernel = kernel;
+            this.src = src;
+            this.dst = dst;
             this.width = width;
+            this.height = height;
             this.startY = startY;
             this.endY = endY;
-            this.threshold = threshold;
+            this.threshold = Math.max(1, threshold);
         }
 
         @Override
         protected void compute() {
+            if (kernel.isCancelled()) {
+                return;
+            }
             int rowsToProcess = endY - startY;
 
             if (rowsToProcess <= threshold) {
-                // Process pixels directly in the assigned row range
-                for (int y = startY; y < endY; y++) {
-                    for (int x = 0; x < width; x++) {
-                        int index = y * width + x;
-                        int pixel = originalPixels[index];
-
-                        int alpha = (pixel >> 24) & 0xff;
-                        int red = (pixel >> 16) & 0xff;
-                        int green = (pixel >> 8) & 0xff;
-                        int blue = pixel & 0xff;
-
-                        // Use weighted average for better grayscale conversion
-                        int avg = (int)(0.299 * red + 0.587 * green + 0.114 * blue);
-                        grayPixels[index] = (alpha << 24) | (avg << 16) | (avg << 8) | avg;
-                        
-                        // Count operations: 3 bit shifts, 3 ANDs, 3 multiplications, 2 additions
-                        totalOperations += 11;
-                    }
-                }
-                System.out.println("Grayscale operations per pixel: 11");
-                System.out.println("Total grayscale operations: " + totalOperations);
+                TaskLeafEvent event = new TaskLeafEvent();
+                event.begin();
+                kernel.apply(src, dst, width, height, 0, startY, width, endY);
+                event.finish(name, startY, rowsToProcess, (long) rowsToProcess * width);
             } else {
                 // Split the task into two subtasks
                 int midY = startY + (rowsToProcess / 2);
-                invokeAll(new GrayscaleTransformTask(originalPixels, grayPixels, width, startY, midY, threshold),
-                          new GrayscaleTransformTask(originalPixels, grayPixels, width, midY, endY, threshold));
+                invokeAll(new KernelRowTask(name, kernel, src, dst, width, height, startY, midY, threshold),
+                          new KernelRowTask(name, kernel, src, dst, width, height, midY, endY, threshold));
             }
         }
     }
 
+    /**
+     * RecursiveAction for applying grayscale transformation to a segment of an image's pixel array.
+     */
+    public static class GrayscaleTransformTask extends KernelRowTask {
+        public GrayscaleTransformTask(int[] originalPixels, int[] grayPixels, int width, int startY, int endY, int threshold) {
+            // Point kernels never read the image height, so the end row stands in for it
+            super("Grayscale", new GrayscaleKernel(), originalPixels, grayPixels, width, endY, startY, endY, threshold);
+        }
+    }
+
     /**
      * RecursiveAction for applying sepia transformation to a segment of an image's pixel array.
      */
-    public static class SepiaTransformTask extends RecursiveAction {
-        private final int[] originalPixels;
-        private final int[] sepiaPixels;
+    public static class SepiaTransformTask extends KernelRowTask {
+        public SepiaTransformTask(int[] originalPixels, int[] sepiaPixels, int width, int startY, int endY, int threshold) {
+            super("Sepia", new SepiaKernel(), originalPixels, sepiaPixels, width, endY, startY, endY, threshold);
+        }
+    }
+
+    /**
+     * RecursiveAction for applying a custom convolution filter to a segment of an image's pixel array.
+     */
+    public static class CustomFilterTransformTask extends KernelRowTask {
+        public CustomFilterTransformTask(int[] originalPixels, int[] filteredPixels, int width, int height, int startY, int endY, double[][] kernel, int threshold) {
+            this("Convolution", originalPixels, filteredPixels, width, height, startY, endY, kernel, threshold);
+        }
+
+        /**
+         * @param name Effect name reported by the leaf events, e.g. the display name of the filter.
+         */
+        public CustomFilterTransformTask(String name, int[] originalPixels, int[] filteredPixels, int width, int height,
+                                         int startY, int endY, double[][] kernel, int threshold) {
+            super(name, new ConvolutionKernel(kernel), originalPixels, filteredPixels, width, height,
+                    startY, endY, threshold);
+        }
+    }
+
+    /**
+     * Spliterator over the row indices [startY, endY) that splits in halves down to bands of minRows rows, so a
+     * parallel stream over it hands each worker whole bands of rows.
+     */
+    public static class RowSpliterator implements Spliterator.OfInt {
+        private int startY;
+        private final int endY;
+        private final int minRows;
+
+        public RowSpliterator(int startY, int endY, int minRows) {
+            this.startY = startY;
+            this.endY = endY;
+            this.minRows = Math.max(1, minRows);
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int rows = endY - startY;
+            if (rows < 2 * minRows) return null;
+            int midY = startY + rows / 2;
+            RowSpliterator prefix = new RowSpliterator(startY, midY, minRows);
+            startY = midY;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (startY >= endY) return false;
+            action.accept(startY++);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            for (int y = startY; y < endY; y++) {
+                action.accept(y);
+            }
+            startY = endY;
+        }
+
+        @Override
+        public long estimateSize() {
+            return endY - startY;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public java.util.Comparator<? super Integer> getComparator() {
+            return null; // Natural order
+        }
+    }
+
+    /**
+     * Task and steal counts of one CountedCompleter run (root task and all its subtasks).
+     */
+    public static class CompleterStats {
+        private final LongAdder tasks = new LongAdder();
+        private final LongAdder steals = new LongAdder();
+
+        /**
+         * @return Number of tasks that ran, including the root.
+         */
+        public long getTasks() {
+            return tasks.sum();
+        }
+
+        /**
+         * @return Number of forked tasks that ran on a different worker than the one that forked them.
+         */
+        public long getSteals() {
+            return steals.sum();
+        }
+
+        public void reset() {
+            tasks.reset();
+            steals.reset();
+        }
+
+        @Override
+        public String toString() {
+            return getTasks() + " tasks, " + getSteals() + " stolen";
+        }
+    }
+
+    /**
+     * Receives the rectangles of a job that are finished. Called on the worker threads, possibly concurrently.
+     */
+    public interface RegionListener {
+        void regionCompleted(int x0, int y0, int x1, int y1);
+    }
+
+    /**
+     * Cancellation flag and progress of a processing job. A kernel wrapped with {@link #track(PixelKernel)} works
+     * through its rows in bands of {@value #BAND_ROWS}: after every band it reports the finished rectangle and
+     * before every band it checks the flag, so a cancelled job stops within one band per worker. The tasks
+     * (KernelRowTask, RowCompleterTask, DirtyBlockTask) also stop splitting once the kernel is cancelled.
+     * A child progress is cancelled together with its parent, so one job can consist of several runs.
+     */
+    public static class TaskProgress {
+        /** Rows a tracked kernel processes between two cancellation checks. */
+        public static final int BAND_ROWS = 16;
+
+        private final TaskProgress parent;
+        private final long totalPixels;
+        private final RegionListener listener;
+        private final LongAdder completedPixels = new LongAdder();
+        private volatile boolean cancelled;
+
+        /**
+         * @param totalPixels Pixels of the job, for {@link #getFraction()}.
+         * @param listener Receives every finished band; may be null.
+         */
+        public TaskProgress(long totalPixels, RegionListener listener) {
+            this(null, totalPixels, listener);
+        }
+
+        private TaskProgress(TaskProgress parent, long totalPixels, RegionListener listener) {
+            this.parent = parent;
+            this.totalPixels = totalPixels;
+            this.listener = listener;
+        }
+
+        /**
+         * @return A progress that is cancelled when this one is, for one run of this job.
+         */
+        public TaskProgress child(long totalPixels, RegionListener listener) {
+            return new TaskProgress(this, totalPixels, listener);
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled || (parent != null && parent.isCancelled());
+        }
+
+        /**
+         * @throws CancellationException If the job has been cancelled; call after a run, whose result is incomplete then.
+         */
+        public void throwIfCancelled() {
+            if (isCancelled()) {
+                throw new CancellationException("Processing was cancelled");
+            }
+        }
+
+        public long getCompletedPixels() {
+            return completedPixels.sum();
+        }
+
+        /**
+         * @return The finished part of the job, 0.0 to 1.0.
+         */
+        public double getFraction() {
+            return totalPixels > 0 ? Math.min(1.0, getCompletedPixels() / (double) totalPixels) : 0.0;
+        }
+
+        /**
+         * @return The kernel, made cancellable and reporting its finished bands to this progress.
+         */
+        public PixelKernel track(PixelKernel kernel) {
+            return new TrackedKernel(kernel, this);
+        }
+
+        void completed(int x0, int y0, int x1, int y1) {
+            completedPixels.add((long) (x1 - x0) * (y1 - y0));
+            if (listener != null) {
+                listener.regionCompleted(x0, y0, x1, y1);
+            }
+        }
+    }
+
+    // Applies a kernel band by band for a TaskProgress
+    private static class TrackedKernel implements PixelKernel {
+        private final PixelKernel kernel;
+        private final TaskProgress progress;
+
+        TrackedKernel(PixelKernel kernel, TaskProgress progress) {
+            this.kernel = kernel;
+            this.progress = progress;
+        }
+
+        @Override
+        public void apply(int[] src, int[] dst, int width, int height, int x0, int y0, int x1, int y1) {
+            for (int y = y0; y < y1 && !progress.isCancelled(); y += TaskProgress.BAND_ROWS) {
+                int bandEnd = Math.min(y1, y + TaskProgress.BAND_ROWS);
+                kernel.apply(src, dst, width, height, x0, y, x1, bandEnd);
+                progress.completed(x0, y, x1, bandEnd);
+            }
+        }
+
+        @Override
+        public int radius() {
+            return kernel.radius();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return progress.isCancelled();
+        }
+    }
+
+    /**
+     * CountedCompleter that applies a PixelKernel to rows [startY, endY). Instead of splitting into two halves and
+     * joining both (invokeAll), each task walks down its left spine: it forks the right half, keeps the left half
+     * and repeats until at most threshold rows are left, processes those rows itself and then calls
+     * propagateCompletion(). The last task to finish completes the root, so no worker ever blocks in a join.
+     * The leaves compute the same pixels as the corresponding RecursiveAction tasks.
+     */
+    public static class RowCompleterTask extends CountedCompleter<Void> {
+        private final String name;
+        private final PixelKernel kernel;
+        private final int[] src;
+        private final int[] dst;
         private final int width;
+        private final int height;
         private final int startY;
         private final int endY;
         private final int threshold;
+        private final CompleterStats stats;
+        private final Thread forkedBy; // Worker that forked this task, null for the root
 
-        public SepiaTransformTask(int[] originalPixels, int[] sepiaPixels, int width, int startY, int endY, int threshold) {
-            this.originalPixels = originalPixels;
-            this.sepiaPixels = sepiaPixels;
+        /**
+         * @param name Task name for the TaskLeafEvent, e.g. "Grayscale".
+         * @param stats Receives the task and steal counts; may be shared by several runs.
+         */
+        public RowCompleterTask(String name, PixelKernel kernel, int[] src, int[] dst, int width, int height,
+                                int startY, int endY, int threshold, CompleterStats stats) {
+            this(null, name, kernel, src, dst, width, height, startY, endY, threshold, stats, null);
+        }
+
+        private RowCompleterTask(RowCompleterTask parent, String name, PixelKernel kernel, int[] src, int[] dst,
+                                 int width, int height, int startY, int endY, int threshold, CompleterStats stats,
+                                 Thread forkedBy) {
+            super(parent);
+            this.name = name;
+            this.kernel = kernel;
+            this.src = src;
+            this.dst = dst;
             this.width = width;
+            this.height = height;
             this.startY = startY;
             this.endY = endY;
-            this.threshold = threshold;
+            this.threshold = Math.max(1, threshold);
+            this.stats = stats;
+            this.forkedBy = forkedBy;
+        }
+
+        public CompleterStats getStats() {
+            return stats;
         }
 
         @Override
-        protected void compute() {
-            int rowsToProcess = endY - startY;
+        public void compute() {
+            Thread current = Thread.currentThread();
+            stats.tasks.increment();
+            if (forkedBy != null && forkedBy != current) {
+                stats.steals.increment();
+            }
+            if (kernel.isCancelled()) {
+                propagateCompletion();
+                return;
+            }
+            int lo = startY;
+            int hi = endY;
+            while (hi - lo > threshold) {
+                int mid = lo + (hi - lo) / 2;
+                addToPendingCount(1);
+                new RowCompleterTask(this, name, kernel, src, dst, width, height, mid, hi, threshold, stats, current).fork();
+                hi = mid;
+            }
+            TaskLeafEvent event = new TaskLeafEvent();
+            event.begin();
+            kernel.apply(src, dst, width, height, 0, lo, width, hi);
+            event.finish(name, lo, hi - lo, (long) (hi - lo) * width);
+            propagateCompletion();
+        }
+    }
 
-            if (rowsToProcess <= threshold) {
-                for (int y = startY; y < endY; y++) {
-                    for (int x = 0; x < width; x++) {
-                        int index = y * width + x;
-                        int pixel = originalPixels[index];
+    /**
+     * CountedCompleter version of GrayscaleTransformTask.
+     */
+    public static class GrayscaleCompleterTask extends RowCompleterTask {
+        public GrayscaleCompleterTask(int[] originalPixels, int[] grayPixels, int width, int startY, int endY,
+                                      int threshold, CompleterStats stats) {
+            super("Grayscale", new GrayscaleKernel(), originalPixels, grayPixels, width, endY, startY, endY, threshold, stats);
+        }
+    }
 
-                        int alpha = (pixel >> 24) & 0xff;
-                        int red = (pixel >> 16) & 0xff;
-                        int green = (pixel >> 8) & 0xff;
-                        int blue = pixel & 0xff;
+    /**
+     * CountedCompleter version of SepiaTransformTask.
+     */
+    public static class SepiaCompleterTask extends RowCompleterTask {
+        public SepiaCompleterTask(int[] originalPixels, int[] sepiaPixels, int width, int startY, int endY,
+                                  int threshold, CompleterStats stats) {
+            super("Sepia", new SepiaKernel(), originalPixels, sepiaPixels, width, endY, startY, endY, threshold, stats);
+        }
+    }
+
+    /**
+     * CountedCompleter version of CustomFilterTransformTask.
+     */
+    public static class CustomFilterCompleterTask extends RowCompleterTask {
+        public CustomFilterCompleterTask(int[] originalPixels, int[] filteredPixels, int width, int height, int startY,
+                                         int endY, double[][] kernel, int threshold, CompleterStats stats) {
+            this("Convolution", originalPixels, filteredPixels, width, height, startY, endY, kernel, threshold, stats);
+        }
+
+        /**
+         * @param name Effect name reported by the leaf events, e.g. the display name of the filter.
+         */
+        public CustomFilterCompleterTask(String name, int[] originalPixels, int[] filteredPixels, int width, int height,
+                                         int startY, int endY, double[][] kernel, int threshold, CompleterStats stats) {
+            super(name, new ConvolutionKernel(kernel), originalPixels, filteredPixels, width, height,
+                    startY, endY, threshold, stats);
+        }
+    }
+
+    /**
+     * A per-pixel image operation that can be applied to any rectangle of an image.
+     * Implementations compute exactly the same pixels as the corresponding transform tasks,
+     * so a result may be assembled from independently computed rectangles.
+     */
+    public interface PixelKernel {
+        /**
+         * Writes dst for all pixels in [x0, x1) x [y0, y1), reading src (which is never modified).
+         */
+        void apply(int[] src, int[] dst, int width, int height, int x0, int y0, int x1, int y1);
+
+        /**
+         * @return How far (in pixels) an output pixel's inputs reach; 0 for point operations.
+         */
+        int radius();
+
+        /**
+         * @return true once the job of this kernel is no longer needed (see TaskProgress); tasks then stop splitting
+         *         and skip their rows. Plain kernels are never cancelled.
+         */
+        default boolean isCancelled() {
+            return false;
+        }
+    }
 
-                        int newRed = (int)(0.393 * red + 0.769 * green + 0.189 * blue);
-                        int newGreen = (int)(0.349 * red + 0.686 * green + 0.168 * blue);
-                        int newBlue = (int)(0.272 * red + 0.534 * green + 0.131 * blue);
+    /**
+     * Grayscale as a PixelKernel (same weighting as GrayscaleTransformTask).
+     */
+    public static class GrayscaleKernel implements PixelKernel {
+        @Override
+        public void apply(int[] src, int[] dst, int width, int height, int x0, int y0, int x1, int y1) {
+            for (int y = y0; y < y1; y++) {
+                for (int index = y * width + x0, end = y * width + x1; index < end; index++) {
+                    int pixel = src[index];
+                    int alpha = (pixel >> 24) & 0xff;
+                    int red = (pixel >> 16) & 0xff;
+                    int green = (pixel >> 8) & 0xff;
+                    int blue = pixel & 0xff;
+                    int avg = (int)(0.299 * red + 0.587 * green + 0.114 * blue);
+                    dst[index] = (alpha << 24) | (avg << 16) | (avg << 8) | avg;
+                }
+            }
+        }
 
-                        newRed = clampColor(newRed);
-                        newGreen = clampColor(newGreen);
-                        newBlue = clampColor(newBlue);
+        @Override
+        public int radius() {
+            return 0;
+        }
+    }
 
-                        sepiaPixels[index] = (alpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
+    /**
+     * Sepia as a PixelKernel (same coefficients as SepiaTransformTask).
+     */
+    public static class SepiaKernel implements PixelKernel {
+        @Override
+        public void apply(int[] src, int[] dst, int width, int height, int x0, int y0, int x1, int y1) {
+            for (int y = y0; y < y1; y++) {
+                for (int index = y * width + x0, end = y * width + x1; index < end; index++) {
+                    int pixel = src[index];
+                    int alpha = (pixel >> 24) & 0xff;
+                    int red = (pixel >> 16) & 0xff;
+                    int green = (pixel >> 8) & 0xff;
+                    int blue = pixel & 0xff;
+                    int newRed = clampColor((int)(0.393 * red + 0.769 * green + 0.189 * blue));
+                    int newGreen = clampColor((int)(0.349 * red + 0.686 * green + 0.168 * blue));
+                    int newBlue = clampColor((int)(0.272 * red + 0.534 * green + 0.131 * blue));
+                    dst[index] = (alpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
+                }
+            }
+        }
+
+        @Override
+        public int radius() {
+            return 0;
+        }
+    }
+
+    /**
+     * Convolution as a PixelKernel (same edge replication as CustomFilterTransformTask).
+     */
+    public static class ConvolutionKernel implements PixelKernel {
+        private final double[][] kernel;
+
+        public ConvolutionKernel(double[][] kernel) {
+            this.kernel = kernel;
+        }
+
+        @Override
+        public void apply(int[] src, int[] dst, int width, int height, int x0, int y0, int x1, int y1) {
+            int kernelWidth = kernel[0].length;
+            int kernelHeight = kernel.length;
+            int halfKernelWidth = kernelWidth / 2;
+            int halfKernelHeight = kernelHeight / 2;
+
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    double redSum = 0.0;
+                    double greenSum = 0.0;
+                    double blueSum = 0.0;
+                    int alpha = (src[y * width + x] >> 24) & 0xff;
+
+                    for (int ky = 0; ky < kernelHeight; ky++) {
+                        int pixelY = clampCoord(y + ky - halfKernelHeight, 0, height - 1);
+                        for (int kx = 0; kx < kernelWidth; kx++) {
+                            int pixelX = clampCoord(x + kx - halfKernelWidth, 0, width - 1);
+                            int neighborPixel = src[pixelY * width + pixelX];
+                            double kernelValue = kernel[ky][kx];
+
+                            redSum += ((neighborPixel >> 16) & 0xff) * kernelValue;
+                            greenSum += ((neighborPixel >> 8) & 0xff) * kernelValue;
+                            blueSum += (neighborPixel & 0xff) * kernelValue;
+                        }
                     }
+                    int newRed = clampColor((int) redSum);
+                    int newGreen = clampColor((int) greenSum);
+                    int newBlue = clampColor((int) blueSum);
+
+                    dst[y * width + x] = (alpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
+                }
+            }
+        }
+
+        @Override
+        public int radius() {
+            return Math.max(kernel.length, kernel[0].length) / 2;
+        }
+    }
+
+    // floor(n / 1000) for 0 <= n <= 255000 without a division, which C2 cannot vectorize: n / 8 / 125, with the
+    // division by 125 done as a multiply and shift that is exact in this range
+    private static int divideBy1000(int n) {
+        return ((n >> 3) * 33555) >> 22;
+    }
+
+    /**
+     * Grayscale in integer arithmetic, for SIMD execution. The loop body is only int multiplies, adds, shifts and
+     * masks on consecutive array elements, which the C2 JIT compiles to vector instructions (superword
+     * auto-vectorization); the double multiplies and double-to-int conversions of GrayscaleKernel prevent that.
+     * The weights are the exact fractions 299/1000, 587/1000 and 114/1000, so a pixel can come out one level above
+     * GrayscaleKernel's where the double sum is rounded to just below a whole number. Sepia has no such version:
+     * its nine multiplies and clamps make the loop body too large for the JIT to unroll and vectorize.
+     */
+    public static class GrayscaleVectorKernel implements PixelKernel {
+        @Override
+        public void apply(int[] src, int[] dst, int width, int height, int x0, int y0, int x1, int y1) {
+            for (int y = y0; y < y1; y++) {
+                int end = y * width + x1;
+                for (int index = y * width + x0; index < end; index++) {
+                    int pixel = src[index];
+                    int gray = divideBy1000(299 * ((pixel >> 16) & 0xff) + 587 * ((pixel >> 8) & 0xff) + 114 * (pixel & 0xff));
+                    dst[index] = (pixel & 0xff000000) | (gray << 16) | (gray << 8) | gray;
                 }
-            } else {
-                int midY = startY + (rowsToProcess / 2);
-                invokeAll(new SepiaTransformTask(originalPixels, sepiaPixels, width, startY, midY, threshold),
-                          new SepiaTransformTask(originalPixels, sepiaPixels, width, midY, endY, threshold));
             }
         }
+
+        @Override
+        public int radius() {
+            return 0;
+        }
     }
 
     /**
-     * RecursiveAction for applying a custom convolution filter to a segment of an image's pixel array.
+     * RecursiveAction that applies a PixelKernel to a list of square blocks (e.g. the blocks of a frame
+     * that changed since the previous frame). Blocks are identified by index in row-major block order.
      */
-    public static class CustomFilterTransformTask extends RecursiveAction {
-        private final int[] originalPixels;
-        private final int[] filteredPixels;
+    public static class DirtyBlockTask extends RecursiveAction {
+        private final String name;
+        private final PixelKernel kernel;
+        private final int[] src;
+        private final int[] dst;
         private final int width;
         private final int height;
-        private final int startY;
-        private final int endY;
-        private final double[][] kernel;
+        private final int blockSize;
+        private final int[] blocks;
+        private final int from;
+        private final int to;
         private final int threshold;
-        private static long totalOperations = 0; // Count operations
 
-        public CustomFilterTransformTask(int[] originalPixels, int[] filteredPixels, int width, int height, int startY, int endY, double[][] kernel, int threshold) {
-            this.originalPixels = originalPixels;
-            this.filteredPixels = filteredPixels;
+        /**
+         * @param blocks Block indices (blockRow * blocksPerRow + blockColumn); [from, to) are processed.
+         * @param threshold The minimum number of blocks to process sequentially in a task.
+         */
+        public DirtyBlockTask(PixelKernel kernel, int[] src, int[] dst, int width, int height, int blockSize,
+                              int[] blocks, int from, int to, int threshold) {
+            this("Dirty Blocks", kernel, src, dst, width, height, blockSize, blocks, from, to, threshold);
+        }
+
+        /**
+         * @param name Task name for the leaf events, e.g. "Tiles" when the blocks cover the whole image.
+         */
+        public DirtyBlockTask(String name, PixelKernel kernel, int[] src, int[] dst, int width, int height, int blockSize,
+                              int[] blocks, int from, int to, int threshold) {
+            this.name = name;
+            this.kernel = kernel;
+            this.src = src;
+            this.dst = dst;
             this.width = width;
             this.height = height;
-            this.startY = startY;
-            this.endY = endY;
-            this.kernel = kernel;
+            this.blockSize = blockSize;
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
             this.threshold = threshold;
         }
 
         @Override
         protected void compute() {
-            int rowsToProcess = endY - startY;
+            if (kernel.isCancelled()) {
+                return;
+            }
+            int blocksToProcess = to - from;
 
-            if (rowsToProcess <= threshold) {
-                int kernelWidth = kernel[0].length;
-                int kernelHeight = kernel.length;
-                int halfKernelWidth = kernelWidth / 2;
-                int halfKernelHeight = kernelHeight / 2;
-
-                for (int y = startY; y < endY; y++) {
-                    for (int x = 0; x < width; x++) {
-                        double redSum = 0.0;
-                        double greenSum = 0.0;
-                        double blueSum = 0.0;
-                        int alpha = (originalPixels[y * width + x] >> 24) & 0xff;
-
-                        for (int ky = 0; ky < kernelHeight; ky++) {
-                            for (int kx = 0; kx < kernelWidth; kx++) {
-                                int pixelX = x + kx - halfKernelWidth;
-                                int pixelY = y + ky - halfKernelHeight;
-
-                                // Boundary handling: Replicate pixels at the edges
-                                pixelX = clampCoord(pixelX, 0, width - 1);
-                                pixelY = clampCoord(pixelY, 0, height - 1);
-
-                                int neighborPixel = originalPixels[pixelY * width + pixelX];
-                                double kernelValue = kernel[ky][kx];
-
-                                redSum += ((neighborPixel >> 16) & 0xff) * kernelValue;
-                                greenSum += ((neighborPixel >> 8) & 0xff) * kernelValue;
-                                blueSum += (neighborPixel & 0xff) * kernelValue;
-                                
-                                // Count operations per kernel element:
-                                // 2 bit shifts, 2 ANDs, 1 multiplication, 1 addition
-                                totalOperations += 6;
-                            }
-                        }
-                        int newRed = clampColor((int) redSum);
-                        int newGreen = clampColor((int) greenSum);
-                        int newBlue = clampColor((int) blueSum);
-
-                        filteredPixels[y * width + x] = (alpha << 24) | (newRed << 16) | (newGreen << 8) | newBlue;
-                        
-                        // Additional operations for final pixel:
-                        // 3 bit shifts, 3 ORs, 3 type casts
-                        totalOperations += 9;
-                    }
+            if (blocksToProcess <= threshold) {
+                TaskLeafEvent event = new TaskLeafEvent();
+                event.begin();
+                int blocksPerRow = (width + blockSize - 1) / blockSize;
+                long pixels = 0;
+                for (int i = from; i < to; i++) {
+                    int x0 = (blocks[i] % blocksPerRow) * blockSize;
+                    int y0 = (blocks[i] / blocksPerRow) * blockSize;
+                    int x1 = Math.min(width, x0 + blockSize);
+                    int y1 = Math.min(height, y0 + blockSize);
+                    kernel.apply(src, dst, width, height, x0, y0, x1, y1);
+                    pixels += (long) (x1 - x0) * (y1 - y0);
                 }
-                System.out.println("Blur operations per pixel: " + (6 * kernelWidth * kernelHeight + 9));
-                System.out.println("Total blur operations: " + totalOperations);
+                event.finish(name, from, blocksToProcess, pixels);
             } else {
-                int midY = startY + (rowsToProcess / 2);
-                invokeAll(new CustomFilterTransformTask(originalPixels, filteredPixels, width, height, startY, midY, kernel, threshold),
-                          new CustomFilterTransformTask(originalPixels, filteredPixels, width, height, midY, endY, kernel, threshold));
+                int mid = from + (blocksToProcess / 2);
+                invokeAll(new DirtyBlockTask(name, kernel, src, dst, width, height, blockSize, blocks, from, mid, threshold),
+                          new DirtyBlockTask(name, kernel, src, dst, width, height, blockSize, blocks, mid, to, threshold));
             }
         }
     }
@@ -0,0 +1,186 @@
+// ProcessingEvents.java
+// Java Flight Recorder events for image loading, effects, Fork/Join leaf tasks and video frame stages.
+
+package ParallelImageTasks;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events of the application. They are disabled unless a recording enables them (see image-processing.jfc),
+ * and cost next to nothing while disabled: each event is created and begun around the work, but its fields are
+ * only filled in and committed if shouldCommit() is true, and the JIT removes the unused allocation.
+ * Usage: create the event, call begin(), do the work, then call the event's finish method.
+ */
+public final class ProcessingEvents {
+
+    private ProcessingEvents() {
+    }
+
+    // Index of the current Fork/Join worker in its pool, -1 on other threads
+    private static int workerIndex() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof ForkJoinWorkerThread ? ((ForkJoinWorkerThread) thread).getPoolIndex() : -1;
+    }
+
+    @Name("imageprocessing.ImageLoad")
+    @Label("Image Load")
+    @Category({"Image Processing", "I/O"})
+    @Description("Reading and converting an image file")
+    @StackTrace(false)
+    public static class ImageLoadEvent extends Event {
+        @Label("File")
+        String file;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("File Size")
+        @DataAmount
+        long fileSize;
+
+        public void finish(String file, int width, int height, long fileSize) {
+            if (shouldCommit()) {
+                this.file = file;
+                this.width = width;
+                this.height = height;
+                this.fileSize = fileSize;
+                commit();
+            }
+        }
+    }
+
+    @Name("imageprocessing.Effect")
+    @Label("Effect")
+    @Category({"Image Processing", "Effects"})
+    @Description("One application of an effect to a whole image, from start to end")
+    @StackTrace(false)
+    public static class EffectEvent extends Event {
+        @Label("Effect")
+        String effect;
+
+        @Label("Parallel")
+        boolean parallel;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Parallelism")
+        @Description("Pool parallelism, 1 for the sequential version")
+        int parallelism;
+
+        @Label("Threshold")
+        @Description("Rows per leaf task, 0 for the sequential version")
+        int threshold;
+
+        @Label("Steals")
+        @Description("Tasks stolen between pool workers while the effect ran (pool-wide)")
+        long steals;
+
+        public void finish(String effect, boolean parallel, int width, int height, int parallelism, int threshold, long steals) {
+            if (shouldCommit()) {
+                this.effect = effect;
+                this.parallel = parallel;
+                this.width = width;
+                this.height = height;
+                this.parallelism = parallelism;
+                this.threshold = threshold;
+                this.steals = steals;
+                commit();
+            }
+        }
+    }
+
+    @Name("imageprocessing.TaskLeaf")
+    @Label("Fork/Join Leaf")
+    @Category({"Image Processing", "Fork/Join"})
+    @Description("A RecursiveAction leaf that processed its rows (or blocks) without splitting further")
+    @StackTrace(false)
+    public static class TaskLeafEvent extends Event {
+        @Label("Task")
+        String task;
+
+        @Label("Start Row")
+        @Description("First row of the leaf, or first block index for block tasks")
+        int startRow;
+
+        @Label("Rows")
+        @Description("Rows of the leaf, or number of blocks for block tasks")
+        int rows;
+
+        @Label("Pixels")
+        long pixels;
+
+        @Label("Worker")
+        @Description("Pool index of the worker thread that ran the leaf, -1 if it ran on a non-pool thread")
+        int worker;
+
+        @Label("Queued Tasks")
+        @Description("Tasks still queued by this worker when the leaf finished")
+        int queuedTasks;
+
+        public void finish(String task, int startRow, int rows, long pixels) {
+            if (shouldCommit()) {
+                this.task = task;
+                this.startRow = startRow;
+                this.rows = rows;
+                this.pixels = pixels;
+                this.worker = workerIndex();
+                this.queuedTasks = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getQueuedTaskCount() : 0;
+                commit();
+            }
+        }
+    }
+
+    @Name("imageprocessing.VideoFrame")
+    @Label("Video Frame Stage")
+    @Category({"Image Processing", "Video"})
+    @Description("Decoding, processing or encoding one video frame")
+    @StackTrace(false)
+    public static class VideoFrameEvent extends Event {
+        public static final String DECODE = "decode";
+        public static final String PROCESS = "process";
+        public static final String ENCODE = "encode";
+
+        @Label("Stage")
+        String stage;
+
+        @Label("Frame")
+        long frame;
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Worker")
+        @Description("Pool index of the worker thread, -1 if the stage ran on a non-pool thread")
+        int worker;
+
+        public void finish(String stage, long frame, int width, int height) {
+            if (shouldCommit()) {
+                this.stage = stage;
+                this.frame = frame;
+                this.width = width;
+                this.height = height;
+                this.worker = workerIndex();
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+// PlaybackClock.java
+// Presentation clock that maps wall time to media time; one clock can drive several players.
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Media time in milliseconds that advances with System.nanoTime while running and stands still while paused.
+ * Players display each frame when the clock reaches the frame's timestamp, so decode time does not add to
+ * the frame interval. Sharing one clock between players keeps them in step (e.g. original and processed video).
+ * The clock also holds the paused state of the players it drives, so pausing or resuming any of them affects all;
+ * listeners are told about every start, pause and resume, e.g. to update the buttons of each player.
+ */
+public class PlaybackClock {
+
+    private double baseMediaMs = 0; // Media time at baseNanos
+    private long baseNanos = System.nanoTime();
+    private boolean running = false;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts (or restarts) the clock at the given media time.
+     */
+    public void start(double mediaMs) {
+        synchronized (this) {
+            baseMediaMs = mediaMs;
+            baseNanos = System.nanoTime();
+            running = true;
+        }
+        notifyListeners();
+    }
+
+    public void pause() {
+        synchronized (this) {
+            if (!running) return;
+            baseMediaMs = mediaTimeMs();
+            running = false;
+        }
+        notifyListeners();
+    }
+
+    public void resume() {
+        synchronized (this) {
+            if (running) return;
+            baseNanos = System.nanoTime();
+            running = true;
+        }
+        notifyListeners();
+    }
+
+    /**
+     * Registers a listener called (on the calling thread, outside the clock's lock) after the clock was started,
+     * paused or resumed.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return The current media time in milliseconds.
+     */
+    public synchronized double mediaTimeMs() {
+        if (!running) return baseMediaMs;
+        return baseMediaMs + (System.nanoTime() - baseNanos) / 1_000_000.0;
+    }
+}
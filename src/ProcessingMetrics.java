@@ -0,0 +1,514 @@
+// ProcessingMetrics.java
+// Live counters, gauges and latency histograms of the image and video processors, exported over JMX and HTTP.
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+
+/**
+ * Running metrics of the application. ImageProcessor records every effect run and VideoProcessor every frame
+ * stage; the hot paths only touch LongAdders, so recording is cheap even when nobody reads the values.
+ * A daemon thread samples the counters once per second to derive pixels and frames per second over the last
+ * {@value #RATE_WINDOW_SECONDS} seconds. Fork/Join pools and executors are watched through weak references, so a pool that
+ * is shut down or dropped disappears from the metrics. {@link #start()} registers the MXBean and, unless
+ * -Dmetrics.port is negative, serves the metrics in Prometheus text format on localhost (see MetricsHttpServer).
+ */
+public class ProcessingMetrics implements ProcessingMetricsMXBean {
+
+    public static final String OBJECT_NAME = "imageprocessing:type=ProcessingMetrics";
+    public static final int DEFAULT_PORT = 9404;
+
+    // Upper bounds (seconds) of the latency histogram buckets; the last bucket is +Inf
+    static final double[] LATENCY_BUCKETS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final int RATE_WINDOW_SECONDS = 5;
+
+    private static final ProcessingMetrics SHARED = new ProcessingMetrics();
+
+    private final LongAdder pixelsProcessed = new LongAdder();
+    private final LongAdder framesDecoded = new LongAdder();
+    private final LongAdder framesProcessed = new LongAdder();
+    private final LongAdder framesEncoded = new LongAdder();
+    private final AtomicInteger framesInFlight = new AtomicInteger();
+    private final AtomicLong frameBufferBytes = new AtomicLong();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>(); // Key: effect + '/' + operation
+    private final Map<String, WeakReference<ForkJoinPool>> pools = new ConcurrentHashMap<>();
+    private final Map<String, WeakReference<ThreadPoolExecutor>> executors = new ConcurrentHashMap<>();
+
+    // Ring of (time, pixels, frames) samples taken by the sampler, newest at sampleIndex
+    private final long[] sampleTimes = new long[RATE_WINDOW_SECONDS + 1];
+    private final long[] samplePixels = new long[RATE_WINDOW_SECONDS + 1];
+    private final long[] sampleFrames = new long[RATE_WINDOW_SECONDS + 1];
+    private int sampleIndex = 0;
+    private int sampleCount = 0;
+    private volatile double pixelsPerSecond = 0;
+    private volatile double framesPerSecond = 0;
+
+    private boolean started = false;
+    private MetricsHttpServer httpServer;
+
+    ProcessingMetrics() {
+    }
+
+    /**
+     * Returns the metrics recorded by ImageProcessor and VideoProcessor.
+     */
+    public static ProcessingMetrics shared() {
+        return SHARED;
+    }
+
+    /**
+     * Starts the rate sampler, registers the MXBean and starts the HTTP endpoint on the port given by
+     * -Dmetrics.port (default {@value #DEFAULT_PORT}, a negative port disables it). Failures, e.g. a port that
+     * is already in use, are reported and leave the other parts running. Calling it again has no effect.
+     */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+
+        Thread sampler = new Thread(() -> {
+            while (true) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                sample();
+            }
+        }, "metrics-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            System.err.println("Error: Could not register metrics MBean: " + e.getMessage());
+        }
+
+        int port = Integer.getInteger("metrics.port", DEFAULT_PORT);
+        if (port >= 0) {
+            try {
+                httpServer = MetricsHttpServer.start(this, port);
+                System.out.println("Metrics: http://localhost:" + httpServer.getPort() + "/metrics");
+            } catch (java.io.IOException e) {
+                System.err.println("Error: Could not start metrics endpoint on port " + port + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops the HTTP endpoint if it is running.
+     */
+    public synchronized void stopHttpServer() {
+        if (httpServer != null) {
+            httpServer.stop();
+            httpServer = null;
+        }
+    }
+
+    /**
+     * Records one run of an effect over a whole image.
+     *
+     * @param effect Display name of the effect.
+     * @param operation "sequential" or "parallel".
+     * @param pixels Pixels processed.
+     * @param nanos Duration of the run.
+     */
+    public void recordEffect(String effect, String operation, long pixels, long nanos) {
+        pixelsProcessed.add(pixels);
+        histogram(effect, operation).record(nanos);
+    }
+
+    /**
+     * Records one stage of one video frame. Processed frames count their pixels and go into the latency
+     * histogram of the effect with the operation "frame".
+     *
+     * @param stage One of the VideoFrameEvent stages (decode, process, encode).
+     * @param effect Display name of the effect for the process stage, ignored for the others.
+     */
+    public void recordFrame(String stage, String effect, long pixels, long nanos) {
+        switch (stage) {
+            case "decode":
+                framesDecoded.increment();
+                break;
+            case "encode":
+                framesEncoded.increment();
+                break;
+            default:
+                framesProcessed.increment();
+                pixelsProcessed.add(pixels);
+                histogram(effect != null ? effect : "Unknown", "frame").record(nanos);
+                break;
+        }
+    }
+
+    /**
+     * Adjusts the number of frames that have been decoded but not yet written.
+     */
+    public void addFramesInFlight(int delta) {
+        framesInFlight.addAndGet(delta);
+    }
+
+    /**
+     * Adjusts the bytes held by frame buffers (Java arrays and Mats owned by the video pipelines).
+     */
+    public void addFrameBufferBytes(long delta) {
+        frameBufferBytes.addAndGet(delta);
+    }
+
+    /**
+     * Reports the queue and steal statistics of a Fork/Join pool under the given name. Watching another pool
+     * under the same name replaces the previous one.
+     */
+    public void watchPool(String name, ForkJoinPool pool) {
+        WeakReference<ForkJoinPool> current = pools.get(name);
+        if (current == null || current.get() != pool) {
+            pools.put(name, new WeakReference<>(pool));
+        }
+    }
+
+    /**
+     * Reports the thread and queue statistics of a thread pool executor under the given name.
+     */
+    public void watchExecutor(String name, ThreadPoolExecutor executor) {
+        executors.put(name, new WeakReference<>(executor));
+    }
+
+    private LatencyHistogram histogram(String effect, String operation) {
+        return latencies.computeIfAbsent(effect + '/' + operation, key -> new LatencyHistogram(effect, operation));
+    }
+
+    // Called once per second by the sampler thread
+    private synchronized void sample() {
+        sampleIndex = (sampleIndex + 1) % sampleTimes.length;
+        sampleTimes[sampleIndex] = System.nanoTime();
+        samplePixels[sampleIndex] = pixelsProcessed.sum();
+        sampleFrames[sampleIndex] = framesProcessed.sum();
+        sampleCount = Math.min(sampleCount + 1, sampleTimes.length);
+        if (sampleCount < 2) return;
+        int oldest = (sampleIndex - sampleCount + 1 + sampleTimes.length) % sampleTimes.length;
+        double seconds = (sampleTimes[sampleIndex] - sampleTimes[oldest]) / 1e9;
+        pixelsPerSecond = Math.max(0, samplePixels[sampleIndex] - samplePixels[oldest]) / seconds;
+        framesPerSecond = Math.max(0, sampleFrames[sampleIndex] - sampleFrames[oldest]) / seconds;
+    }
+
+    // Live pools by name; cleared references are removed
+    private Map<String, ForkJoinPool> livePools() {
+        Map<String, ForkJoinPool> live = new TreeMap<>();
+        pools.forEach((name, ref) -> {
+            ForkJoinPool pool = ref.get();
+            if (pool == null || pool.isTerminated()) {
+                pools.remove(name, ref);
+            } else {
+                live.put(name, pool);
+            }
+        });
+        return live;
+    }
+
+    // Live executors by name; cleared references are removed
+    private Map<String, ThreadPoolExecutor> liveExecutors() {
+        Map<String, ThreadPoolExecutor> live = new TreeMap<>();
+        executors.forEach((name, ref) -> {
+            ThreadPoolExecutor executor = ref.get();
+            if (executor == null || executor.isTerminated()) {
+                executors.remove(name, ref);
+            } else {
+                live.put(name, executor);
+            }
+        });
+        return live;
+    }
+
+    @Override
+    public long getPixelsProcessed() {
+        return pixelsProcessed.sum();
+    }
+
+    @Override
+    public double getPixelsPerSecond() {
+        return pixelsPerSecond;
+    }
+
+    @Override
+    public long getFramesDecoded() {
+        return framesDecoded.sum();
+    }
+
+    @Override
+    public long getFramesProcessed() {
+        return framesProcessed.sum();
+    }
+
+    @Override
+    public long getFramesEncoded() {
+        return framesEncoded.sum();
+    }
+
+    @Override
+    public double getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    @Override
+    public int getFramesInFlight() {
+        return framesInFlight.get();
+    }
+
+    @Override
+    public int getPoolActiveThreads() {
+        return livePools().values().stream().mapToInt(ForkJoinPool::getActiveThreadCount).sum();
+    }
+
+    @Override
+    public long getPoolQueuedTasks() {
+        return livePools().values().stream().mapToLong(ForkJoinPool::getQueuedTaskCount).sum();
+    }
+
+    @Override
+    public int getPoolQueuedSubmissions() {
+        return livePools().values().stream().mapToInt(ForkJoinPool::getQueuedSubmissionCount).sum();
+    }
+
+    @Override
+    public long getPoolStealCount() {
+        return livePools().values().stream().mapToLong(ForkJoinPool::getStealCount).sum();
+    }
+
+    @Override
+    public int getExecutorActiveThreads() {
+        return liveExecutors().values().stream().mapToInt(ThreadPoolExecutor::getActiveCount).sum();
+    }
+
+    @Override
+    public long getExecutorQueuedTasks() {
+        return liveExecutors().values().stream().mapToLong(executor -> executor.getQueue().size()).sum();
+    }
+
+    @Override
+    public long getFrameBufferBytes() {
+        return frameBufferBytes.get();
+    }
+
+    @Override
+    public long getMatPoolOutstandingBytes() {
+        return MatPool.shared().getOutstandingBytes();
+    }
+
+    @Override
+    public long getMatPoolIdleBytes() {
+        return MatPool.shared().getIdleBytes();
+    }
+
+    @Override
+    public long getFrameCacheBytes() {
+        return FrameCache.shared().getSizeBytes();
+    }
+
+    @Override
+    public long getFrameCacheHits() {
+        return FrameCache.shared().getHits();
+    }
+
+    @Override
+    public long getFrameCacheMisses() {
+        return FrameCache.shared().getMisses();
+    }
+
+    @Override
+    public Map<String, Long> getEffectRuns() {
+        Map<String, Long> runs = new TreeMap<>();
+        latencies.forEach((key, histogram) -> runs.put(key, histogram.count.sum()));
+        return runs;
+    }
+
+    @Override
+    public Map<String, Double> getEffectLatencyMeanMs() {
+        Map<String, Double> means = new TreeMap<>();
+        latencies.forEach((key, histogram) -> {
+            long count = histogram.count.sum();
+            means.put(key, count == 0 ? 0.0 : histogram.sumNanos.sum() / 1e6 / count);
+        });
+        return means;
+    }
+
+    @Override
+    public Map<String, Double> getEffectLatencyP95Ms() {
+        Map<String, Double> p95 = new TreeMap<>();
+        latencies.forEach((key, histogram) -> p95.put(key, histogram.quantile(0.95) * 1000));
+        return p95;
+    }
+
+    @Override
+    public void reset() {
+        pixelsProcessed.reset();
+        framesDecoded.reset();
+        framesProcessed.reset();
+        framesEncoded.reset();
+        latencies.clear();
+        synchronized (this) {
+            sampleCount = 0;
+            pixelsPerSecond = 0;
+            framesPerSecond = 0;
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format (version 0.0.4).
+     */
+    public String toPrometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        metric(sb, "imageprocessing_pixels_processed_total", "counter", "Pixels processed by effects on images and video frames");
+        sample(sb, "imageprocessing_pixels_processed_total", "", getPixelsProcessed());
+        metric(sb, "imageprocessing_pixels_per_second", "gauge", "Pixels processed per second over the last " + RATE_WINDOW_SECONDS + " seconds");
+        sample(sb, "imageprocessing_pixels_per_second", "", pixelsPerSecond);
+        metric(sb, "imageprocessing_frames_total", "counter", "Video frames by pipeline stage");
+        sample(sb, "imageprocessing_frames_total", labels("stage", "decode"), getFramesDecoded());
+        sample(sb, "imageprocessing_frames_total", labels("stage", "process"), getFramesProcessed());
+        sample(sb, "imageprocessing_frames_total", labels("stage", "encode"), getFramesEncoded());
+        metric(sb, "imageprocessing_frames_per_second", "gauge", "Video frames processed per second over the last " + RATE_WINDOW_SECONDS + " seconds");
+        sample(sb, "imageprocessing_frames_per_second", "", framesPerSecond);
+        metric(sb, "imageprocessing_frames_in_flight", "gauge", "Video frames decoded but not yet written");
+        sample(sb, "imageprocessing_frames_in_flight", "", getFramesInFlight());
+
+        Map<String, ForkJoinPool> live = livePools();
+        metric(sb, "imageprocessing_forkjoin_parallelism", "gauge", "Target parallelism of the pool");
+        live.forEach((name, pool) -> sample(sb, "imageprocessing_forkjoin_parallelism", labels("pool", name), pool.getParallelism()));
+        metric(sb, "imageprocessing_forkjoin_active_threads", "gauge", "Pool threads currently stealing or running tasks");
+        live.forEach((name, pool) -> sample(sb, "imageprocessing_forkjoin_active_threads", labels("pool", name), pool.getActiveThreadCount()));
+        metric(sb, "imageprocessing_forkjoin_running_threads", "gauge", "Pool threads not blocked waiting to join tasks");
+        live.forEach((name, pool) -> sample(sb, "imageprocessing_forkjoin_running_threads", labels("pool", name), pool.getRunningThreadCount()));
+        metric(sb, "imageprocessing_forkjoin_queued_tasks", "gauge", "Tasks queued in the work queues of the pool threads");
+        live.forEach((name, pool) -> sample(sb, "imageprocessing_forkjoin_queued_tasks", labels("pool", name), pool.getQueuedTaskCount()));
+        metric(sb, "imageprocessing_forkjoin_queued_submissions", "gauge", "Tasks submitted to the pool and not yet started");
+        live.forEach((name, pool) -> sample(sb, "imageprocessing_forkjoin_queued_submissions", labels("pool", name), pool.getQueuedSubmissionCount()));
+        metric(sb, "imageprocessing_forkjoin_steals_total", "counter", "Tasks stolen from one pool thread's queue by another");
+        live.forEach((name, pool) -> sample(sb, "imageprocessing_forkjoin_steals_total", labels("pool", name), pool.getStealCount()));
+
+        Map<String, ThreadPoolExecutor> liveExecutors = liveExecutors();
+        metric(sb, "imageprocessing_executor_threads", "gauge", "Threads of the executor, by state");
+        liveExecutors.forEach((name, executor) -> {
+            sample(sb, "imageprocessing_executor_threads", labels("pool", name, "state", "active"), executor.getActiveCount());
+            sample(sb, "imageprocessing_executor_threads", labels("pool", name, "state", "total"), executor.getPoolSize());
+            sample(sb, "imageprocessing_executor_threads", labels("pool", name, "state", "max"), executor.getMaximumPoolSize());
+        });
+        metric(sb, "imageprocessing_executor_queued_tasks", "gauge", "Tasks waiting in the executor's queue");
+        liveExecutors.forEach((name, executor) -> sample(sb, "imageprocessing_executor_queued_tasks", labels("pool", name), executor.getQueue().size()));
+        metric(sb, "imageprocessing_executor_completed_tasks_total", "counter", "Tasks completed by the executor");
+        liveExecutors.forEach((name, executor) -> sample(sb, "imageprocessing_executor_completed_tasks_total", labels("pool", name), executor.getCompletedTaskCount()));
+
+        metric(sb, "imageprocessing_effect_latency_seconds", "histogram", "Duration of one effect run on an image (sequential, parallel) or video frame (frame)");
+        List<LatencyHistogram> histograms = new ArrayList<>(latencies.values());
+        histograms.sort((a, b) -> (a.effect + '/' + a.operation).compareTo(b.effect + '/' + b.operation));
+        for (LatencyHistogram histogram : histograms) {
+            histogram.writeTo(sb);
+        }
+
+        metric(sb, "imageprocessing_frame_buffer_bytes", "gauge", "Bytes held by the frame buffers of running video pipelines");
+        sample(sb, "imageprocessing_frame_buffer_bytes", "", getFrameBufferBytes());
+        metric(sb, "imageprocessing_matpool_bytes", "gauge", "Native bytes of the pooled OpenCV Mats");
+        sample(sb, "imageprocessing_matpool_bytes", labels("state", "outstanding"), getMatPoolOutstandingBytes());
+        sample(sb, "imageprocessing_matpool_bytes", labels("state", "idle"), getMatPoolIdleBytes());
+        metric(sb, "imageprocessing_frame_cache_bytes", "gauge", "Size of the decoded-frame cache on disk");
+        sample(sb, "imageprocessing_frame_cache_bytes", "", getFrameCacheBytes());
+        metric(sb, "imageprocessing_frame_cache_requests_total", "counter", "Frame cache lookups by result");
+        sample(sb, "imageprocessing_frame_cache_requests_total", labels("result", "hit"), getFrameCacheHits());
+        sample(sb, "imageprocessing_frame_cache_requests_total", labels("result", "miss"), getFrameCacheMisses());
+        return sb.toString();
+    }
+
+    private static void metric(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name).append(labels).append(' ').append(formatValue(value)).append('\n');
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    // Builds {name="value",...} from alternating names and values
+    private static String labels(String... pairs) {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(pairs[i]).append("=\"")
+                    .append(pairs[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Latency histogram of one effect and operation with the fixed buckets of LATENCY_BUCKETS.
+     */
+    private static final class LatencyHistogram {
+        final String effect;
+        final String operation;
+        final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS.length + 1]; // Non-cumulative, last is +Inf
+        final LongAdder count = new LongAdder();
+        final LongAdder sumNanos = new LongAdder();
+
+        LatencyHistogram(String effect, String operation) {
+            this.effect = effect;
+            this.operation = operation;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            double seconds = nanos / 1e9;
+            int i = 0;
+            while (i < LATENCY_BUCKETS.length && seconds > LATENCY_BUCKETS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        // Upper bound (seconds) of the bucket holding the given quantile; the largest finite bound for +Inf
+        double quantile(double q) {
+            long total = count.sum();
+            if (total == 0) return 0.0;
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+                cumulative += buckets[i].sum();
+                if (cumulative >= q * total) return LATENCY_BUCKETS[i];
+            }
+            return LATENCY_BUCKETS[LATENCY_BUCKETS.length - 1];
+        }
+
+        void writeTo(StringBuilder sb) {
+            String name = "imageprocessing_effect_latency_seconds";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < LATENCY_BUCKETS.length ? formatValue(LATENCY_BUCKETS[i]) : "+Inf";
+                sample(sb, name + "_bucket", labels("effect", effect, "operation", operation, "le", le), cumulative);
+            }
+            sample(sb, name + "_sum", labels("effect", effect, "operation", operation), sumNanos.sum() / 1e9);
+            // The +Inf bucket is the count by definition; reading count separately could race with record()
+            sample(sb, name + "_count", labels("effect", effect, "operation", operation), cumulative);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+// ProcessingMetricsMXBean.java
+// JMX view of the live processing metrics (registered as imageprocessing:type=ProcessingMetrics).
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ProcessingMetrics}. Rates are averaged over the last few seconds; Pool values are
+ * summed over all live Fork/Join pools and Executor values over all live thread pool executors; per-effect maps are keyed "effect/operation".
+ */
+public interface ProcessingMetricsMXBean {
+
+    long getPixelsProcessed();
+
+    double getPixelsPerSecond();
+
+    long getFramesDecoded();
+
+    long getFramesProcessed();
+
+    long getFramesEncoded();
+
+    double getFramesPerSecond();
+
+    int getFramesInFlight();
+
+    int getPoolActiveThreads();
+
+    long getPoolQueuedTasks();
+
+    int getPoolQueuedSubmissions();
+
+    long getPoolStealCount();
+
+    int getExecutorActiveThreads();
+
+    long getExecutorQueuedTasks();
+
+    long getFrameBufferBytes();
+
+    long getMatPoolOutstandingBytes();
+
+    long getMatPoolIdleBytes();
+
+    long getFrameCacheBytes();
+
+    long getFrameCacheHits();
+
+    long getFrameCacheMisses();
+
+    Map<String, Long> getEffectRuns();
+
+    Map<String, Double> getEffectLatencyMeanMs();
+
+    Map<String, Double> getEffectLatencyP95Ms();
+
+    /**
+     * Clears the counters and histograms; gauges (pools, buffers, caches) keep reporting their current values.
+     */
+    void reset();
+}
@@ -0,0 +1,67 @@
+// RawFrameReader.java
+// Pure-Java reader for headerless raw 8-bit RGB/BGR frame files, memory-mapped.
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads a file of consecutive uncompressed frames (width * height * 3 bytes each, as produced by
+ * "ffmpeg -f rawvideo -pix_fmt bgr24" or "rgb24"). The file has no header, so the geometry and
+ * frame rate are passed in; VideoIO takes them from the file name (e.g. "clip_1280x720@30.bgr").
+ */
+public class RawFrameReader implements FrameReader {
+
+    private final MappedFileInput input;
+    private final File file;
+    private final int width;
+    private final int height;
+    private final double fps;
+    private final boolean rgbOrder; // Pixels stored as R, G, B instead of B, G, R
+
+    public RawFrameReader(File file, int width, int height, double fps, boolean rgbOrder) throws IOException {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+        this.rgbOrder = rgbOrder;
+        input = new MappedFileInput(file);
+        long frameBytes = (long) width * height * 3;
+        if (input.size() % frameBytes != 0) {
+            System.err.println("Warning: " + file.getName() + " is not a whole number of " + width + "x" + height + " frames");
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public double getFps() {
+        return fps;
+    }
+
+    @Override
+    public boolean read(byte[] bgr) throws IOException {
+        int frameBytes = width * height * 3;
+        if (!input.read(bgr, 0, frameBytes)) return false;
+        if (rgbOrder) {
+            RawFrameWriter.swapRedBlue(bgr, bgr, frameBytes);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file.getName() + ": " + e.getMessage());
+        }
+    }
+}
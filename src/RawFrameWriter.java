@@ -0,0 +1,62 @@
+// RawFrameWriter.java
+// Pure-Java writer for headerless raw 8-bit RGB/BGR frame files through a FileChannel.
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends frames as uncompressed bytes, bit-exact with the BGR input. The file has no header; name it
+ * with the geometry (e.g. "out_1280x720@30.bgr") so VideoIO and ffmpeg's rawvideo demuxer can read it back.
+ */
+public class RawFrameWriter implements FrameWriter {
+
+    private final FileChannel channel;
+    private final File file;
+    private final boolean rgbOrder; // Store pixels as R, G, B instead of B, G, R
+    private byte[] swapped = new byte[0];
+
+    public RawFrameWriter(File file, boolean rgbOrder) throws IOException {
+        this.file = file;
+        this.rgbOrder = rgbOrder;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void write(byte[] bgr) throws IOException {
+        byte[] data = bgr;
+        if (rgbOrder) {
+            if (swapped.length != bgr.length) {
+                swapped = new byte[bgr.length];
+            }
+            swapRedBlue(bgr, swapped, bgr.length);
+            data = swapped;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    // Converts between BGR and RGB byte order; src and dst may be the same array
+    static void swapRedBlue(byte[] src, byte[] dst, int length) {
+        for (int i = 0; i < length; i += 3) {
+            byte first = src[i];
+            dst[i] = src[i + 2];
+            dst[i + 1] = src[i + 1];
+            dst[i + 2] = first;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+// ScalingAnalysis.java
+// Thread-count sweeps and the Amdahl / Gustafson scaling models fitted to their results.
+
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Helpers for scalability sweeps. In a strong-scaling sweep the problem size is fixed and the speedup is
+ * T(sequential) / T(p); Amdahl's law S(p) = 1 / (f + (1 - f) / p) is fitted to it. In a weak-scaling sweep the
+ * problem grows with the thread count (p times the work on p threads) and the scaled speedup is
+ * p * T(sequential) / T(p); Gustafson's law S(p) = p - a * (p - 1) is fitted to it. Both fits are least-squares
+ * fits of the serial fraction (f or a) over all thread counts above 1. Threads beyond the available processors
+ * share cores, so like BenchmarkRunner.Report.efficiency the models use the effective count p = min(threads, cores);
+ * otherwise the flat speedup of an oversubscribed run would be read as serial work.
+ */
+public class ScalingAnalysis {
+
+    public enum Mode {
+        STRONG("Strong"), WEAK("Weak");
+
+        private final String displayName;
+
+        Mode(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public static Mode fromDisplayName(String displayName) {
+            for (Mode mode : values()) {
+                if (mode.displayName.equals(displayName)) {
+                    return mode;
+                }
+            }
+            throw new IllegalArgumentException("Unknown scaling mode selected: " + displayName);
+        }
+    }
+
+    private ScalingAnalysis() {
+    }
+
+    /**
+     * The default sweep: powers of two up to twice the number of cores (at least 16), plus the core count
+     * and twice the core count, so the results show both the scaling up to the hardware and oversubscription.
+     */
+    public static int[] defaultThreadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int limit = Math.max(16, 2 * cores);
+        TreeSet<Integer> counts = new TreeSet<>();
+        for (int p = 1; p <= limit; p *= 2) {
+            counts.add(p);
+        }
+        counts.add(cores);
+        counts.add(2 * cores);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Parses a thread-count list such as "1,2,4,8", "1-12" or "1-8,16,32,64".
+     *
+     * @return The distinct thread counts in ascending order.
+     * @throws IllegalArgumentException If the list is empty, malformed or contains counts below 1.
+     */
+    public static int[] parseThreadCounts(String spec) {
+        TreeSet<Integer> counts = new TreeSet<>();
+        for (String part : spec.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) continue;
+            try {
+                int dash = part.indexOf('-');
+                int from = Integer.parseInt((dash < 0 ? part : part.substring(0, dash)).trim());
+                int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1).trim());
+                if (from < 1 || to < from || to > 4096) {
+                    throw new IllegalArgumentException("Invalid thread range: " + part);
+                }
+                for (int p = from; p <= to; p++) {
+                    counts.add(p);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid thread count: " + part);
+            }
+        }
+        if (counts.isEmpty()) {
+            throw new IllegalArgumentException("No thread counts given");
+        }
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Formats thread counts the way {@link #parseThreadCounts} reads them.
+     */
+    public static String formatThreadCounts(int[] counts) {
+        StringBuilder sb = new StringBuilder();
+        for (int count : counts) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(count);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The number of threads that can run at the same time: the thread count, at most the available processors.
+     */
+    public static int effectiveThreads(int threads) {
+        return Math.min(threads, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Least-squares fit of Amdahl's serial fraction. With x = 1 - 1/p and y = 1/S - 1/p the law becomes y = f * x,
+     * where p is the effective thread count.
+     *
+     * @return The serial fraction f in [0, 1], or NaN if no effective thread count is above 1.
+     */
+    public static double fitAmdahl(int[] threads, double[] speedups) {
+        double sxy = 0, sxx = 0;
+        for (int i = 0; i < threads.length; i++) {
+            int p = effectiveThreads(threads[i]);
+            if (p < 2 || !(speedups[i] > 0)) continue;
+            double x = 1 - 1.0 / p;
+            double y = 1 / speedups[i] - 1.0 / p;
+            sxy += x * y;
+            sxx += x * x;
+        }
+        return sxx == 0 ? Double.NaN : clamp(sxy / sxx);
+    }
+
+    /**
+     * Least-squares fit of Gustafson's serial fraction. With x = p - 1 and y = p - S the law becomes y = a * x,
+     * where p is the effective thread count.
+     *
+     * @return The serial fraction a in [0, 1], or NaN if no effective thread count is above 1.
+     */
+    public static double fitGustafson(int[] threads, double[] scaledSpeedups) {
+        double sxy = 0, sxx = 0;
+        for (int i = 0; i < threads.length; i++) {
+            int p = effectiveThreads(threads[i]);
+            if (p < 2) continue;
+            double x = p - 1;
+            double y = p - scaledSpeedups[i];
+            sxy += x * y;
+            sxx += x * x;
+        }
+        return sxx == 0 ? Double.NaN : clamp(sxy / sxx);
+    }
+
+    public static double amdahlSpeedup(double serialFraction, int threads) {
+        return 1 / (serialFraction + (1 - serialFraction) / threads);
+    }
+
+    public static double gustafsonSpeedup(double serialFraction, int threads) {
+        return threads - serialFraction * (threads - 1);
+    }
+
+    /**
+     * Karp-Flatt metric: the serial fraction implied by a single measured speedup. If it grows with p,
+     * the loss comes from parallel overhead (scheduling, memory bandwidth) rather than from serial code.
+     *
+     * @return The experimentally determined serial fraction, NaN for p = 1.
+     */
+    public static double karpFlatt(double speedup, int threads) {
+        if (threads < 2) return Double.NaN;
+        return (1 / speedup - 1.0 / threads) / (1 - 1.0 / threads);
+    }
+
+    /**
+     * Describes the fitted model for the given report: the serial fraction, the predicted speedup at the
+     * largest measured thread count and at 64 and 128 cores.
+     */
+    public static String describeFit(BenchmarkRunner.Report report) {
+        int[] threads = report.threadCounts();
+        double[] speedups = report.speedups();
+        StringBuilder sb = new StringBuilder();
+        if (report.mode == Mode.STRONG) {
+            double f = fitAmdahl(threads, speedups);
+            if (Double.isNaN(f)) return "Amdahl fit: needs at least one thread count above 1 on more than one core\n";
+            sb.append(String.format(Locale.ROOT, "Amdahl fit: serial fraction %.2f%%, speedup limit %s\n",
+                    f * 100, f > 0 ? String.format(Locale.ROOT, "%.1fx", 1 / f) : "unbounded"));
+            for (int p : new int[] {64, 128}) {
+                sb.append(String.format(Locale.ROOT, "  Predicted speedup on %d cores: %.1fx (efficiency %.0f%%)\n",
+                        p, amdahlSpeedup(f, p), amdahlSpeedup(f, p) / p * 100));
+            }
+        } else {
+            double a = fitGustafson(threads, speedups);
+            if (Double.isNaN(a)) return "Gustafson fit: needs at least one thread count above 1 on more than one core\n";
+            sb.append(String.format(Locale.ROOT, "Gustafson fit: serial fraction %.2f%%\n", a * 100));
+            for (int p : new int[] {64, 128}) {
+                sb.append(String.format(Locale.ROOT, "  Predicted scaled speedup on %d cores: %.1fx (efficiency %.0f%%)\n",
+                        p, gustafsonSpeedup(a, p), gustafsonSpeedup(a, p) / p * 100));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return The model's predicted time (ms) at each measured thread count, for drawing the fit over the
+     *         measurements, or null if the model cannot be fitted.
+     */
+    public static double[] fittedTimes(BenchmarkRunner.Report report) {
+        int[] threads = report.threadCounts();
+        double[] speedups = report.speedups();
+        double f = report.mode == Mode.STRONG ? fitAmdahl(threads, speedups) : fitGustafson(threads, speedups);
+        if (Double.isNaN(f)) return null;
+        double sequential = report.sequential.median();
+        double[] times = new double[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            int p = effectiveThreads(threads[i]);
+            times[i] = report.mode == Mode.STRONG
+                    ? sequential / amdahlSpeedup(f, p)
+                    : threads[i] * sequential / gustafsonSpeedup(f, p);
+        }
+        return times;
+    }
+
+    private static double clamp(double fraction) {
+        return Math.max(0.0, Math.min(1.0, fraction));
+    }
+}
@@ -1,31 +1,86 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.File;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Simple Video Player Component using OpenCV
- * Provides basic video playback with controls
+ * Provides basic video playback with controls.
+ * A decoder thread fills a bounded look-ahead queue; the presentation thread shows each frame when the
+ * PlaybackClock reaches its timestamp and drops frames that are already more than a frame interval late.
+ * With a live effect set, an effect thread between the two applies it to each frame (see LivePreviewProcessor),
+ * so frame N+1 is processed while frame N is waiting for or being displayed.
  */
 public class SimpleVideoPlayer extends JPanel {
     
-    private JLabel videoLabel;
+    private VideoFrameView videoView;
     private JButton playButton;
     private JButton pauseButton;
     private JButton stopButton;
     private JSlider progressSlider;
     private JLabel timeLabel;
     private JLabel durationLabel;
+    private JLabel statsLabel;
     private Timer frameTimer;
-    private AtomicBoolean isPlaying = new AtomicBoolean(false);
-    private AtomicBoolean isPaused = new AtomicBoolean(false);
     private File videoFile;
-    private Thread videoThread;
-    private int currentFrame = 0;
-    private int totalFrames = 0;
+    private volatile PlaybackSession session; // Current or last playback, null before the first one
+    private volatile int currentFrame = 0; // Written by the presentation thread while playing
+    private volatile int totalFrames = 0; // Estimated by the container until the index provides the exact count
     private double fps = 30.0;
-    private int frameDelay = 33; // ~30 FPS
+    private double frameIntervalMs = 1000.0 / 30; // ~30 FPS
+    
+    // Frames decoded ahead of the one on screen
+    private static final int LOOKAHEAD_FRAMES = 8;
+    // Frames shown later than this after their timestamp count as late
+    private static final double LATE_TOLERANCE_MS = 5.0;
+    
+    private final PlaybackClock ownClock = new PlaybackClock();
+    private volatile PlaybackClock clock = ownClock; // Shared with another player during side-by-side playback
+    // The paused state lives on the clock, so a shared clock paused by another player updates this one's buttons
+    private final Runnable clockListener = () -> SwingUtilities.invokeLater(this::updateButtonStates);
+    
+    // Playback statistics since the last play from a stopped state; written by the presentation thread only
+    private volatile long framesPresented = 0;
+    private volatile long framesDropped = 0;
+    private volatile long framesLate = 0;
+    
+    // Live effect preview; null effect plays the video unchanged
+    private volatile ImageEffect liveEffect;
+    private volatile ForkJoinPool livePool;
+    private volatile LivePreviewProcessor livePreview; // Current processor of the effect thread, for the stats label
+    private volatile double achievedFps = 0;
+    
+    // A decoded frame travelling from the decoder thread through the effect thread to the presentation thread
+    private static final class DecodedFrame {
+        final org.opencv.core.Mat mat = new org.opencv.core.Mat();
+        final org.opencv.core.Mat scaled = new org.opencv.core.Mat(); // Downscaled frame of the live preview
+        org.opencv.core.Mat display; // mat or scaled
+        int index;
+    }
+    
+    private static final DecodedFrame END_OF_STREAM = new DecodedFrame();
+    
+    // The threads of one playback, from play or seek until it is stopped or reaches the end. Every playback has its
+    // own stop flag, so a thread of an earlier playback never takes a later one's state for its own.
+    private static final class PlaybackSession {
+        volatile boolean stopped;
+        Thread decoder; // Decodes ahead into the look-ahead queue
+        Thread effect; // Applies the live effect between decoder and presentation
+        Thread presenter; // Presents frames
+    }
+    
+    // Persistent capture shared by seeking and playback; guarded by captureLock
+    private final Object captureLock = new Object();
+    private org.opencv.videoio.VideoCapture capture;
+    private int capturePosition = 0; // Frame number the next read() on capture returns
+    private volatile VideoIndex videoIndex; // Keyframe index, null until loaded or built
+    private boolean updatingSlider = false; // Set while the slider is moved by playback rather than the user
+    
+    // Without a keyframe index, targets at most this many frames ahead are reached by decoding forward instead of seeking
+    private static final int MAX_FORWARD_DECODE = 30;
     
     public SimpleVideoPlayer() {
         initComponents();
@@ -35,13 +90,7 @@ public class SimpleVideoPlayer extends JPanel {
         setLayout(new BorderLayout());
         
         // Video display area
-        videoLabel = new JLabel();
-        videoLabel.setPreferredSize(new Dimension(400, 300));
-        videoLabel.setHorizontalAlignment(JLabel.CENTER);
-        videoLabel.setVerticalAlignment(JLabel.CENTER);
-        videoLabel.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-        videoLabel.setBackground(Color.BLACK);
-        videoLabel.setOpaque(true);
+        videoView = new VideoFrameView();
         
         // Control panel
         JPanel controlPanel = new JPanel();
@@ -57,13 +106,14 @@ public class SimpleVideoPlayer extends JPanel {
         
         progressSlider = new JSlider(0, 100, 0);
         progressSlider.addChangeListener(e -> {
-            if (!progressSlider.getValueIsAdjusting() && videoFile != null) {
+            if (!progressSlider.getValueIsAdjusting() && videoFile != null && !updatingSlider) {
                 seekToPosition(progressSlider.getValue() / 100.0);
             }
         });
         
         timeLabel = new JLabel("00:00");
         durationLabel = new JLabel("00:00");
+        statsLabel = new JLabel(" ");
         
         controlPanel.add(playButton);
         controlPanel.add(pauseButton);
@@ -73,160 +123,441 @@ public class SimpleVideoPlayer extends JPanel {
         controlPanel.add(progressSlider);
         controlPanel.add(new JLabel("Duration:"));
         controlPanel.add(durationLabel);
+        controlPanel.add(statsLabel);
         
-        add(videoLabel, BorderLayout.CENTER);
+        add(videoView, BorderLayout.CENTER);
         add(controlPanel, BorderLayout.SOUTH);
         
         updateButtonStates();
     }
     
     public void loadVideo(File videoFile) {
-        this.videoFile = videoFile;
         stop();
+        this.videoFile = videoFile;
         
-        // Load first frame to get video info
+        // Open the capture used for all seeks and playback, and load first frame to get video info
+        openCapture();
         loadFirstFrame();
+        loadOrBuildIndex();
         
         updateButtonStates();
         updateLabels();
     }
     
+    private void openCapture() {
+        synchronized (captureLock) {
+            if (capture != null) {
+                capture.release();
+                capture = null;
+            }
+            try {
+                System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+                capture = new org.opencv.videoio.VideoCapture(videoFile.getAbsolutePath());
+                capturePosition = 0;
+                if (!capture.isOpened()) {
+                    System.err.println("Error: Could not open video file: " + videoFile.getAbsolutePath());
+                }
+            } catch (Exception e) {
+                System.err.println("Error loading video: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+    
     private void loadFirstFrame() {
         if (videoFile == null) return;
         
-        try {
-            System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
-            org.opencv.videoio.VideoCapture cap = new org.opencv.videoio.VideoCapture(videoFile.getAbsolutePath());
-            
-            if (!cap.isOpened()) {
-                System.err.println("Error: Could not open video file: " + videoFile.getAbsolutePath());
-                return;
-            }
+        synchronized (captureLock) {
+            if (capture == null || !capture.isOpened()) return;
             
             // Get video properties
-            totalFrames = (int) cap.get(org.opencv.videoio.Videoio.CAP_PROP_FRAME_COUNT);
-            fps = cap.get(org.opencv.videoio.Videoio.CAP_PROP_FPS);
+            totalFrames = (int) capture.get(org.opencv.videoio.Videoio.CAP_PROP_FRAME_COUNT);
+            fps = capture.get(org.opencv.videoio.Videoio.CAP_PROP_FPS);
             if (fps <= 0) fps = 30.0; // Default FPS
-            frameDelay = (int) (1000.0 / fps);
-            
-            // Read first frame
-            org.opencv.core.Mat frame = new org.opencv.core.Mat();
-            if (cap.read(frame) && !frame.empty()) {
-                displayFrame(frame);
+            frameIntervalMs = 1000.0 / fps;
+        }
+        
+        // Read first frame
+        org.opencv.core.Mat frame = new org.opencv.core.Mat();
+        if (readFrameAt(0, frame)) {
+            displayFrame(frame);
+        }
+        frame.release();
+    }
+    
+    // Uses the sidecar index if it is still valid, otherwise builds it in the background
+    private void loadOrBuildIndex() {
+        File file = videoFile;
+        VideoIndex loaded = VideoIndex.load(file);
+        if (loaded != null) {
+            useIndex(loaded);
+            return;
+        }
+        
+        ExecutionService.shared().ioPool().execute(() -> {
+            VideoIndex built = VideoIndex.build(file);
+            if (built != null) {
+                built.save(file);
+                SwingUtilities.invokeLater(() -> {
+                    if (file.equals(videoFile)) {
+                        useIndex(built);
+                    }
+                });
             }
+        });
+    }
+    
+    // Seeks through the index from now on and replaces the frame count estimated by CAP_PROP_FRAME_COUNT with
+    // the exact one
+    private void useIndex(VideoIndex index) {
+        videoIndex = index;
+        if (index.getFrameCount() > 0) {
+            totalFrames = index.getFrameCount();
+            durationLabel.setText(formatTime((long) (totalFrames / fps * 1000)));
+        }
+    }
+    
+    /**
+     * Reads the given frame from the persistent capture. Targets shortly after the current position are
+     * reached by decoding forward; otherwise the capture seeks to the nearest keyframe at or before the
+     * target (from the index) and decodes forward from there.
+     */
+    private boolean readFrameAt(int target, org.opencv.core.Mat frame) {
+        synchronized (captureLock) {
+            if (capture == null || !capture.isOpened()) return false;
             
-            cap.release();
+            if (target != capturePosition) {
+                VideoIndex index = videoIndex;
+                boolean indexed = index != null && index.hasKeyframes();
+                int keyframe = indexed ? index.keyframeAtOrBefore(target) : target;
+                // Decoding forward is cheapest if no keyframe lies between the current position and the target
+                boolean decodeForward = target > capturePosition
+                        && (indexed ? capturePosition >= keyframe : target - capturePosition <= MAX_FORWARD_DECODE);
+                if (!decodeForward) {
+                    capture.set(org.opencv.videoio.Videoio.CAP_PROP_POS_FRAMES, keyframe);
+                    capturePosition = keyframe;
+                }
+                while (capturePosition < target && capture.grab()) {
+                    capturePosition++;
+                }
+            }
             
-        } catch (Exception e) {
-            System.err.println("Error loading video: " + e.getMessage());
-            e.printStackTrace();
+            if (!capture.read(frame)) return false;
+            capturePosition++;
+            return !frame.empty();
         }
     }
     
     public void play() {
         if (videoFile == null) return;
         
-        if (isPaused.get()) {
-            isPaused.set(false);
-            updateButtonStates();
+        if (isPaused()) {
+            // Resumes every player on the clock, including one this player shares
+            clock.resume();
             return;
         }
+        if (isPlaying()) return;
+        
+        // Play from the current position (e.g. after a seek), or from the start once the end was reached
+        int startFrame = (totalFrames > 0 && currentFrame >= totalFrames) ? 0 : currentFrame;
+        stopPlayback(); // Stop any existing playback
+        currentFrame = startFrame;
         
-        stop(); // Stop any existing playback
+        // Playing this player on its own after it stopped detaches it from a shared clock
+        setClock(ownClock);
+        clock.start(startFrame * frameIntervalMs);
+        startPlayback();
+    }
+    
+    /**
+     * Plays from the first frame driven by the given clock instead of the player's own one.
+     * Every player given the same clock shows the frame with the same timestamp at the same time;
+     * the caller starts the clock once all players are set up, and pausing any of them pauses all.
+     */
+    public void playWithClock(PlaybackClock sharedClock) {
+        if (videoFile == null) return;
+        
+        stopPlayback();
+        currentFrame = 0;
+        setClock(sharedClock);
+        startPlayback();
+    }
+    
+    private void setClock(PlaybackClock newClock) {
+        clock.removeListener(clockListener);
+        clock = newClock;
+        newClock.addListener(clockListener);
+    }
+    
+    private boolean isPlaying() {
+        PlaybackSession current = session;
+        return current != null && !current.stopped;
+    }
+    
+    /**
+     * @return true if the player is playing but its clock, possibly shared with another player, is paused.
+     */
+    private boolean isPaused() {
+        return isPlaying() && !clock.isRunning();
+    }
+    
+    /**
+     * Applies the effect to every frame as it is played, instead of playing a processed file.
+     * Takes effect with the next frame, so the effect can be changed while playing.
+     *
+     * @param effect The effect, or null to play the video unchanged.
+     * @param pool The pool the frames are processed on (shared with other work).
+     */
+    public void setLiveEffect(ImageEffect effect, ForkJoinPool pool) {
+        liveEffect = effect;
+        livePool = pool;
+        if (effect == null) {
+            livePreview = null;
+        }
+    }
+    
+    private void startPlayback() {
+        if (currentFrame == 0) {
+            framesPresented = 0;
+            framesDropped = 0;
+            framesLate = 0;
+        }
+        achievedFps = 0;
         
-        isPlaying.set(true);
+        PlaybackSession playback = new PlaybackSession();
+        session = playback;
         updateButtonStates();
         
-        videoThread = new Thread(() -> {
+        DecodedFrame[] frames = new DecodedFrame[LOOKAHEAD_FRAMES + 3];
+        BlockingQueue<DecodedFrame> freeFrames = new ArrayBlockingQueue<>(frames.length);
+        BlockingQueue<DecodedFrame> decodedFrames = new ArrayBlockingQueue<>(LOOKAHEAD_FRAMES + 1);
+        BlockingQueue<DecodedFrame> readyFrames = new ArrayBlockingQueue<>(2);
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new DecodedFrame();
+            freeFrames.add(frames[i]);
+        }
+        int firstFrame = currentFrame;
+        
+        playback.decoder = new Thread(() -> {
+            int next = firstFrame;
             try {
-                System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
-                org.opencv.videoio.VideoCapture cap = new org.opencv.videoio.VideoCapture(videoFile.getAbsolutePath());
-                
-                if (!cap.isOpened()) {
-                    System.err.println("Error: Could not open video file: " + videoFile.getAbsolutePath());
-                    return;
+                while (!playback.stopped) {
+                    DecodedFrame slot = freeFrames.take();
+                    if (!readFrameAt(next, slot.mat)) {
+                        decodedFrames.put(END_OF_STREAM);
+                        break;
+                    }
+                    slot.index = next++;
+                    decodedFrames.put(slot);
                 }
-                
-                org.opencv.core.Mat frame = new org.opencv.core.Mat();
-                currentFrame = 0;
-                
-                while (isPlaying.get() && cap.read(frame)) {
-                    if (!frame.empty()) {
-                        final org.opencv.core.Mat frameCopy = frame.clone();
-                        SwingUtilities.invokeLater(() -> {
-                            displayFrame(frameCopy);
-                            updateProgress();
-                        });
-                        
-                        currentFrame++;
-                        
-                        // Check for pause
-                        while (isPaused.get() && isPlaying.get()) {
-                            try { Thread.sleep(100); } catch (InterruptedException e) { break; }
+            } catch (InterruptedException e) {
+                // Playback stopped
+            } catch (Exception e) {
+                System.err.println("Error decoding video: " + e.getMessage());
+                e.printStackTrace();
+                decodedFrames.offer(END_OF_STREAM);
+            }
+        }, "video-decoder");
+        
+        playback.effect = new Thread(() -> {
+            LivePreviewProcessor preview = null;
+            try {
+                while (true) {
+                    DecodedFrame decoded = decodedFrames.take();
+                    if (decoded == END_OF_STREAM) {
+                        readyFrames.put(decoded);
+                        break;
+                    }
+                    decoded.display = decoded.mat;
+                    
+                    ImageEffect effect = liveEffect;
+                    ForkJoinPool pool = livePool;
+                    if (effect == null) {
+                        preview = null;
+                    } else {
+                        if (preview == null || preview.getEffect() != effect || preview.getPool() != pool) {
+                            preview = new LivePreviewProcessor(effect, pool);
+                            livePreview = preview;
                         }
-                        
-                        try { Thread.sleep(frameDelay); } catch (InterruptedException e) { break; }
+                        // Over budget even at the lowest resolution: lower the frame rate
+                        if (!preview.shouldProcess(decoded.index)) {
+                            freeFrames.put(decoded);
+                            continue;
+                        }
+                        decoded.display = preview.process(decoded.mat, decoded.scaled, frameIntervalMs);
                     }
+                    readyFrames.put(decoded);
                 }
-                
-                cap.release();
-                
-                SwingUtilities.invokeLater(() -> {
-                    isPlaying.set(false);
-                    updateButtonStates();
-                });
-                
+            } catch (InterruptedException e) {
+                // Playback stopped
+            } catch (Exception e) {
+                System.err.println("Error in live effect: " + e.getMessage());
+                e.printStackTrace();
+                readyFrames.offer(END_OF_STREAM);
+            }
+        }, "video-effect");
+        
+        playback.presenter = new Thread(() -> {
+            Thread self = Thread.currentThread();
+            long fpsWindowStart = System.nanoTime();
+            long fpsWindowFrames = 0;
+            try {
+                while (!playback.stopped) {
+                    DecodedFrame decoded = readyFrames.take();
+                    if (decoded == END_OF_STREAM) break;
+                    
+                    double due = decoded.index * frameIntervalMs;
+                    
+                    // Too late to be worth showing: skip it if the next frame is already decoded
+                    DecodedFrame following = readyFrames.peek();
+                    if (clock.mediaTimeMs() - due > frameIntervalMs && following != null && following != END_OF_STREAM) {
+                        framesDropped++;
+                        currentFrame = decoded.index + 1;
+                        freeFrames.put(decoded);
+                        continue;
+                    }
+                    
+                    // Wait for the frame's timestamp; a paused clock holds the frame here
+                    double wait;
+                    while ((wait = due - clock.mediaTimeMs()) > 0 && !playback.stopped && !self.isInterrupted()) {
+                        LockSupport.parkNanos((long) (Math.min(wait, 20.0) * 1_000_000));
+                    }
+                    if (playback.stopped || self.isInterrupted()) break;
+                    if (clock.mediaTimeMs() - due > LATE_TOLERANCE_MS) {
+                        framesLate++;
+                    }
+                    
+                    // Copied straight into a reusable display buffer, so the Mat can be decoded into again
+                    displayFrame(decoded.display);
+                    framesPresented++;
+                    fpsWindowFrames++;
+                    long now = System.nanoTime();
+                    if (now - fpsWindowStart >= 1_000_000_000L) {
+                        achievedFps = fpsWindowFrames * 1e9 / (now - fpsWindowStart);
+                        fpsWindowStart = now;
+                        fpsWindowFrames = 0;
+                    }
+                    currentFrame = decoded.index + 1;
+                    freeFrames.put(decoded);
+                    SwingUtilities.invokeLater(this::updateProgress);
+                }
+            } catch (InterruptedException e) {
+                // Playback stopped
             } catch (Exception e) {
                 System.err.println("Error playing video: " + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                playback.stopped = true;
+                playback.decoder.interrupt();
+                playback.effect.interrupt();
+                awaitThread(playback.decoder);
+                awaitThread(playback.effect);
+                for (DecodedFrame frame : frames) {
+                    frame.mat.release();
+                    frame.scaled.release();
+                }
+                System.out.println("Playback of " + videoFile.getName() + ": " + framesPresented + " frames presented, "
+                        + framesDropped + " dropped, " + framesLate + " late");
+                
                 SwingUtilities.invokeLater(() -> {
-                    isPlaying.set(false);
-                    updateButtonStates();
+                    // Only if no newer playback was started in the meantime
+                    if (session == playback) {
+                        updateButtonStates();
+                        updateProgress();
+                    }
                 });
             }
-        });
+        }, "video-presenter");
         
-        videoThread.start();
+        playback.decoder.start();
+        playback.effect.start();
+        playback.presenter.start();
+    }
+    
+    // Waits until the thread has exited, even if the waiting thread is interrupted; the interrupt is restored afterwards
+    private static void awaitThread(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
     }
     
     public void pause() {
-        isPaused.set(true);
-        updateButtonStates();
+        // Pauses every player on the clock; the listener updates the buttons
+        clock.pause();
+    }
+    
+    public long getFramesPresented() {
+        return framesPresented;
+    }
+    
+    /**
+     * @return Frames skipped because they were decoded more than a frame interval after their timestamp.
+     */
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+    
+    /**
+     * @return Frames shown, but later than the tolerance after their timestamp.
+     */
+    public long getFramesLate() {
+        return framesLate;
     }
     
     public void stop() {
-        isPlaying.set(false);
-        isPaused.set(false);
+        stopPlayback();
         currentFrame = 0;
-        
-        if (videoThread != null && videoThread.isAlive()) {
-            videoThread.interrupt();
+        updateProgress();
+    }
+    
+    // Stops the playback threads without rewinding and waits until they have exited, so none of them still reads
+    // the capture or fills the queues when the next playback or seek starts
+    private void stopPlayback() {
+        PlaybackSession playback = session;
+        if (playback != null) {
+            playback.stopped = true;
+            // Wakes the threads blocked on a queue or waiting for a frame's timestamp
+            playback.presenter.interrupt();
+            playback.effect.interrupt();
+            playback.decoder.interrupt();
+            Thread self = Thread.currentThread();
+            for (Thread thread : new Thread[] {playback.presenter, playback.effect, playback.decoder}) {
+                if (thread != self) {
+                    awaitThread(thread);
+                }
+            }
         }
         
         updateButtonStates();
-        updateProgress();
     }
     
     private void seekToPosition(double position) {
         if (videoFile == null) return;
         
-        stop();
-        currentFrame = (int) (position * totalFrames);
+        stopPlayback();
+        int target = (int) (position * totalFrames);
+        if (totalFrames > 0) {
+            target = Math.min(target, totalFrames - 1);
+        }
         
-        // Load frame at position
+        // Load frame at position from the persistent capture
         try {
-            System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
-            org.opencv.videoio.VideoCapture cap = new org.opencv.videoio.VideoCapture(videoFile.getAbsolutePath());
-            
-            if (cap.isOpened()) {
-                cap.set(org.opencv.videoio.Videoio.CAP_PROP_POS_FRAMES, currentFrame);
-                org.opencv.core.Mat frame = new org.opencv.core.Mat();
-                if (cap.read(frame) && !frame.empty()) {
-                    displayFrame(frame);
-                }
-                cap.release();
+            org.opencv.core.Mat frame = new org.opencv.core.Mat();
+            if (readFrameAt(target, frame)) {
+                displayFrame(frame);
             }
-            
+            frame.release();
+            // The target frame is on screen; playback continues with the next one
+            currentFrame = target + 1;
+            updateProgress();
         } catch (Exception e) {
             System.err.println("Error seeking: " + e.getMessage());
         }
@@ -234,17 +565,7 @@ public class SimpleVideoPlayer extends JPanel {
     
     private void displayFrame(org.opencv.core.Mat frame) {
         try {
-            int type = frame.channels() > 1 ? BufferedImage.TYPE_3BYTE_BGR : BufferedImage.TYPE_BYTE_GRAY;
-            int bufferSize = frame.channels() * frame.cols() * frame.rows();
-            byte[] b = new byte[bufferSize];
-            frame.get(0, 0, b);
-            BufferedImage img = new BufferedImage(frame.cols(), frame.rows(), type);
-            img.getRaster().setDataElements(0, 0, frame.cols(), frame.rows(), b);
-            
-            // Scale image to fit the label
-            Image scaledImage = img.getScaledInstance(videoLabel.getWidth(), videoLabel.getHeight(), Image.SCALE_SMOOTH);
-            videoLabel.setIcon(new ImageIcon(scaledImage));
-            
+            videoView.showFrame(frame);
         } catch (Exception e) {
             System.err.println("Error displaying frame: " + e.getMessage());
         }
@@ -253,7 +574,12 @@ public class SimpleVideoPlayer extends JPanel {
     private void updateProgress() {
         if (totalFrames > 0) {
             double position = (double) currentFrame / totalFrames;
-            progressSlider.setValue((int) (position * 100));
+            updatingSlider = true;
+            try {
+                progressSlider.setValue((int) (position * 100));
+            } finally {
+                updatingSlider = false;
+            }
             
             long currentTime = (long) (currentFrame / fps * 1000);
             long totalTime = (long) (totalFrames / fps * 1000);
@@ -261,6 +587,12 @@ public class SimpleVideoPlayer extends JPanel {
             timeLabel.setText(formatTime(currentTime));
             durationLabel.setText(formatTime(totalTime));
         }
+        String stats = framesPresented == 0 ? " " : "Dropped: " + framesDropped + "  Late: " + framesLate;
+        LivePreviewProcessor preview = livePreview;
+        if (preview != null && framesPresented > 0) {
+            stats += String.format("  Live: %s, %.1f fps", preview, achievedFps);
+        }
+        statsLabel.setText(stats);
     }
     
     private String formatTime(long timeMs) {
@@ -273,8 +605,8 @@ public class SimpleVideoPlayer extends JPanel {
     
     private void updateButtonStates() {
         boolean hasVideo = videoFile != null;
-        boolean playing = isPlaying.get();
-        boolean paused = isPaused.get();
+        boolean playing = isPlaying();
+        boolean paused = isPaused();
         
         playButton.setEnabled(hasVideo && (!playing || paused));
         pauseButton.setEnabled(hasVideo && playing && !paused);
@@ -294,5 +626,11 @@ public class SimpleVideoPlayer extends JPanel {
     
     public void release() {
         stop();
+        synchronized (captureLock) {
+            if (capture != null) {
+                capture.release();
+                capture = null;
+            }
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,128 @@
+// TemporalOperator.java
+// Video operators whose output for a frame depends on neighbouring frames.
+
+/**
+ * Sliding-window operators over consecutive video frames (8-bit BGR byte arrays).
+ * Each operator declares how many frames before and after the current one its window needs;
+ * the caller gathers the window (repeating the first/last frame at the ends of the video)
+ * and calls {@link #apply}.
+ */
+public enum TemporalOperator {
+    MEDIAN_DENOISE("Temporal Median") {
+        @Override
+        public void apply(byte[][] window, int center, byte[] out, int[] scratch) {
+            int n = window.length;
+            for (int i = 0; i < out.length; i++) {
+                // Insertion sort of the n samples; n is small (2 * radius + 1)
+                for (int k = 0; k < n; k++) {
+                    int value = window[k][i] & 0xff;
+                    int j = k - 1;
+                    while (j >= 0 && scratch[j] > value) {
+                        scratch[j + 1] = scratch[j];
+                        j--;
+                    }
+                    scratch[j + 1] = value;
+                }
+                out[i] = (byte) scratch[n / 2];
+            }
+        }
+    },
+    MEAN_DENOISE("Temporal Average") {
+        @Override
+        public void apply(byte[][] window, int center, byte[] out, int[] scratch) {
+            int n = window.length;
+            int half = n / 2;
+            for (int i = 0; i < out.length; i++) {
+                int sum = 0;
+                for (int k = 0; k < n; k++) {
+                    sum += window[k][i] & 0xff;
+                }
+                out[i] = (byte) ((sum + half) / n);
+            }
+        }
+    },
+    FRAME_DIFFERENCE("Frame Difference") {
+        @Override
+        public void apply(byte[][] window, int center, byte[] out, int[] scratch) {
+            byte[] previous = window[center - 1];
+            byte[] current = window[center];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = (byte) Math.abs((current[i] & 0xff) - (previous[i] & 0xff));
+            }
+        }
+    },
+    MOTION_MASK("Motion Mask") {
+        @Override
+        public void apply(byte[][] window, int center, byte[] out, int[] scratch) {
+            byte[] previous = window[center - 1];
+            byte[] current = window[center];
+            // A pixel is moving if any of its B, G, R channels changed by more than the threshold
+            for (int i = 0; i < out.length; i += 3) {
+                int diff = Math.max(Math.abs((current[i] & 0xff) - (previous[i] & 0xff)),
+                           Math.max(Math.abs((current[i + 1] & 0xff) - (previous[i + 1] & 0xff)),
+                                    Math.abs((current[i + 2] & 0xff) - (previous[i + 2] & 0xff))));
+                byte mask = diff > MOTION_THRESHOLD ? (byte) 255 : 0;
+                out[i] = mask;
+                out[i + 1] = mask;
+                out[i + 2] = mask;
+            }
+        }
+    };
+
+    // Per-channel change above which a pixel counts as moving in the motion mask
+    public static final int MOTION_THRESHOLD = 25;
+
+    private final String displayName;
+
+    TemporalOperator(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @param radius The requested temporal radius (used by the denoising operators).
+     * @return Number of frames before the current one that the window needs.
+     */
+    public int framesBefore(int radius) {
+        return (this == MEDIAN_DENOISE || this == MEAN_DENOISE) ? radius : 1;
+    }
+
+    /**
+     * @param radius The requested temporal radius (used by the denoising operators).
+     * @return Number of frames after the current one that the window needs.
+     */
+    public int framesAfter(int radius) {
+        return (this == MEDIAN_DENOISE || this == MEAN_DENOISE) ? radius : 0;
+    }
+
+    /**
+     * Computes the output frame for one position.
+     *
+     * @param window Frames [position - framesBefore, position + framesAfter], clamped at the video ends.
+     * @param center Index of the current frame within window.
+     * @param out Output frame, same size as the input frames.
+     * @param scratch Scratch array of at least window.length ints, private to the calling thread.
+     */
+    public abstract void apply(byte[][] window, int center, byte[] out, int[] scratch);
+
+    public static TemporalOperator fromDisplayName(String displayName) {
+        for (TemporalOperator operator : values()) {
+            if (operator.displayName.equals(displayName)) {
+                return operator;
+            }
+        }
+        throw new IllegalArgumentException("Unknown temporal operator selected: " + displayName);
+    }
+
+    public static String[] displayNames() {
+        TemporalOperator[] operators = values();
+        String[] names = new String[operators.length];
+        for (int i = 0; i < operators.length; i++) {
+            names[i] = operators[i].displayName;
+        }
+        return names;
+    }
+}
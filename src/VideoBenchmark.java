@@ -0,0 +1,196 @@
+// VideoBenchmark.java
+// Decode-once benchmark that times the decode, process and encode stages of video processing separately.
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Benchmarks the parallelizable part of video processing without codec and disk noise.
+ * The video is decoded once into memory; the processing stage (the same hybrid Fork/Join schedule as
+ * VideoProcessor.processVideoEffect) is then timed on the cached frames for every thread count, and the
+ * output of the last run is encoded once. Decode and encode are reported as separate stages.
+ * Input and output go through VideoIO, so with .y4m or raw frame files no codec is involved at all.
+ */
+public class VideoBenchmark {
+
+    // Upper bound for the cached source frames plus the output frames; longer videos are truncated
+    private static final long MAX_CACHED_BYTES = 1024L * 1024 * 1024;
+
+    /**
+     * Per-stage times of one benchmark run.
+     */
+    public static class Result {
+        public final ImageEffect effect;
+        public final int frames;
+        public final int width;
+        public final int height;
+        public final boolean truncated; // Not all frames of the video fit into the cache
+        public final long decodeMs;
+        public final long sequentialMs; // Processing stage on the calling thread
+        public final int[] threadCounts; // Thread counts of the processing runs
+        public final List<Long> processMs; // Processing stage with each thread count
+        public final long encodeMs;
+
+        Result(ImageEffect effect, int frames, int width, int height, boolean truncated,
+               long decodeMs, long sequentialMs, int[] threadCounts, List<Long> processMs, long encodeMs) {
+            this.effect = effect;
+            this.frames = frames;
+            this.width = width;
+            this.height = height;
+            this.truncated = truncated;
+            this.decodeMs = decodeMs;
+            this.sequentialMs = sequentialMs;
+            this.threadCounts = threadCounts;
+            this.processMs = processMs;
+            this.encodeMs = encodeMs;
+        }
+
+        /**
+         * @return Frames per second for a stage that took the given time.
+         */
+        public double fps(long stageMs) {
+            return stageMs <= 0 ? 0.0 : frames * 1000.0 / stageMs;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Decode-once benchmark: %s, %d frames %dx%d%s%n", effect.getDisplayName(),
+                    frames, width, height, truncated ? " (truncated to fit the frame cache)" : ""));
+            sb.append(String.format("Decode:  %6d ms  %8.1f fps%n", decodeMs, fps(decodeMs)));
+            sb.append(String.format("Encode:  %6d ms  %8.1f fps%n", encodeMs, fps(encodeMs)));
+            sb.append(String.format("Process (sequential): %6d ms  %8.1f fps%n", sequentialMs, fps(sequentialMs)));
+            for (int i = 0; i < processMs.size(); i++) {
+                long ms = processMs.get(i);
+                sb.append(String.format("Process (%2d threads): %6d ms  %8.1f fps  speedup %.2fx%n",
+                        threadCounts[i], ms, fps(ms), ms > 0 ? (double) sequentialMs / ms : 0.0));
+            }
+            return sb.toString();
+        }
+    }
+
+    // Work buffers of a frame being processed
+    private static final class Slot {
+        final int[] src;
+        final int[] dst;
+        ForkJoinTask<?> job;
+
+        Slot(int pixels) {
+            src = new int[pixels];
+            dst = new int[pixels];
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param inputFile The video to benchmark with.
+     * @param outputFile Where the output of the last processing run is encoded to.
+     * @param effect The effect to apply.
+     * @param threadCounts The processing stage is timed with each of these thread counts.
+     * @return The per-stage times, or null if the video could not be read or written.
+     */
+    public static Result run(File inputFile, File outputFile, ImageEffect effect, int[] threadCounts) {
+        // Stage 1: decode every frame once into memory
+        long start = System.nanoTime();
+        FrameReader reader = VideoIO.openReader(inputFile);
+        if (reader == null) return null;
+        int width = reader.getWidth();
+        int height = reader.getHeight();
+        double fps = reader.getFps();
+        int frameBytes = width * height * 3;
+        int maxFrames = (int) Math.max(1, MAX_CACHED_BYTES / (2L * frameBytes));
+
+        List<byte[]> frames = new ArrayList<>();
+        boolean truncated = false;
+        try {
+            byte[] bgr = new byte[frameBytes];
+            while (reader.read(bgr)) {
+                if (frames.size() == maxFrames) {
+                    truncated = true;
+                    break;
+                }
+                frames.add(bgr);
+                bgr = new byte[frameBytes];
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Error decoding " + inputFile.getName() + ": " + e.getMessage());
+            return null;
+        } finally {
+            reader.close();
+        }
+        long decodeMs = (System.nanoTime() - start) / 1_000_000;
+        if (frames.isEmpty()) {
+            System.err.println("Error: No frames decoded from " + inputFile.getName());
+            return null;
+        }
+        byte[][] output = new byte[frames.size()][frameBytes];
+
+        // Stage 2: process the cached frames, sequentially and then with every thread count
+        long sequentialMs = processAll(frames, output, effect, width, height, null);
+        List<Long> processMs = new ArrayList<>();
+        for (int threads : threadCounts) {
+            processMs.add(processAll(frames, output, effect, width, height, ExecutionService.shared().cpuPool(threads)));
+        }
+
+        // Stage 3: encode the output of the last run once
+        start = System.nanoTime();
+        FrameWriter writer = VideoIO.openWriter(outputFile, width, height, fps);
+        if (writer == null) return null;
+        try {
+            for (byte[] bgr : output) {
+                writer.write(bgr);
+            }
+        } catch (java.io.IOException e) {
+            System.err.println("Error encoding " + outputFile.getName() + ": " + e.getMessage());
+            return null;
+        } finally {
+            writer.close();
+        }
+        long encodeMs = (System.nanoTime() - start) / 1_000_000;
+
+        Result result = new Result(effect, frames.size(), width, height, truncated, decodeMs, sequentialMs, threadCounts, processMs, encodeMs);
+        System.out.print(result);
+        return result;
+    }
+
+    // Processing stage only: BGR -> ARGB, effect, ARGB -> BGR for every cached frame. Returns the time in ms.
+    private static long processAll(List<byte[]> frames, byte[][] output, ImageEffect effect, int width, int height, ForkJoinPool pool) {
+        VideoProcessor.FrameSchedule schedule = pool != null ? VideoProcessor.FrameSchedule.plan(width, height, pool.getParallelism()) : null;
+        Slot[] slots = new Slot[schedule != null ? schedule.framesInFlight : 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot(width * height);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < frames.size(); i++) {
+            Slot slot = slots[i % slots.length];
+            if (slot.job != null) {
+                slot.job.join();
+            }
+            byte[] in = frames.get(i);
+            byte[] out = output[i];
+            if (pool != null) {
+                slot.job = pool.submit(() -> processFrame(in, out, slot, effect, width, height, schedule.rowThreshold));
+            } else {
+                processFrame(in, out, slot, effect, width, height, height);
+            }
+        }
+        for (Slot slot : slots) {
+            if (slot.job != null) {
+                slot.job.join();
+                slot.job = null;
+            }
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void processFrame(byte[] in, byte[] out, Slot slot, ImageEffect effect, int width, int height, int threshold) {
+        VideoProcessor.bgrToArgb(in, slot.src);
+        effect.createTask(slot.src, slot.dst, width, height, threshold).invoke();
+        VideoProcessor.argbToBgr(slot.dst, out);
+    }
+}
@@ -0,0 +1,122 @@
+// VideoFrameView.java
+// Triple-buffered component that displays OpenCV frames without per-frame allocations.
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import org.opencv.core.Mat;
+
+/**
+ * Displays video frames using three reusable BufferedImages.
+ * The decoding thread copies each Mat straight into the raster of a free back buffer and publishes it;
+ * paintComponent picks up the latest published buffer and scales it with drawImage.
+ * Buffers are only reallocated when the frame geometry changes, so steady-state playback allocates nothing.
+ */
+public class VideoFrameView extends JComponent {
+
+    private static final int BUFFER_COUNT = 3;
+
+    private final BufferedImage[] buffers = new BufferedImage[BUFFER_COUNT];
+    private int front = -1; // Buffer being painted on the EDT
+    private int ready = -1; // Latest complete frame not yet picked up by paintComponent
+    private int back = -1; // Buffer being filled by the decoding thread
+    private final Object producerLock = new Object(); // Serializes showFrame callers (playback thread vs. seeks on the EDT)
+
+    public VideoFrameView() {
+        setPreferredSize(new Dimension(400, 300));
+        setBorder(BorderFactory.createLineBorder(Color.GRAY));
+        setBackground(Color.BLACK);
+        setOpaque(true);
+    }
+
+    /**
+     * Copies the frame into a back buffer and schedules a repaint. Safe to call from any thread;
+     * the Mat can be reused as soon as this returns.
+     *
+     * @param frame A BGR (3-channel) or gray (1-channel) 8-bit frame.
+     */
+    public void showFrame(Mat frame) {
+        int type;
+        if (frame.channels() == 3) {
+            type = BufferedImage.TYPE_3BYTE_BGR;
+        } else if (frame.channels() == 1) {
+            type = BufferedImage.TYPE_BYTE_GRAY;
+        } else {
+            System.err.println("Error displaying frame: unsupported channel count " + frame.channels());
+            return;
+        }
+
+        synchronized (producerLock) {
+            BufferedImage target = acquireBackBuffer(frame.cols(), frame.rows(), type);
+            byte[] data = ((DataBufferByte) target.getRaster().getDataBuffer()).getData();
+            frame.get(0, 0, data);
+            publishBackBuffer();
+        }
+        repaint();
+    }
+
+    /**
+     * Removes the current frame from the display.
+     */
+    public synchronized void clear() {
+        front = -1;
+        ready = -1;
+        repaint();
+    }
+
+    private synchronized BufferedImage acquireBackBuffer(int width, int height, int type) {
+        // Any buffer that is neither on screen nor waiting to be painted can be overwritten
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            if (i != front && i != ready) {
+                back = i;
+                break;
+            }
+        }
+        BufferedImage image = buffers[back];
+        if (image == null || image.getWidth() != width || image.getHeight() != height || image.getType() != type) {
+            image = new BufferedImage(width, height, type);
+            buffers[back] = image;
+        }
+        return image;
+    }
+
+    private synchronized void publishBackBuffer() {
+        ready = back;
+        back = -1;
+    }
+
+    private synchronized BufferedImage takeFrontBuffer() {
+        if (ready != -1) {
+            front = ready;
+            ready = -1;
+        }
+        return front != -1 ? buffers[front] : null;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        // The front buffer is never handed to the decoding thread, so it can be drawn outside the lock
+        BufferedImage image = takeFrontBuffer();
+        if (image == null) return;
+
+        // Scale to fit while keeping the aspect ratio
+        double scale = Math.min((double) getWidth() / image.getWidth(), (double) getHeight() / image.getHeight());
+        int drawWidth = (int) (image.getWidth() * scale);
+        int drawHeight = (int) (image.getHeight() * scale);
+        int x = (getWidth() - drawWidth) / 2;
+        int y = (getHeight() - drawHeight) / 2;
+
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(image, x, y, drawWidth, drawHeight, null);
+    }
+}
@@ -0,0 +1,92 @@
+// VideoIO.java
+// Chooses the frame reader/writer for a video file and loads the OpenCV native library on demand.
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Opens FrameReaders and FrameWriters by file extension:
+ * ".y4m" uses the pure-Java YUV4MPEG2 reader/writer, ".bgr" and ".rgb" headerless raw frames
+ * (geometry and frame rate taken from the name, e.g. "clip_1280x720@29.97.bgr"), and everything else OpenCV.
+ * Only the OpenCV path needs the native library, so Y4M and raw files can be processed without it.
+ */
+public final class VideoIO {
+
+    private static final Pattern RAW_GEOMETRY = Pattern.compile("(\\d+)x(\\d+)(?:@(\\d+(?:\\.\\d+)?))?");
+    private static final double DEFAULT_FPS = 30.0;
+
+    private static boolean openCvLoaded = false;
+
+    private VideoIO() {
+    }
+
+    /**
+     * Loads the OpenCV native library the first time it is needed.
+     */
+    public static synchronized void loadOpenCv() {
+        if (!openCvLoaded) {
+            System.loadLibrary(org.opencv.core.Core.NATIVE_LIBRARY_NAME);
+            openCvLoaded = true;
+        }
+    }
+
+    /**
+     * @return A reader for the file, or null (after printing the reason) if it cannot be opened.
+     */
+    public static FrameReader openReader(File file) {
+        try {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".y4m")) {
+                return new Y4mFrameReader(file);
+            }
+            if (name.endsWith(".bgr") || name.endsWith(".rgb")) {
+                Matcher m = RAW_GEOMETRY.matcher(file.getName());
+                if (!m.find()) {
+                    throw new IOException("Raw frame file name must contain the frame size, e.g. clip_1280x720@30.bgr: " + file.getName());
+                }
+                double fps = m.group(3) != null ? Double.parseDouble(m.group(3)) : DEFAULT_FPS;
+                return new RawFrameReader(file, Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), fps, name.endsWith(".rgb"));
+            }
+            return new OpenCvFrameReader(file);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Like {@link #openReader}, but videos that need decoding are read through the shared FrameCache,
+     * so repeated runs on the same video decode it only once. Y4M and raw files are read directly.
+     *
+     * @return A reader for the file, or null (after printing the reason) if it cannot be opened.
+     */
+    public static FrameReader openCachedReader(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".y4m") || name.endsWith(".bgr") || name.endsWith(".rgb")) {
+            return openReader(file);
+        }
+        return FrameCache.shared().openReader(file);
+    }
+
+    /**
+     * @return A writer for the file, or null (after printing the reason) if it cannot be created.
+     */
+    public static FrameWriter openWriter(File file, int width, int height, double fps) {
+        try {
+            String name = file.getName().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".y4m")) {
+                return new Y4mFrameWriter(file, width, height, fps);
+            }
+            if (name.endsWith(".bgr") || name.endsWith(".rgb")) {
+                return new RawFrameWriter(file, name.endsWith(".rgb"));
+            }
+            return new OpenCvFrameWriter(file, width, height, fps);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+// VideoIndex.java
+// Keyframe/timestamp index of a video file, built once and cached in a small sidecar file.
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.opencv.core.MatOfInt;
+import org.opencv.videoio.VideoCapture;
+import org.opencv.videoio.Videoio;
+
+/**
+ * Index of the keyframes of a video (frame number and presentation time in ms) plus the exact frame count.
+ * It is built by demuxing the file with OpenCV's FFmpeg backend in raw mode (no decoding) and reading
+ * CAP_PROP_LRF_HAS_KEY_FRAME for every packet, then saved next to the video as "name.ext.vidx".
+ * The sidecar records the size and modification time of the video and is ignored once the video changes.
+ */
+public class VideoIndex {
+
+    private static final int MAGIC = 0x56494458; // "VIDX"
+    private static final int VERSION = 1;
+
+    private final long sourceSize;
+    private final long sourceModified;
+    private final int frameCount;
+    private final int[] keyframes; // Sorted frame numbers of the keyframes
+    private final long[] keyframeTimesMs; // Presentation time of each keyframe
+
+    private VideoIndex(long sourceSize, long sourceModified, int frameCount, int[] keyframes, long[] keyframeTimesMs) {
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.frameCount = frameCount;
+        this.keyframes = keyframes;
+        this.keyframeTimesMs = keyframeTimesMs;
+    }
+
+    /**
+     * @return The sidecar file used for the given video.
+     */
+    public static File sidecarFile(File videoFile) {
+        return new File(videoFile.getParentFile(), videoFile.getName() + ".vidx");
+    }
+
+    /**
+     * Scans the video and builds its index. This reads every packet of the file, so call it off the EDT.
+     *
+     * @param videoFile The video to index.
+     * @return The index, or null if the file could not be opened.
+     */
+    public static VideoIndex build(File videoFile) {
+        long size = videoFile.length();
+        long modified = videoFile.lastModified();
+
+        // CAP_PROP_FORMAT = -1 makes the FFmpeg backend return raw packets, so grab() only demuxes
+        VideoCapture cap = new VideoCapture(videoFile.getAbsolutePath(), Videoio.CAP_FFMPEG,
+                new MatOfInt(Videoio.CAP_PROP_FORMAT, -1));
+        boolean rawMode = cap.isOpened();
+        if (!rawMode) {
+            // Other backends: count frames by decoding, without keyframe information
+            cap.release();
+            cap = new VideoCapture(videoFile.getAbsolutePath());
+            if (!cap.isOpened()) {
+                System.err.println("Error: Could not open video for indexing: " + videoFile.getAbsolutePath());
+                return null;
+            }
+        }
+
+        int[] frames = new int[64];
+        long[] times = new long[64];
+        int keyframeCount = 0;
+        int frame = 0;
+        while (cap.grab()) {
+            if (rawMode && cap.get(Videoio.CAP_PROP_LRF_HAS_KEY_FRAME) != 0) {
+                if (keyframeCount == frames.length) {
+                    frames = Arrays.copyOf(frames, keyframeCount * 2);
+                    times = Arrays.copyOf(times, keyframeCount * 2);
+                }
+                frames[keyframeCount] = frame;
+                times[keyframeCount] = (long) cap.get(Videoio.CAP_PROP_POS_MSEC);
+                keyframeCount++;
+            }
+            frame++;
+        }
+        cap.release();
+
+        System.out.println("Indexed " + videoFile.getName() + ": " + frame + " frames, " + keyframeCount + " keyframes");
+        return new VideoIndex(size, modified, frame,
+                Arrays.copyOf(frames, keyframeCount), Arrays.copyOf(times, keyframeCount));
+    }
+
+    /**
+     * Loads the sidecar index of a video if it exists and still matches the video's size and modification time.
+     *
+     * @return The index, or null if there is no valid sidecar.
+     */
+    public static VideoIndex load(File videoFile) {
+        File sidecar = sidecarFile(videoFile);
+        if (!sidecar.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(Files.newInputStream(sidecar.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            long size = in.readLong();
+            long modified = in.readLong();
+            if (size != videoFile.length() || modified != videoFile.lastModified()) return null;
+            int frameCount = in.readInt();
+            int keyframeCount = in.readInt();
+            int[] keyframes = new int[keyframeCount];
+            long[] times = new long[keyframeCount];
+            for (int i = 0; i < keyframeCount; i++) {
+                keyframes[i] = in.readInt();
+                times[i] = in.readLong();
+            }
+            return new VideoIndex(size, modified, frameCount, keyframes, times);
+        } catch (IOException e) {
+            System.err.println("Could not read video index " + sidecar.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the sidecar file. Failures (e.g. a read-only directory) are reported and otherwise ignored.
+     */
+    public void save(File videoFile) {
+        File sidecar = sidecarFile(videoFile);
+        try (DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(Files.newOutputStream(sidecar.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(frameCount);
+            out.writeInt(keyframes.length);
+            for (int i = 0; i < keyframes.length; i++) {
+                out.writeInt(keyframes[i]);
+                out.writeLong(keyframeTimesMs[i]);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save video index " + sidecar.getName() + ": " + e.getMessage());
+        }
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public boolean hasKeyframes() {
+        return keyframes.length > 0;
+    }
+
+    /**
+     * @return The last keyframe at or before the given frame, or 0 if there is none.
+     */
+    public int keyframeAtOrBefore(int frame) {
+        int i = Arrays.binarySearch(keyframes, frame);
+        if (i >= 0) return keyframes[i];
+        int insertion = -i - 1;
+        return insertion > 0 ? keyframes[insertion - 1] : 0;
+    }
+}
@@ -7,15 +7,19 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.io.File;
 
+import ParallelImageTasks.ProcessingEvents.VideoFrameEvent;
+
 public class VideoProcessor {
-    static {
-        // Load OpenCV native library
-        System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
-    }
+    // The OpenCV native library is loaded on first use (VideoIO.loadOpenCv), so the effect,
+    // incremental and temporal paths can run on Y4M / raw frame files without it.
+    // Those paths read their input through the FrameCache, so repeated runs on a video decode it once.
+    // Every path records a VideoFrameEvent (JFR) for the decode, process and encode stage of each frame,
+    // and the same stages, frames in flight and frame buffer bytes in ProcessingMetrics.
 
     // Sequential grayscale for video
     public static void processVideoGrayscaleSequential(File inputFile, File outputFile) {
         try {
+            VideoIO.loadOpenCv();
             VideoCapture cap = new VideoCapture(inputFile.getAbsolutePath());
             if (!cap.isOpened()) {
                 System.err.println("Error: Could not open input video: " + inputFile.getAbsolutePath());
@@ -34,19 +38,34 @@ public class VideoProcessor {
                 return;
             }
 
-            Mat frame = new Mat();
+            // One frame and one gray buffer are reused for the whole video
+            MatPool matPool = MatPool.shared();
+            Mat frame = matPool.lease(height, width, CvType.CV_8UC3);
+            Mat grayFrame = matPool.lease(height, width, CvType.CV_8UC1);
             int frameCount = 0;
-            while (cap.read(frame)) {
-                if (!frame.empty()) {
-                    Mat grayFrame = new Mat();
-                    Imgproc.cvtColor(frame, grayFrame, Imgproc.COLOR_BGR2GRAY);
-                    writer.write(grayFrame);
-                    frameCount++;
+            try {
+                while (true) {
+                    FrameStage decode = new FrameStage();
+                    if (!cap.read(frame)) break;
+                    decode.end(VideoFrameEvent.DECODE, frameCount, width, height);
+                    if (!frame.empty()) {
+                        FrameStage process = new FrameStage();
+                        Imgproc.cvtColor(frame, grayFrame, Imgproc.COLOR_BGR2GRAY);
+                        process.end(VideoFrameEvent.PROCESS, frameCount, width, height, "Grayscale");
+                        FrameStage encode = new FrameStage();
+                        writer.write(grayFrame);
+                        encode.end(VideoFrameEvent.ENCODE, frameCount, width, height);
+                        frameCount++;
+                    }
                 }
+            } finally {
+                matPool.recycle(frame);
+                matPool.recycle(grayFrame);
+                cap.release();
+                writer.release();
             }
             System.out.println("Sequential processing completed. Processed " + frameCount + " frames.");
-            cap.release();
-            writer.release();
+            System.out.println(matPool.getStats());
         } catch (Exception e) {
             System.err.println("Error in sequential video processing: " + e.getMessage());
             e.printStackTrace();
@@ -56,6 +75,7 @@ public class VideoProcessor {
     // Parallel grayscale for video (using thread pool)
     public static void processVideoGrayscaleParallel(File inputFile, File outputFile, int numThreads) {
         try {
+            VideoIO.loadOpenCv();
             VideoCapture cap = new VideoCapture(inputFile.getAbsolutePath());
             if (!cap.isOpened()) {
                 System.err.println("Error: Could not open input video: " + inputFile.getAbsolutePath());
@@ -74,54 +94,703 @@ public class VideoProcessor {
                 return;
             }
 
+            MatPool matPool = MatPool.shared();
             List<Mat> frames = new ArrayList<>();
-            Mat frame = new Mat();
-            while (cap.read(frame)) {
-                if (!frame.empty()) {
-                    frames.add(frame.clone());
+            Mat frame = matPool.lease(height, width, CvType.CV_8UC3);
+            try {
+                while (true) {
+                    FrameStage decode = new FrameStage();
+                    if (!cap.read(frame)) break;
+                    decode.end(VideoFrameEvent.DECODE, frames.size(), width, height);
+                    if (!frame.empty()) {
+                        Mat copy = matPool.lease(frame.rows(), frame.cols(), frame.type());
+                        frame.copyTo(copy);
+                        frames.add(copy);
+                        ProcessingMetrics.shared().addFramesInFlight(1);
+                    }
                 }
+            } finally {
+                matPool.recycle(frame);
+                cap.release();
             }
-            cap.release();
 
-            // Parallel processing
-            ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+            // Parallel processing on the shared CPU pool of this size
+            ExecutorService pool = ExecutionService.shared().cpuPool(numThreads);
             List<Future<Mat>> futures = new ArrayList<>();
-            for (Mat f : frames) {
+            for (int i = 0; i < frames.size(); i++) {
+                Mat f = frames.get(i);
+                int frameIndex = i;
                 futures.add(pool.submit(() -> {
-                    Mat grayFrame = new Mat();
-                    Imgproc.cvtColor(f, grayFrame, Imgproc.COLOR_BGR2GRAY);
+                    FrameStage process = new FrameStage();
+                    Mat grayFrame = matPool.lease(f.rows(), f.cols(), CvType.CV_8UC1);
+                    try {
+                        Imgproc.cvtColor(f, grayFrame, Imgproc.COLOR_BGR2GRAY);
+                    } catch (RuntimeException e) {
+                        // The caller only sees the exception, so the leased Mat has to go back here
+                        matPool.recycle(grayFrame);
+                        throw e;
+                    }
+                    process.end(VideoFrameEvent.PROCESS, frameIndex, width, height, "Grayscale");
                     return grayFrame;
                 }));
             }
-            pool.shutdown();
             
-            for (Future<Mat> fut : futures) {
-                try {
-                    Mat processedFrame = fut.get();
-                    writer.write(processedFrame);
-                } catch (Exception e) {
-                    System.err.println("Error in parallel processing: " + e.getMessage());
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        Mat processedFrame = futures.get(i).get();
+                        FrameStage encode = new FrameStage();
+                        writer.write(processedFrame);
+                        encode.end(VideoFrameEvent.ENCODE, i, width, height);
+                        matPool.recycle(processedFrame);
+                    } catch (Exception e) {
+                        System.err.println("Error in parallel processing: " + e.getMessage());
+                    }
+                    // The source frame is no longer needed once its result has been written
+                    matPool.recycle(frames.get(i));
+                    ProcessingMetrics.shared().addFramesInFlight(-1);
                 }
+            } finally {
+                writer.release();
             }
             System.out.println("Parallel processing completed. Processed " + frames.size() + " frames with " + numThreads + " threads.");
-            writer.release();
+            System.out.println(matPool.getStats());
         } catch (Exception e) {
             System.err.println("Error in parallel video processing: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    // Timing for 1-12 threads, returns list of times in ms
-    public static List<Long> timeParallelGrayscale(File inputFile, File outputFileBase) {
-        List<Long> times = new ArrayList<>();
-        for (int threads = 1; threads <= 12; threads++) {
+    // Waits for a segment task even if this thread is interrupted, since its file must not be deleted while it
+    // is still being written; the interrupt is restored afterwards
+    private static int awaitSegment(Future<Integer> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Whether ffmpeg is on the PATH; checked once
+    private static volatile Boolean ffmpegAvailable;
+
+    /**
+     * @return true if segment files can be joined without re-encoding, which needs ffmpeg on the PATH. Without it
+     *         processVideoGrayscaleSegmented runs as a single segment.
+     */
+    public static boolean canJoinSegments() {
+        Boolean available = ffmpegAvailable;
+        if (available == null) {
+            try {
+                Process process = new ProcessBuilder("ffmpeg", "-version")
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                available = process.waitFor() == 0;
+            } catch (Exception e) {
+                available = false;
+            }
+            ffmpegAvailable = available;
+        }
+        return available;
+    }
+
+    // Segment-parallel grayscale for video: the timeline is split into numSegments parts and each
+    // worker decodes, converts and encodes its own part with its own VideoCapture/VideoWriter.
+    // The parts are joined with ffmpeg; without it the video is processed as one segment.
+    // Returns the number of frames written, or -1 if the input could not be processed.
+    public static int processVideoGrayscaleSegmented(File inputFile, File outputFile, int numSegments) {
+        VideoIO.loadOpenCv();
+        VideoCapture probe = new VideoCapture(inputFile.getAbsolutePath());
+        if (!probe.isOpened()) {
+            System.err.println("Error: Could not open input video: " + inputFile.getAbsolutePath());
+            return -1;
+        }
+        int totalFrames = (int) probe.get(Videoio.CAP_PROP_FRAME_COUNT);
+        int width = (int) probe.get(Videoio.CAP_PROP_FRAME_WIDTH);
+        int height = (int) probe.get(Videoio.CAP_PROP_FRAME_HEIGHT);
+        double fps = probe.get(Videoio.CAP_PROP_FPS);
+        probe.release();
+
+        if (totalFrames <= 0) {
+            // Unknown length (e.g. some streams): there is nothing to split, process in one piece
+            numSegments = 1;
+        }
+        numSegments = Math.max(1, Math.min(numSegments, Math.max(1, totalFrames)));
+        if (numSegments > 1 && !canJoinSegments()) {
+            // Joining without ffmpeg would decode and encode every frame again on one thread (and add a second
+            // lossy generation), which costs more than the segments save
+            System.err.println("Warning: ffmpeg is not on the PATH, so the segments cannot be joined without re-encoding. "
+                    + "Processing the video as one segment, without the segment-parallel speedup.");
+            numSegments = 1;
+        }
+
+        List<File> segmentFiles = new ArrayList<>();
+        // Each segment blocks on its own decoder and encoder, so all of them need an I/O thread at the same time
+        ExecutorService pool = ExecutionService.shared().ioPool(numSegments);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < numSegments; i++) {
+            int startFrame = (int) ((long) totalFrames * i / numSegments);
+            // The last segment reads to the end of the stream, since CAP_PROP_FRAME_COUNT is only an estimate
+            int endFrame = (i == numSegments - 1) ? Integer.MAX_VALUE : (int) ((long) totalFrames * (i + 1) / numSegments);
+            File segmentFile = segmentFile(outputFile, i);
+            segmentFiles.add(segmentFile);
+            futures.add(pool.submit(() -> processSegment(inputFile, segmentFile, startFrame, endFrame, width, height, fps)));
+        }
+
+        int frameCount = 0;
+        try {
+            // Wait for every segment before failing: the finally block deletes the files the others still write
+            boolean failed = false;
+            for (Future<Integer> fut : futures) {
+                try {
+                    int written = awaitSegment(fut);
+                    if (written < 0) {
+                        failed = true;
+                    } else {
+                        frameCount += written;
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("Error in video segment: " + e.getCause());
+                    failed = true;
+                }
+            }
+            if (failed) {
+                return -1;
+            }
+            joinSegments(segmentFiles, outputFile);
+        } catch (Exception e) {
+            System.err.println("Error in segment-parallel video processing: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            for (File segmentFile : segmentFiles) {
+                segmentFile.delete();
+            }
+        }
+        System.out.println("Segment-parallel processing completed. Processed " + frameCount + " frames in " + numSegments + " segments.");
+        return frameCount;
+    }
+
+    // Decodes frames [startFrame, endFrame) with a private capture and writes them to segmentFile
+    private static int processSegment(File inputFile, File segmentFile, int startFrame, int endFrame,
+                                      int width, int height, double fps) {
+        VideoCapture cap = new VideoCapture(inputFile.getAbsolutePath());
+        if (!cap.isOpened()) {
+            System.err.println("Error: Could not open input video: " + inputFile.getAbsolutePath());
+            return -1;
+        }
+        int fourcc = VideoWriter.fourcc('m','p','4','v');
+        VideoWriter writer = new VideoWriter(segmentFile.getAbsolutePath(), fourcc, fps, new Size(width, height), false);
+        if (!writer.isOpened()) {
+            System.err.println("Error: Could not create output video writer: " + segmentFile.getAbsolutePath());
+            cap.release();
+            return -1;
+        }
+
+        MatPool matPool = MatPool.shared();
+        Mat frame = matPool.lease(height, width, CvType.CV_8UC3);
+        Mat grayFrame = matPool.lease(height, width, CvType.CV_8UC1);
+        int frameCount = 0;
+        try {
+            if (startFrame > 0) {
+                cap.set(Videoio.CAP_PROP_POS_FRAMES, startFrame);
+            }
+            int position = startFrame;
+            while (position < endFrame) {
+                FrameStage decode = new FrameStage();
+                if (!cap.read(frame)) break;
+                decode.end(VideoFrameEvent.DECODE, position, width, height);
+                if (!frame.empty()) {
+                    FrameStage process = new FrameStage();
+                    Imgproc.cvtColor(frame, grayFrame, Imgproc.COLOR_BGR2GRAY);
+                    process.end(VideoFrameEvent.PROCESS, position, width, height, "Grayscale");
+                    FrameStage encode = new FrameStage();
+                    writer.write(grayFrame);
+                    encode.end(VideoFrameEvent.ENCODE, position, width, height);
+                    frameCount++;
+                }
+                position++;
+            }
+        } finally {
+            matPool.recycle(frame);
+            matPool.recycle(grayFrame);
+            cap.release();
+            writer.release();
+        }
+        return frameCount;
+    }
+
+    // Joins the segment files into outputFile with ffmpeg's concat demuxer (stream copy, no re-encode)
+    private static void joinSegments(List<File> segmentFiles, File outputFile) throws Exception {
+        if (segmentFiles.size() == 1) {
+            java.nio.file.Files.move(segmentFiles.get(0).toPath(), outputFile.toPath(),
+                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        if (!concatWithFfmpeg(segmentFiles, outputFile)) {
+            throw new IllegalStateException("ffmpeg could not join the segments into " + outputFile.getAbsolutePath());
+        }
+    }
+
+    private static boolean concatWithFfmpeg(List<File> segmentFiles, File outputFile) {
+        File listFile = new File(outputFile.getParentFile(), outputFile.getName() + ".segments.txt");
+        try {
+            StringBuilder list = new StringBuilder();
+            for (File segmentFile : segmentFiles) {
+                list.append("file '").append(segmentFile.getAbsolutePath().replace("'", "'\\''")).append("'\n");
+            }
+            java.nio.file.Files.write(listFile.toPath(), list.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            Process process = new ProcessBuilder("ffmpeg", "-y", "-loglevel", "error", "-f", "concat", "-safe", "0",
+                    "-i", listFile.getAbsolutePath(), "-c", "copy", outputFile.getAbsolutePath())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor() == 0;
+        } catch (Exception e) {
+            // ffmpeg failed to start or was removed since canJoinSegments checked it
+            return false;
+        } finally {
+            listFile.delete();
+        }
+    }
+
+    private static File segmentFile(File outputFile, int index) {
+        String name = outputFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : ".mp4";
+        return new File(outputFile.getParentFile(), base + ".part" + index + extension);
+    }
+
+    // Timing for each thread count with warmup and repeated trials, returns the statistics per thread count
+    public static List<BenchmarkRunner.Stats> timeParallelGrayscale(File inputFile, File outputFileBase, int[] threadCounts,
+                                                                    BenchmarkRunner runner) {
+        List<BenchmarkRunner.Stats> times = new ArrayList<>();
+        for (int threads : threadCounts) {
             File outFile = new File(outputFileBase.getParent(), 
                 outputFileBase.getName().replace(".mp4", "_" + threads + ".mp4"));
-            long start = System.nanoTime();
-            processVideoGrayscaleParallel(inputFile, outFile, threads);
-            long end = System.nanoTime();
-            times.add((end - start) / 1_000_000);
+            int numThreads = threads;
+            times.add(runner.measure("Parallel", threads, () -> processVideoGrayscaleParallel(inputFile, outFile, numThreads)));
+        }
+        return times;
+    }
+
+    // Frames are split into Fork/Join strips only if each strip still gets at least this many pixels
+    private static final int MIN_STRIP_PIXELS = 256 * 1024;
+    // Tasks kept in flight per pool worker so that uneven strips/frames still balance out
+    private static final int TASKS_PER_WORKER = 4;
+    // Upper bound for the frame buffers (BGR bytes + ARGB source and destination) of the frames in flight
+    private static final long MAX_IN_FLIGHT_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Hybrid schedule for applying an effect to a video: large frames are split into row strips
+     * (intra-frame parallelism) and only a few frames are in flight, while small frames are each
+     * processed as one task and many frames are in flight (inter-frame parallelism).
+     */
+    static final class FrameSchedule {
+        final int framesInFlight; // Frames submitted to the pool at the same time
+        final int stripsPerFrame; // Fork/Join strips each frame is split into
+        final int rowThreshold; // Rows per strip, passed to the transform tasks as threshold
+
+        private FrameSchedule(int framesInFlight, int stripsPerFrame, int rowThreshold) {
+            this.framesInFlight = framesInFlight;
+            this.stripsPerFrame = stripsPerFrame;
+            this.rowThreshold = rowThreshold;
+        }
+
+        static FrameSchedule plan(int width, int height, int parallelism) {
+            long pixels = (long) width * height;
+            long wantedTasks = (long) Math.max(1, parallelism) * TASKS_PER_WORKER;
+            int strips = (int) Math.max(1, Math.min(Math.min(wantedTasks, height), pixels / MIN_STRIP_PIXELS));
+            // At least two frames in flight so decoding the next frame overlaps processing the current one
+            long bytesPerFrame = pixels * (3 + 4 + 4);
+            long frames = Math.min((wantedTasks + strips - 1) / strips, MAX_IN_FLIGHT_BYTES / Math.max(1, bytesPerFrame));
+            frames = Math.max(2, frames);
+            int threshold = Math.max(1, (height + strips - 1) / strips);
+            return new FrameSchedule((int) frames, strips, threshold);
+        }
+
+        @Override
+        public String toString() {
+            return framesInFlight + " frames in flight, " + stripsPerFrame + " strips/frame (" + rowThreshold + " rows each)";
+        }
+    }
+
+    // Per-frame buffers, reused for every frame that passes through the same slot
+    private static final class FrameSlot {
+        final byte[] bgr;
+        final int[] src;
+        final int[] dst;
+        ForkJoinTask<?> job;
+        long frame; // Index of the frame in the slot
+        boolean pending; // Holds a frame that has not been written yet
+        boolean duplicate; // Frame matched the last processed frame; the previous output is written again
+
+        FrameSlot(int width, int height) {
+            bgr = new byte[width * height * 3];
+            src = new int[width * height];
+            dst = new int[width * height];
+        }
+
+        long bytes() {
+            return bgr.length + 4L * (src.length + dst.length);
+        }
+    }
+
+    // Times one stage of one frame: a VideoFrameEvent plus the frame counters and latency of ProcessingMetrics
+    private static final class FrameStage {
+        private final VideoFrameEvent event = new VideoFrameEvent();
+        private final long start;
+
+        FrameStage() {
+            event.begin();
+            start = System.nanoTime();
+        }
+
+        // Decode and encode stages
+        void end(String stage, long frame, int width, int height) {
+            end(stage, frame, width, height, null);
+        }
+
+        // Process stages, with the display name of the effect
+        void end(String stage, long frame, int width, int height, String effect) {
+            event.finish(stage, frame, width, height);
+            ProcessingMetrics.shared().recordFrame(stage, effect, (long) width * height, System.nanoTime() - start);
+        }
+    }
+
+    // Sequential version of any image effect for video (one frame at a time on the calling thread)
+    public static int processVideoEffectSequential(File inputFile, File outputFile, ImageEffect effect) {
+        return processVideoEffect(inputFile, outputFile, effect, null, null);
+    }
+
+    public static int processVideoEffect(File inputFile, File outputFile, ImageEffect effect, ForkJoinPool pool) {
+        return processVideoEffect(inputFile, outputFile, effect, pool, null);
+    }
+
+    // Applies any image effect to every frame using the hybrid intra-/inter-frame schedule on the given pool.
+    // With a null pool the frames are processed sequentially. With a FrameSkipper, frames that match the last
+    // processed frame are not processed again; the previous output is written instead.
+    // Returns the number of frames written, or -1 on error.
+    public static int processVideoEffect(File inputFile, File outputFile, ImageEffect effect, ForkJoinPool pool, FrameSkipper skipper) {
+        FrameReader reader = VideoIO.openCachedReader(inputFile);
+        if (reader == null) return -1;
+        int width = reader.getWidth();
+        int height = reader.getHeight();
+
+        FrameWriter writer = VideoIO.openWriter(outputFile, width, height, reader.getFps());
+        if (writer == null) {
+            reader.close();
+            return -1;
+        }
+
+        FrameSchedule schedule = pool != null
+                ? FrameSchedule.plan(width, height, pool.getParallelism())
+                : new FrameSchedule(1, 1, height);
+        FrameSlot[] slots = new FrameSlot[schedule.framesInFlight];
+        ProcessingMetrics metrics = ProcessingMetrics.shared();
+
+        // Output of the last processed frame, written again for duplicates
+        byte[] lastOutput = skipper != null ? new byte[width * height * 3] : null;
+        if (lastOutput != null) {
+            metrics.addFrameBufferBytes(lastOutput.length);
+        }
+        int framesRead = 0;
+        if (skipper != null) {
+            skipper.reset();
+        }
+        try {
+            while (true) {
+                int index = framesRead % slots.length;
+                FrameSlot slot = slots[index];
+                if (slot == null) {
+                    slot = slots[index] = new FrameSlot(width, height);
+                    metrics.addFrameBufferBytes(slot.bytes());
+                } else {
+                    // The slot still holds the oldest frame in flight: finish and write it first
+                    writeSlot(slot, lastOutput, writer, width, height);
+                }
+                if (!readFrame(reader, slot.bgr, framesRead)) break;
+                slot.frame = framesRead;
+                slot.pending = true;
+                metrics.addFramesInFlight(1);
+                slot.duplicate = skipper != null && skipper.isDuplicate(slot.bgr, width, height);
+                if (slot.duplicate) {
+                    // Nothing to compute: writeSlot repeats the output of the last processed frame
+                } else if (pool != null) {
+                    FrameSlot job = slot;
+                    slot.job = pool.submit(() -> applyEffectToFrame(job, effect, width, height, schedule.rowThreshold));
+                } else {
+                    applyEffectToFrame(slot, effect, width, height, height);
+                }
+                framesRead++;
+            }
+            // Write the frames still in flight, oldest first
+            for (int i = Math.max(0, framesRead - slots.length); i < framesRead; i++) {
+                writeSlot(slots[i % slots.length], lastOutput, writer, width, height);
+            }
+        } catch (Exception e) {
+            System.err.println("Error in video effect processing: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            // After an error, frames submitted to the pool may still be processed into the slot buffers: wait for
+            // them before the buffers and frames in flight are released
+            for (FrameSlot slot : slots) {
+                if (slot != null && slot.job != null) {
+                    slot.job.quietlyJoin();
+                }
+            }
+            reader.close();
+            writer.close();
+            for (FrameSlot slot : slots) {
+                if (slot == null) continue;
+                if (slot.pending) {
+                    // Abandoned after an error
+                    metrics.addFramesInFlight(-1);
+                }
+                metrics.addFrameBufferBytes(-slot.bytes());
+            }
+            if (lastOutput != null) {
+                metrics.addFrameBufferBytes(-lastOutput.length);
+            }
+        }
+        System.out.println(effect.getDisplayName() + " video processing completed. Processed " + framesRead + " frames"
+                + (pool != null ? " with " + pool.getParallelism() + " threads, " + schedule : " sequentially") + ".");
+        if (skipper != null) {
+            System.out.println(skipper);
+        }
+        return framesRead;
+    }
+
+    // Applies an image effect frame by frame, recomputing only the blocks (plus kernel halo) that changed since
+    // the previous frame; unchanged blocks keep the previous output. Frames are processed in order, the dirty
+    // blocks of each frame in parallel on the pool. Returns the number of frames written, or -1 on error.
+    public static int processVideoEffectIncremental(File inputFile, File outputFile, ImageEffect effect, ForkJoinPool pool, int blockSize) {
+        FrameReader reader = VideoIO.openCachedReader(inputFile);
+        if (reader == null) return -1;
+        int width = reader.getWidth();
+        int height = reader.getHeight();
+
+        FrameWriter writer = VideoIO.openWriter(outputFile, width, height, reader.getFps());
+        if (writer == null) {
+            reader.close();
+            return -1;
+        }
+
+        IncrementalFrameProcessor processor = new IncrementalFrameProcessor(effect.pixelKernel(), blockSize);
+        FrameSlot slot = new FrameSlot(width, height);
+        ProcessingMetrics metrics = ProcessingMetrics.shared();
+        metrics.addFrameBufferBytes(slot.bytes());
+        if (pool != null) {
+            metrics.watchPool("video", pool);
+        }
+        int framesRead = 0;
+        try {
+            while (readFrame(reader, slot.bgr, framesRead)) {
+                FrameStage process = new FrameStage();
+                bgrToArgb(slot.bgr, slot.src);
+                int[] result = processor.process(slot.src, width, height, pool);
+                argbToBgr(result, slot.bgr);
+                process.end(VideoFrameEvent.PROCESS, framesRead, width, height, effect.getDisplayName());
+                writeFrame(writer, slot.bgr, framesRead, width, height);
+                framesRead++;
+            }
+        } catch (Exception e) {
+            System.err.println("Error in incremental video processing: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            reader.close();
+            writer.close();
+            metrics.addFrameBufferBytes(-slot.bytes());
+        }
+        System.out.println(effect.getDisplayName() + " incremental video processing completed. Processed " + framesRead + " frames. " + processor);
+        return framesRead;
+    }
+
+    // Converts the slot's BGR frame to ARGB, applies the effect and converts the result back into the slot
+    private static void applyEffectToFrame(FrameSlot slot, ImageEffect effect, int width, int height, int threshold) {
+        FrameStage process = new FrameStage();
+        bgrToArgb(slot.bgr, slot.src);
+        // invoke() forks the strips into the pool of the calling worker (or runs inline if not in a pool)
+        effect.createTask(slot.src, slot.dst, width, height, threshold).invoke();
+        argbToBgr(slot.dst, slot.bgr);
+        process.end(VideoFrameEvent.PROCESS, slot.frame, width, height, effect.getDisplayName());
+    }
+
+    // lastOutput is null if there are no duplicates (no FrameSkipper)
+    private static void writeSlot(FrameSlot slot, byte[] lastOutput, FrameWriter writer, int width, int height) throws java.io.IOException {
+        if (!slot.pending) return;
+        if (slot.job != null) {
+            slot.job.join();
+            slot.job = null;
+        }
+        // Frames are written in order, so for a duplicate lastOutput still holds the output of its reference frame
+        if (slot.duplicate) {
+            writeFrame(writer, lastOutput, slot.frame, width, height);
+        } else {
+            writeFrame(writer, slot.bgr, slot.frame, width, height);
+            if (lastOutput != null) {
+                System.arraycopy(slot.bgr, 0, lastOutput, 0, lastOutput.length);
+            }
+        }
+        slot.pending = false;
+        ProcessingMetrics.shared().addFramesInFlight(-1);
+    }
+
+    // Reads the next frame, recording its decode event; returns false at the end of the video
+    private static boolean readFrame(FrameReader reader, byte[] bgr, long frame) throws java.io.IOException {
+        FrameStage decode = new FrameStage();
+        if (!reader.read(bgr)) return false;
+        decode.end(VideoFrameEvent.DECODE, frame, reader.getWidth(), reader.getHeight());
+        return true;
+    }
+
+    // Writes a frame, recording its encode event
+    private static void writeFrame(FrameWriter writer, byte[] bgr, long frame, int width, int height) throws java.io.IOException {
+        FrameStage encode = new FrameStage();
+        writer.write(bgr);
+        encode.end(VideoFrameEvent.ENCODE, frame, width, height);
+    }
+
+    static void bgrToArgb(byte[] bgr, int[] argb) {
+        for (int i = 0, j = 0; i < argb.length; i++, j += 3) {
+            argb[i] = 0xff000000 | ((bgr[j + 2] & 0xff) << 16) | ((bgr[j + 1] & 0xff) << 8) | (bgr[j] & 0xff);
+        }
+    }
+
+    static void argbToBgr(int[] argb, byte[] bgr) {
+        for (int i = 0, j = 0; i < argb.length; i++, j += 3) {
+            int pixel = argb[i];
+            bgr[j] = (byte) pixel;
+            bgr[j + 1] = (byte) (pixel >> 8);
+            bgr[j + 2] = (byte) (pixel >> 16);
+        }
+    }
+
+    // Timing of any effect for each thread count with warmup and repeated trials, returns the statistics per
+    // thread count. The skipper may be null.
+    public static List<BenchmarkRunner.Stats> timeParallelEffect(File inputFile, File outputFileBase, ImageEffect effect,
+                                                                 FrameSkipper skipper, int[] threadCounts, BenchmarkRunner runner) {
+        List<BenchmarkRunner.Stats> times = new ArrayList<>();
+        for (int threads : threadCounts) {
+            File outFile = new File(outputFileBase.getParent(),
+                outputFileBase.getName().replace(".mp4", "_" + threads + ".mp4"));
+            ForkJoinPool pool = ExecutionService.shared().cpuPool(threads);
+            times.add(runner.measure("Parallel", threads, () -> processVideoEffect(inputFile, outFile, effect, pool, skipper)));
         }
         return times;
     }
+
+    // Applies a sliding-window operator (temporal denoise, frame differencing, motion mask) to a video.
+    // Every frame is decoded once into a FrameRingBuffer and shared by all windows that include it;
+    // batches of frame positions are processed in parallel on the pool while the next frames are decoded.
+    // Returns the number of frames written, or -1 on error.
+    public static int processVideoTemporal(File inputFile, File outputFile, TemporalOperator operator, int radius, ForkJoinPool pool) {
+        FrameReader reader = VideoIO.openCachedReader(inputFile);
+        if (reader == null) return -1;
+        int width = reader.getWidth();
+        int height = reader.getHeight();
+
+        FrameWriter writer = VideoIO.openWriter(outputFile, width, height, reader.getFps());
+        if (writer == null) {
+            reader.close();
+            return -1;
+        }
+
+        int before = operator.framesBefore(radius);
+        int after = operator.framesAfter(radius);
+        int batchSize = Math.max(1, pool.getParallelism() * 2);
+        int frameBytes = width * height * 3;
+        // Room for the windows of the current batch plus the frames decoded ahead for the next batch
+        FrameRingBuffer ring = new FrameRingBuffer(2 * batchSize + before + after, frameBytes);
+        byte[][] outputs = new byte[batchSize][frameBytes];
+        ProcessingMetrics metrics = ProcessingMetrics.shared();
+        long bufferBytes = (long) (ring.capacity() + batchSize) * frameBytes;
+        metrics.addFrameBufferBytes(bufferBytes);
+
+        long nextPosition = 0;
+        boolean endOfVideo = false;
+        int inFlight = 0; // Frames of the current batch submitted but not yet written
+        try {
+            // Decode enough frames for the windows of the first batch
+            while (!endOfVideo && ring.framesAdded() < batchSize + after) {
+                endOfVideo = !decodeInto(reader, ring);
+            }
+
+            while (true) {
+                long decoded = ring.framesAdded();
+                // Positions whose windows are complete (at the end of the video the last frame is repeated)
+                long available = endOfVideo ? decoded : decoded - after;
+                long batchEnd = Math.min(nextPosition + batchSize, available);
+                if (batchEnd <= nextPosition) {
+                    if (endOfVideo) break;
+                    endOfVideo = !decodeInto(reader, ring);
+                    continue;
+                }
+
+                long lastFrame = decoded - 1;
+                List<ForkJoinTask<?>> jobs = new ArrayList<>();
+                for (long position = nextPosition; position < batchEnd; position++) {
+                    long pos = position;
+                    byte[] out = outputs[(int) (position - nextPosition)];
+                    jobs.add(pool.submit(() -> {
+                        FrameStage process = new FrameStage();
+                        byte[][] window = new byte[before + after + 1][];
+                        for (int k = 0; k < window.length; k++) {
+                            long index = Math.max(0, Math.min(lastFrame, pos - before + k));
+                            window[k] = ring.get(index);
+                        }
+                        operator.apply(window, before, out, new int[window.length]);
+                        process.end(VideoFrameEvent.PROCESS, pos, width, height, operator.getDisplayName());
+                    }));
+                }
+                inFlight = jobs.size();
+                metrics.addFramesInFlight(inFlight);
+
+                // Decode ahead for the next batch while this one is processed
+                while (!endOfVideo && ring.framesAdded() < batchEnd + batchSize + after) {
+                    endOfVideo = !decodeInto(reader, ring);
+                }
+
+                for (int i = 0; i < jobs.size(); i++) {
+                    jobs.get(i).join();
+                    writeFrame(writer, outputs[i], nextPosition + i, width, height);
+                    inFlight--;
+                    metrics.addFramesInFlight(-1);
+                }
+                nextPosition = batchEnd;
+            }
+        } catch (Exception e) {
+            System.err.println("Error in temporal video processing: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        } finally {
+            reader.close();
+            writer.close();
+            metrics.addFramesInFlight(-inFlight);
+            metrics.addFrameBufferBytes(-bufferBytes);
+        }
+        System.out.println(operator.getDisplayName() + " processing completed. Processed " + nextPosition + " frames with "
+                + pool.getParallelism() + " threads (window " + (before + after + 1) + ", ring of " + ring.capacity() + " frames).");
+        return (int) nextPosition;
+    }
+
+    // Reads the next frame into the ring buffer; returns false at the end of the video
+    private static boolean decodeInto(FrameReader reader, FrameRingBuffer ring) throws java.io.IOException {
+        if (!readFrame(reader, ring.nextWriteBuffer(), ring.framesAdded())) return false;
+        ring.commit();
+        return true;
+    }
 } 
\ No newline at end of file
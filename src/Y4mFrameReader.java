@@ -0,0 +1,172 @@
+// Y4mFrameReader.java
+// Pure-Java reader for YUV4MPEG2 (.y4m) files, memory-mapped, without the OpenCV native library.
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads 8-bit YUV4MPEG2 streams with 4:2:0 (any chroma siting), 4:4:4 or mono planes and converts each frame
+ * to BGR with BT.601 coefficients. Limited ("TV") range is assumed unless the header carries
+ * XCOLORRANGE=FULL, as written by Y4mFrameWriter. 4:2:0 chroma is upsampled by pixel replication.
+ */
+public class Y4mFrameReader implements FrameReader {
+
+    private static final int MAX_LINE = 1024; // Longest accepted header or frame header line
+
+    private final MappedFileInput input;
+    private final File file;
+    private final int width;
+    private final int height;
+    private final double fps;
+    private final int chromaShift; // 1 for 4:2:0, 0 for 4:4:4, -1 for mono
+    private final boolean fullRange;
+    private final byte[] planes; // Y, Cb and Cr planes of one frame
+
+    public Y4mFrameReader(File file) throws IOException {
+        this.file = file;
+        input = new MappedFileInput(file);
+        try {
+            String header = readLine();
+            if (header == null || !header.startsWith("YUV4MPEG2")) {
+                throw new IOException("Not a YUV4MPEG2 file: " + file.getAbsolutePath());
+            }
+            int w = 0, h = 0, shift = 1;
+            double rate = 30.0;
+            boolean full = false;
+            for (String token : header.split(" ")) {
+                if (token.isEmpty()) continue;
+                char tag = token.charAt(0);
+                String value = token.substring(1);
+                if (tag == 'W') {
+                    w = Integer.parseInt(value);
+                } else if (tag == 'H') {
+                    h = Integer.parseInt(value);
+                } else if (tag == 'F') {
+                    String[] ratio = value.split(":");
+                    double den = Double.parseDouble(ratio[1]);
+                    if (den > 0) rate = Double.parseDouble(ratio[0]) / den;
+                } else if (tag == 'C') {
+                    if (value.startsWith("420") && !value.matches("420p\\d+")) {
+                        shift = 1; // 420jpeg, 420mpeg2, 420paldv, 420; 420p10 etc. are high bit depth
+                    } else if (value.equals("444")) {
+                        shift = 0;
+                    } else if (value.equals("mono")) {
+                        shift = -1;
+                    } else {
+                        throw new IOException("Unsupported Y4M colour space C" + value + " in " + file.getName());
+                    }
+                } else if (tag == 'X' && value.equals("COLORRANGE=FULL")) {
+                    full = true;
+                }
+            }
+            if (w <= 0 || h <= 0) {
+                throw new IOException("Y4M header without frame size: " + header);
+            }
+            width = w;
+            height = h;
+            fps = rate;
+            chromaShift = shift;
+            fullRange = full;
+            planes = new byte[width * height + 2 * chromaPlaneSize()];
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Invalid Y4M header in " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public double getFps() {
+        return fps;
+    }
+
+    @Override
+    public boolean read(byte[] bgr) throws IOException {
+        String frameHeader = readLine();
+        if (frameHeader == null) return false;
+        if (!frameHeader.startsWith("FRAME")) {
+            throw new IOException("Expected FRAME in " + file.getName() + " but found: " + frameHeader);
+        }
+        if (!input.read(planes, 0, planes.length)) {
+            System.err.println("Truncated last frame in " + file.getName());
+            return false;
+        }
+        toBgr(bgr);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private int chromaPlaneSize() {
+        if (chromaShift < 0) return 0;
+        int chromaWidth = (width + (1 << chromaShift) - 1) >> chromaShift;
+        int chromaHeight = (height + (1 << chromaShift) - 1) >> chromaShift;
+        return chromaWidth * chromaHeight;
+    }
+
+    // BT.601 YCbCr -> BGR in 16-bit fixed point
+    private void toBgr(byte[] bgr) {
+        int lumaSize = width * height;
+        int chromaWidth = chromaShift < 0 ? 0 : (width + (1 << chromaShift) - 1) >> chromaShift;
+        int chromaSize = chromaPlaneSize();
+        int yScale = fullRange ? 65536 : 76309; // 255 / 219 for limited range
+        int yOffset = fullRange ? 0 : 16;
+        int crToR = fullRange ? 91881 : 104597;
+        int cbToG = fullRange ? -22554 : -25675;
+        int crToG = fullRange ? -46802 : -53279;
+        int cbToB = fullRange ? 116130 : 132201;
+        int j = 0;
+        for (int y = 0; y < height; y++) {
+            int chromaRow = chromaShift < 0 ? 0 : (y >> chromaShift) * chromaWidth;
+            for (int x = 0; x < width; x++) {
+                int luma = ((planes[y * width + x] & 0xff) - yOffset) * yScale + 32768;
+                int cb = 0, cr = 0;
+                if (chromaShift >= 0) {
+                    int c = lumaSize + chromaRow + (x >> chromaShift);
+                    cb = (planes[c] & 0xff) - 128;
+                    cr = (planes[c + chromaSize] & 0xff) - 128;
+                }
+                bgr[j] = clamp((luma + cbToB * cb) >> 16);
+                bgr[j + 1] = clamp((luma + cbToG * cb + crToG * cr) >> 16);
+                bgr[j + 2] = clamp((luma + crToR * cr) >> 16);
+                j += 3;
+            }
+        }
+    }
+
+    private static byte clamp(int value) {
+        return (byte) (value < 0 ? 0 : (value > 255 ? 255 : value));
+    }
+
+    // Reads up to the next '\n'; null at the end of the file
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = input.readByte()) != '\n') {
+            if (c < 0) {
+                return sb.length() == 0 ? null : sb.toString();
+            }
+            if (sb.length() == MAX_LINE) {
+                throw new IOException("Y4M header line too long in " + file.getName());
+            }
+            sb.append((char) c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,79 @@
+// Y4mFrameWriter.java
+// Pure-Java writer for YUV4MPEG2 (.y4m) files through a FileChannel, without the OpenCV native library.
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes uncompressed 8-bit YUV4MPEG2 with full-resolution chroma (C444) in full range (XCOLORRANGE=FULL),
+ * so the only loss against the BGR input is the rounding of the BT.601 conversion (at most a level or two).
+ * ffmpeg and most players read the result; use RawFrameWriter where frames must be bit-exact.
+ */
+public class Y4mFrameWriter implements FrameWriter {
+
+    private static final byte[] FRAME_HEADER = "FRAME\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final File file;
+    private final int width;
+    private final int height;
+    private final ByteBuffer frameBuffer; // "FRAME\n" followed by the Y, Cb and Cr planes
+
+    public Y4mFrameWriter(File file, int width, int height, double fps) throws IOException {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        String header = "YUV4MPEG2 W" + width + " H" + height + " F" + frameRate(fps) + " Ip A1:1 C444 XCOLORRANGE=FULL\n";
+        writeFully(ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+        frameBuffer = ByteBuffer.allocate(FRAME_HEADER.length + 3 * width * height);
+        frameBuffer.put(FRAME_HEADER);
+    }
+
+    @Override
+    public void write(byte[] bgr) throws IOException {
+        byte[] planes = frameBuffer.array();
+        int lumaOffset = FRAME_HEADER.length;
+        int pixels = width * height;
+        // BT.601 full-range BGR -> YCbCr in 16-bit fixed point; the 128 offset keeps the sums non-negative
+        for (int i = 0, j = 0; i < pixels; i++, j += 3) {
+            int b = bgr[j] & 0xff;
+            int g = bgr[j + 1] & 0xff;
+            int r = bgr[j + 2] & 0xff;
+            planes[lumaOffset + i] = (byte) ((19595 * r + 38470 * g + 7471 * b + 32768) >> 16);
+            planes[lumaOffset + pixels + i] = (byte) ((-11059 * r - 21709 * g + 32768 * b + (128 << 16) + 32767) >> 16);
+            planes[lumaOffset + 2 * pixels + i] = (byte) ((32768 * r - 27439 * g - 5329 * b + (128 << 16) + 32767) >> 16);
+        }
+        frameBuffer.clear();
+        writeFully(frameBuffer);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Frame rate as the ratio of the F header tag, e.g. 30:1 or 30000:1001
+    private static String frameRate(double fps) {
+        if (fps <= 0) return "30:1";
+        if (Math.abs(fps - Math.rint(fps)) < 1e-6) return (long) Math.rint(fps) + ":1";
+        double ntsc = fps * 1001 / 1000;
+        if (Math.abs(ntsc - Math.rint(ntsc)) < 1e-3) return (long) Math.rint(ntsc) * 1000 + ":1001";
+        return Math.round(fps * 1000) + ":1000";
+    }
+}